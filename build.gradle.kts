@@ -5,6 +5,7 @@ plugins {
     jacoco
     id("org.jetbrains.kotlinx.binary-compatibility-validator") version "0.16.3"
     kotlin("jvm") version "2.0.20"
+    id("me.champeau.jmh") version "0.7.2"
     `maven-publish`
     signing
 }
@@ -103,6 +104,21 @@ tasks.create("testJava22", Test::class) {
     dependsOn(tasks.jar)
 }
 
+jmh {
+    jmhVersion = "1.37"
+    // the benchmarks build the images by TestImages
+    includeTests = true
+}
+
+tasks.named<Jar>("jmhJar") {
+    into("META-INF/versions/22") {
+        from(java22.output)
+    }
+    manifest {
+        attributes["Multi-Release"] = "true"
+    }
+}
+
 tasks.jacocoTestReport {
     dependsOn("testJava22", "test")
 }
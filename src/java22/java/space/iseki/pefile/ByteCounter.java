@@ -0,0 +1,66 @@
+package space.iseki.pefile;
+/*
+This file is used within a Multi-Release Jar file.
+All modifications should be reflected in other source-roots.
+ */
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Counts the byte values, the kernel of the byte histograms.
+ * <p>
+ * The bytes are loaded 8 at a time from the {@link MemorySegment} of the buffer (SWAR),
+ * and counted into 4 interleaved tables summed up at the end of each update,
+ * so the consecutive increments of the same value don't wait for each other.
+ * It works for both heap and direct buffers without the per-byte bounds checks of {@link ByteBuffer#get(int)}.
+ */
+final class ByteCounter {
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED;
+    private final long[] counts = new long[256];
+    private final int[] tables = new int[4 * 256];
+
+    /**
+     * Counts the remaining bytes of {@code data}, the position of {@code data} is not changed.
+     */
+    void update(ByteBuffer data) {
+        var t = tables;
+        var segment = MemorySegment.ofBuffer(data);
+        var size = segment.byteSize();
+        var i = 0L;
+        for (; i + 8 <= size; i += 8) {
+            var v = segment.get(LONG, i);
+            t[(int) v & 0xff]++;
+            t[256 + ((int) (v >>> 8) & 0xff)]++;
+            t[512 + ((int) (v >>> 16) & 0xff)]++;
+            t[768 + ((int) (v >>> 24) & 0xff)]++;
+            t[(int) (v >>> 32) & 0xff]++;
+            t[256 + ((int) (v >>> 40) & 0xff)]++;
+            t[512 + ((int) (v >>> 48) & 0xff)]++;
+            t[768 + (int) (v >>> 56)]++;
+        }
+        for (; i < size; i++) t[segment.get(ValueLayout.JAVA_BYTE, i) & 0xff]++;
+        flush();
+    }
+
+    private void flush() {
+        var t = tables;
+        for (int v = 0; v < 256; v++) {
+            counts[v] += (long) t[v] + t[256 + v] + t[512 + v] + t[768 + v];
+        }
+        Arrays.fill(t, 0);
+    }
+
+    /**
+     * @return the counts indexed by the unsigned byte value, the array is owned by this counter
+     */
+    long[] counts() {
+        return counts;
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+    }
+}
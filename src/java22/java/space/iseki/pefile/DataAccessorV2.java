@@ -8,16 +8,53 @@ All modifications should be reflected in other source-roots.
 import java.io.IOException;
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Objects;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.LockSupport;
 
 @SuppressWarnings("unused")
 interface DataAccessorV2 extends AutoCloseable {
     int read(ByteBuffer buffer, long position) throws IOException;
 
+    /**
+     * Returns a read-only view of at most {@code length} bytes since {@code position} without copying.
+     *
+     * @return the view, empty if {@code position} is beyond the end, or {@code null} if the accessor can't provide one
+     * @throws IOException if the accessor could provide a view, but failed to load the data
+     */
+    @SuppressWarnings("RedundantThrows")
+    default ByteBuffer view(long position, int length) throws IOException {
+        return null;
+    }
+
+    /**
+     * Reads into the buffers in order, as a single request if the accessor supports it.
+     *
+     * @return the number of bytes read, or -1 if {@code position} is at the end
+     */
+    default long read(ByteBuffer[] buffers, long position) throws IOException {
+        long total = 0;
+        for (var buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                var n = read(buffer, position + total);
+                if (n < 0) return total == 0 ? -1 : total;
+                if (n == 0) return total;
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the size of the data, or -1 if it's unknown without a cost
+     */
+    default long size() throws IOException {
+        return -1;
+    }
+
     boolean isOpen();
 }
 
@@ -27,6 +64,13 @@ final class MmapHelper {
         return true;
     }
 
+    /**
+     * Whether {@link OpenOptions.AccessStrategy#AUTO} maps the files, the mapping is unmapped by the close.
+     */
+    public static boolean isPreferred() {
+        return true;
+    }
+
     @SuppressWarnings({"unused", "RedundantThrows"})
     public static DataAccessorV2 accessorOf(FileChannel channel) throws IOException {
         Arena arena = Arena.ofShared();
@@ -45,10 +89,34 @@ final class MmapHelper {
 }
 
 
+/**
+ * An accessor over a segment mapped in a shared arena.
+ * <p>
+ * No lock is taken by the readers, the close safety is provided by the shared arena:
+ * closing it performs a handshake with all threads, the memory is never unmapped while a thread is accessing it.
+ * If a reader is inside an access at the moment, the close fails and it's retried for a bounded time,
+ * after the arena is closed, any access fails with {@link IllegalStateException}.
+ */
 final class MmapDataAccessorV2 implements DataAccessorV2 {
+    private static final int CLOSE_SPINS = 64;
+    // the parks double from 1 microsecond, about 2 seconds in total
+    private static final int CLOSE_PARKS = 21;
+    private static final VarHandle CLOSED;
+
+    static {
+        try {
+            CLOSED = MethodHandles.lookup()
+                                  .findVarHandle(MmapDataAccessorV2.class, "closed", boolean.class)
+                                  .withInvokeExactBehavior();
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new Error(e);
+        }
+    }
+
     private final MemorySegment segment;
     private final Arena arena;
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    @SuppressWarnings("unused")
+    private boolean closed;
 
     public MmapDataAccessorV2(MemorySegment segment, Arena arena) {
         this.segment = Objects.requireNonNull(segment);
@@ -57,22 +125,34 @@ final class MmapDataAccessorV2 implements DataAccessorV2 {
 
     @Override
     public int read(ByteBuffer buffer, long position) {
-        var readLock = lock.readLock();
+        var byteSize = segment.byteSize();
+        if (position >= byteSize) {
+            checkAlive();
+            return -1;
+        }
+        var bytesToCopy = Math.min(Integer.toUnsignedLong(buffer.remaining()), byteSize - position);
+        var target = buffer.slice(buffer.position(), (int) bytesToCopy);
         try {
-            readLock.lock();
-            if (!arena.scope().isAlive()) {
-                throw new IllegalStateException("The file was closed");
-            }
-            var byteSize = segment.byteSize();
-            if (position >= byteSize) {
-                return -1;
-            }
-            var bytesToCopy = Math.min(Integer.toUnsignedLong(buffer.remaining()), byteSize - position);
-            buffer = buffer.slice(buffer.position(), (int) bytesToCopy);
-            MemorySegment.copy(segment, position, MemorySegment.ofBuffer(buffer), 0, bytesToCopy);
-            return (int) bytesToCopy;
-        } finally {
-            readLock.unlock();
+            MemorySegment.copy(segment, position, MemorySegment.ofBuffer(target), 0, bytesToCopy);
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("The file was closed", e);
+        }
+        buffer.position(buffer.position() + (int) bytesToCopy);
+        return (int) bytesToCopy;
+    }
+
+    @Override
+    public ByteBuffer view(long position, int length) {
+        checkAlive();
+        var byteSize = segment.byteSize();
+        var bytesToView = position >= byteSize ? 0 : Math.min(Integer.toUnsignedLong(length), byteSize - position);
+        // the view is bound to the arena, accessing it after close() throws IllegalStateException
+        return segment.asSlice(Math.min(position, byteSize), bytesToView).asByteBuffer().asReadOnlyBuffer();
+    }
+
+    private void checkAlive() {
+        if (!arena.scope().isAlive()) {
+            throw new IllegalStateException("The file was closed");
         }
     }
 
@@ -81,16 +161,34 @@ final class MmapDataAccessorV2 implements DataAccessorV2 {
         return arena.scope().isAlive();
     }
 
-    @SuppressWarnings("RedundantThrows")
+    /**
+     * Close the arena, retrying while a reader is accessing the segment.
+     * <p>
+     * It spins for a short access, then backs off with parks up to about two seconds in total.
+     * If the segment is still in use, it throws and stays open, so the close can be called again.
+     *
+     * @throws IOException if the segment is still in use
+     */
     @Override
     public void close() throws Exception {
-        var writeLock = lock.writeLock();
-        try {
-            writeLock.lock();
-            if (!arena.scope().isAlive()) return;
-            arena.close();
-        } finally {
-            writeLock.unlock();
+        if (!CLOSED.compareAndSet(this, false, true)) return;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                arena.close();
+                return;
+            } catch (IllegalStateException e) {
+                // a reader is accessing the segment, the arena is still open
+                if (!arena.scope().isAlive()) return;
+                if (attempt >= CLOSE_SPINS + CLOSE_PARKS) {
+                    CLOSED.set(this, false);
+                    throw new IOException("The mapping is still in use, close it again later", e);
+                }
+                if (attempt < CLOSE_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(1000L << (attempt - CLOSE_SPINS));
+                }
+            }
         }
     }
 }
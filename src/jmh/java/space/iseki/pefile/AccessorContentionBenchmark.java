@@ -0,0 +1,111 @@
+package space.iseki.pefile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the locked {@link SeekableByteChannelDataAccessorV2} with the lock-free {@link FileChannelDataAccessorV2}
+ * and the memory mapped accessor when many threads read small chunks from the same file.
+ * <p>
+ * The mapped accessor is created by {@link MmapHelper}, so the JDK 22 variant is measured when running on JDK 22
+ * from the multi-release jar, the {@code MappedByteBuffer} variant otherwise.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessorContentionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedFile {
+        static final int FILE_SIZE = 16 * 1024 * 1024;
+
+        @Param({"locked", "positional", "mmap"})
+        public String accessor;
+
+        Path file;
+        WrappedDataAccessor wrapped;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            file = Files.createTempFile("pefile-bench", ".bin");
+            var data = new byte[FILE_SIZE];
+            new SplittableRandom(42).nextBytes(data);
+            Files.write(file, data);
+            var ch = FileChannel.open(file, StandardOpenOption.READ);
+            wrapped = switch (accessor) {
+                case "locked" -> new WrappedDataAccessor(new SeekableByteChannelDataAccessorV2(ch));
+                case "positional" -> new WrappedDataAccessor(new FileChannelDataAccessorV2(ch));
+                case "mmap" -> {
+                    try (ch) {
+                        yield new WrappedDataAccessor(MmapHelper.accessorOf(ch));
+                    }
+                }
+                default -> throw new IllegalArgumentException(accessor);
+            };
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            wrapped.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+        final byte[] buf = new byte[64];
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    private static byte[] readOne(SharedFile file, Reader reader) throws IOException {
+        var pos = reader.random.nextInt(SharedFile.FILE_SIZE - reader.buf.length);
+        file.wrapped.readFully(pos, reader.buf);
+        return reader.buf;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] threads1(SharedFile file, Reader reader) throws IOException {
+        return readOne(file, reader);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] threads4(SharedFile file, Reader reader) throws IOException {
+        return readOne(file, reader);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public byte[] threads16(SharedFile file, Reader reader) throws IOException {
+        return readOne(file, reader);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public byte[] threads64(SharedFile file, Reader reader) throws IOException {
+        return readOne(file, reader);
+    }
+}
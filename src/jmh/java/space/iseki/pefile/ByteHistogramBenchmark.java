@@ -0,0 +1,76 @@
+package space.iseki.pefile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link ByteCounter} kernel with a naive counting loop over a 128 MiB section-sized buffer.
+ * <p>
+ * Run the jmh jar on Java 22 or later to measure the SWAR kernel of the multi-release source set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+@State(Scope.Thread)
+public class ByteHistogramBenchmark {
+    static final int SIZE = 128 * 1024 * 1024;
+
+    @Param({"heap", "direct"})
+    public String buffer;
+
+    /**
+     * {@code random} is like packed data, {@code skewed} is like code with many zeros.
+     */
+    @Param({"random", "skewed"})
+    public String content;
+
+    ByteBuffer data;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var bytes = new byte[SIZE];
+        var random = new SplittableRandom(42);
+        if (content.equals("random")) {
+            random.nextBytes(bytes);
+        } else {
+            for (int i = 0; i < SIZE; i++) bytes[i] = random.nextInt(4) == 0 ? (byte) random.nextInt() : 0;
+        }
+        data = buffer.equals("heap") ? ByteBuffer.wrap(bytes) : ByteBuffer.allocateDirect(SIZE).put(bytes).flip();
+    }
+
+    @Benchmark
+    public long[] naive() {
+        var counts = new long[256];
+        var d = data;
+        for (int i = 0, n = d.limit(); i < n; i++) counts[d.get(i) & 0xff]++;
+        return counts;
+    }
+
+    @Benchmark
+    public long[] counter() {
+        var counter = new ByteCounter();
+        var d = data;
+        // the same chunking as ByteStatistics
+        for (int i = 0; i < SIZE; i += ByteStatistics.CHUNK) {
+            counter.update(d.limit(Math.min(SIZE, i + ByteStatistics.CHUNK)).position(i));
+        }
+        d.clear();
+        return counter.counts();
+    }
+}
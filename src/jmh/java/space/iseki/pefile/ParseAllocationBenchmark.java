@@ -0,0 +1,112 @@
+package space.iseki.pefile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of iterating the import symbols and walking the resource tree.
+ * <p>
+ * Run with {@code -prof gc}, the {@code gc.alloc.rate.norm} is the bytes allocated per symbol or per node.
+ * The remaining allocations should be the parsed objects themselves, e.g. {@link ImportSymbol} and its name.
+ * <p>
+ * The image is opened from a file by each {@link OpenOptions.AccessStrategy}, so the heap, the mapped and the
+ * positional read paths are measured, e.g.
+ * {@code java -jar pefile-jmh.jar ParseAllocationBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseAllocationBenchmark {
+    static final int SYMBOLS = 512;
+    static final int RESOURCE_NODES = 3;
+
+    @Param({"HEAP", "MMAP", "POSITIONAL"})
+    public OpenOptions.AccessStrategy accessStrategy;
+
+    Path file;
+    PEFile peFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        var symbols = new ArrayList<Object>(SYMBOLS);
+        for (int i = 0; i < SYMBOLS; i++) symbols.add(i % 4 == 0 ? (Object) (i + 1) : "Function" + i);
+        var dlls = new LinkedHashMap<String, List<Object>>();
+        dlls.put("KERNEL32.dll", symbols);
+        var imports = TestImages.imports(0x2000, dlls);
+        var rsrcRva = 0x2000 + (imports.length + 0xfff) / 0x1000 * 0x1000;
+        var b = new TestImages.Builder();
+        b.section(".idata", 0x2000, imports.length, imports, SectionFlags.CNT_INITIALIZED_DATA);
+        b.section(".rsrc", rsrcRva, 0x200, TestImages.resources(rsrcRva), SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 20 * 2);
+        b.directory(2, rsrcRva, 0x78);
+        file = Files.createTempFile("pefile-bench", ".exe");
+        Files.write(file, b.build());
+        peFile = PEFile.open(file, OpenOptions.builder().accessStrategy(accessStrategy).build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        peFile.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void importSymbols(Blackhole bh) {
+        for (var entry : peFile.getImportTable()) {
+            for (var symbol : entry.symbols()) bh.consume(symbol);
+        }
+    }
+
+    /**
+     * Reads the snapshot without the cache of {@link ImportTable#snapshot()}.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public ImportSnapshot importSnapshot() throws Exception {
+        return ImportSnapshot.read(peFile);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public String imphash() {
+        return peFile.getImportTable().imphash();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESOURCE_NODES)
+    public void resourceNodes(Blackhole bh) {
+        walk(peFile.getResourceRoot(), bh);
+    }
+
+    private void walk(ResourceNode node, Blackhole bh) {
+        for (var child : peFile.listChildren(node)) {
+            bh.consume(child);
+            walk(child, bh);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package space.iseki.pefile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the section lookup and the routed reads on images with many sections, like packed or Go binaries.
+ * <p>
+ * The strings are in the last section, the worst case for a linear scan over the section table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SectionRoutingBenchmark {
+    static final int SECTION_SIZE = 0x1000;
+
+    @Param({"20", "48", "96"})
+    public int sections;
+
+    PEFile peFile;
+    int[] rvas;
+    int index;
+    int lastSectionRva;
+    byte[] buf = new byte[64];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var b = new TestImages.Builder();
+        for (int i = 0; i < sections; i++) {
+            var raw = new byte[0x200];
+            var s = ("symbol" + i).getBytes(StandardCharsets.ISO_8859_1);
+            System.arraycopy(s, 0, raw, 0x10, s.length);
+            b.section(".s" + i, SECTION_SIZE * (i + 1), SECTION_SIZE, raw, SectionFlags.CNT_INITIALIZED_DATA);
+        }
+        peFile = PEFile.open(b.build());
+        lastSectionRva = SECTION_SIZE * sections;
+        var random = new SplittableRandom(42);
+        rvas = new int[1024];
+        for (int i = 0; i < rvas.length; i++) rvas[i] = random.nextInt(SECTION_SIZE, SECTION_SIZE * (sections + 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        peFile.close();
+    }
+
+    @Benchmark
+    public Section findRandom() {
+        return peFile.sectionSet.find(rvas[index++ & (rvas.length - 1)]);
+    }
+
+    @Benchmark
+    public Section findLast() {
+        return peFile.sectionSet.find(lastSectionRva + 0x10);
+    }
+
+    @Benchmark
+    public byte[] readBytesLast() throws IOException {
+        peFile.sectionSet.readBytes(buf, lastSectionRva + 0x10, 0, buf.length);
+        return buf;
+    }
+
+    @Benchmark
+    public byte[] readBytesSpanning() throws IOException {
+        // the virtual tail of the second last section, then the head of the last one
+        peFile.sectionSet.readBytes(buf, lastSectionRva - buf.length / 2, 0, buf.length);
+        return buf;
+    }
+
+    @Benchmark
+    public String readNullShortStringLast() throws IOException {
+        return peFile.sectionSet.readNullShortString(lastSectionRva + 0x10);
+    }
+}
@@ -0,0 +1,119 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An accessor based on {@link AsynchronousFileChannel}.
+ * <p>
+ * {@link #readAsync(ByteBuffer, long)} doesn't block the caller, it's used to prefetch the data by the async open.
+ * The blocking {@link #read(ByteBuffer, long)} is the fallback for the data not prefetched, it's a positional read of
+ * a {@link FileChannel} opened on the first use.
+ * It never waits for the async channel, a thread of the channel group waiting for another async read could starve
+ * the group.
+ */
+final class AsyncFileChannelDataAccessorV2 implements DataAccessorV2 {
+    private final AsynchronousFileChannel channel;
+    private final Path path;
+    private FileChannel blockingChannel;
+    private boolean closed;
+
+    AsyncFileChannelDataAccessorV2(@NotNull AsynchronousFileChannel channel, @NotNull Path path) {
+        this.channel = Objects.requireNonNull(channel);
+        this.path = Objects.requireNonNull(path);
+    }
+
+    /**
+     * Reads bytes into {@code buffer} since {@code position}, completes with the number of bytes read, or -1 at the
+     * end of file.
+     */
+    CompletableFuture<Integer> readAsync(@NotNull ByteBuffer buffer, long position) {
+        var future = new CompletableFuture<Integer>();
+        try {
+            channel.read(buffer, position, null, new CompletionHandler<Integer, Void>() {
+                @Override
+                public void completed(Integer result, Void attachment) {
+                    future.complete(result);
+                }
+
+                @Override
+                public void failed(Throwable exc, Void attachment) {
+                    future.completeExceptionally(closed(exc));
+                }
+            });
+        } catch (Throwable th) {
+            future.completeExceptionally(closed(th));
+        }
+        return future;
+    }
+
+    /**
+     * Same as {@link #readAsync(ByteBuffer, long)}, but reads until the buffer is full or the end of file reached.
+     *
+     * @return completes with the number of bytes read
+     */
+    CompletableFuture<Integer> readFullyAsync(@NotNull ByteBuffer buffer, long position) {
+        var begin = buffer.position();
+        return readAsync(buffer, position).thenCompose(n -> {
+            if (n < 0 || n == 0 || !buffer.hasRemaining()) {
+                return CompletableFuture.completedFuture(buffer.position() - begin);
+            }
+            return readFullyAsync(buffer, position + n).thenApply(m -> buffer.position() - begin);
+        });
+    }
+
+    private static Throwable closed(Throwable th) {
+        if (th instanceof ClosedChannelException) {
+            return new IllegalStateException("The file was closed", th);
+        }
+        return th;
+    }
+
+    @Override
+    public int read(@NotNull ByteBuffer buffer, long position) throws IOException {
+        try {
+            return blockingChannel().read(buffer, position);
+        } catch (ClosedChannelException e) {
+            throw new IllegalStateException("The file was closed", e);
+        }
+    }
+
+    private synchronized FileChannel blockingChannel() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The file was closed");
+        }
+        if (blockingChannel == null) {
+            blockingChannel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        return blockingChannel;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws Exception {
+        FileChannel ch;
+        synchronized (this) {
+            closed = true;
+            ch = blockingChannel;
+        }
+        try {
+            channel.close();
+        } finally {
+            if (ch != null) ch.close();
+        }
+    }
+}
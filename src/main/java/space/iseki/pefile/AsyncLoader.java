@@ -0,0 +1,269 @@
+package space.iseki.pefile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The async open and materialization.
+ * <p>
+ * The structures are prefetched by async reads, then parsed by the blocking parsers from memory.
+ * The continuations run on the thread completing the read, usually a thread of the channel group,
+ * so no thread is blocked while the I/O is in flight.
+ * <p>
+ * Only the ranges of the structures are prefetched, the tables are prefetched chunk by chunk until the null entry,
+ * and the strings by windows.
+ * The total is bounded by the budget of {@link PrefetchDataAccessorV2}, the structures beyond the budget or the
+ * windows are read by the blocking fallback, it doesn't wait for the channel group.
+ */
+final class AsyncLoader {
+    private static final int DESCRIPTOR_CHUNK = 16;
+    private static final int LOOKUP_CHUNK = 64;
+    private static final int NAME_WINDOW = 256;
+    private static final int RESOURCE_NAME_WINDOW = 64;
+
+    private AsyncLoader() {
+    }
+
+    static CompletableFuture<PEFile> open(Path path) {
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+        var accessor = new WrappedDataAccessor(new PrefetchDataAccessorV2(new AsyncFileChannelDataAccessorV2(channel, path)));
+        var future = accessor.prefetch(0, 4096)
+                             .thenCompose(v -> prefetchHeaders(accessor))
+                             .thenCompose(v -> prefetchResourceRoot(accessor))
+                             .thenApply(v -> unchecked(() -> PEFile.open(accessor)));
+        return future.whenComplete((peFile, th) -> {
+            if (th == null) return;
+            try {
+                accessor.close();
+            } catch (Throwable t) {
+                unwrap(th).addSuppressed(t);
+            }
+        });
+    }
+
+    /**
+     * Prefetches the PE headers and the section table, the DOS header is already prefetched.
+     */
+    private static CompletableFuture<Void> prefetchHeaders(WrappedDataAccessor accessor) {
+        var dos = unchecked(() -> accessor.viewAtMost(0, 0x40));
+        if (dos.remaining() < 0x40) {
+            // let the parser report it
+            return CompletableFuture.completedFuture(null);
+        }
+        var peBeginAt = I.u32L(dos, 0x3c);
+        return accessor.prefetch(peBeginAt, 24).thenCompose(v -> {
+            var coff = unchecked(() -> accessor.viewAtMost(peBeginAt, 24));
+            if (coff.remaining() < 24) {
+                return CompletableFuture.completedFuture(null);
+            }
+            var sizeOfOptionalHeader = Short.toUnsignedInt(I.u16(coff, 20));
+            var numbersOfSections = Math.min(Short.toUnsignedInt(I.u16(coff, 6)), PEHeaders.MAX_SECTIONS);
+            return accessor.prefetch(peBeginAt,
+                                     24 + sizeOfOptionalHeader + SectionTableItem.LENGTH * numbersOfSections);
+        });
+    }
+
+    private static CompletableFuture<Void> prefetchResourceRoot(WrappedDataAccessor accessor) {
+        var headers = unchecked(() -> PEHeaders.read(accessor));
+        var resourceTable = headers.dataDirectories().getResourceTable();
+        if (resourceTable == null || resourceTable.getRva() == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        var section = new SectionSet(headers.sections(accessor)).find(resourceTable.getRva());
+        var offset = section == null ? -1 : section.rawOffset(resourceTable.getRva(), ImageResourceDirectory.LENGTH);
+        if (offset < 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return accessor.prefetch(offset, ImageResourceDirectory.LENGTH);
+    }
+
+    /**
+     * Prefetches a table of {@code width}-byte entries terminated by a null entry, a chunk of entries at a time,
+     * until {@code visitor} stops or the raw data of the section ends.
+     * <p>
+     * If a chunk is not prefetched, e.g. the budget is exhausted, the rest is left to the blocking fallback.
+     */
+    private static CompletableFuture<Void> prefetchTable(Section section,
+                                                        int rva,
+                                                        int width,
+                                                        int chunk,
+                                                        EntryVisitor visitor) {
+        var count = (int) Math.min(chunk, rawRemaining(section, rva) / width);
+        var length = count * width;
+        var offset = count == 0 ? -1 : section.rawOffset(rva, length);
+        if (offset < 0) return CompletableFuture.completedFuture(null);
+        var accessor = section.accessor();
+        return accessor.prefetch(offset, length).thenCompose(v -> {
+            var data = unchecked(() -> accessor.viewAtMostIfShared(offset, length));
+            if (data == null || data.remaining() < length) return CompletableFuture.completedFuture(null);
+            for (int i = 0; i < count; i++) {
+                if (!visitor.visit(data, i * width)) return CompletableFuture.completedFuture(null);
+            }
+            return prefetchTable(section, U.add(rva, length), width, chunk, visitor);
+        });
+    }
+
+    /**
+     * Prefetches a window of {@code window} bytes since each RVA, clipped to the raw data of the section,
+     * the windows close to each other are merged.
+     */
+    private static CompletableFuture<Void> prefetchWindows(PEFile peFile, Collection<Integer> rvas, int window) {
+        var ranges = new long[rvas.size() * 2];
+        var n = 0;
+        for (var rva : rvas) {
+            var section = peFile.sectionSet.find(rva);
+            if (section == null) continue;
+            var length = (int) Math.min(window, rawRemaining(section, rva));
+            var offset = length <= 0 ? -1 : section.rawOffset(rva, length);
+            if (offset < 0) continue;
+            ranges[n * 2] = offset;
+            ranges[n * 2 + 1] = offset + length;
+            n++;
+        }
+        var order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(i -> ranges[i * 2]));
+        var accessor = peFile.accessor();
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < n; ) {
+            var begin = ranges[order[i] * 2];
+            var end = ranges[order[i] * 2 + 1];
+            for (i++; i < n && ranges[order[i] * 2] - end <= ReadBatch.DEFAULT_GAP; i++) {
+                end = Math.max(end, ranges[order[i] * 2 + 1]);
+            }
+            futures.add(accessor.prefetch(begin, (int) (end - begin)));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * @return the number of the raw bytes of the section since {@code rva}, or 0 if {@code rva} is not in them
+     */
+    private static long rawRemaining(Section section, int rva) {
+        var rawEnd = Integer.toUnsignedLong(section.getVirtualAddress()) +
+                     Integer.toUnsignedLong(section.getSizeOfRawData());
+        return Math.max(0, rawEnd - Integer.toUnsignedLong(rva));
+    }
+
+    static CompletableFuture<List<ImportEntry>> materializeImports(PEFile peFile) {
+        var importTable = peFile.dataDirectories.getImportTable();
+        if (importTable == null) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        var section = peFile.sectionSet.find(importTable.getRva());
+        // the descriptors, then the DLL names and the lookup tables, then the hint/name entries
+        var descriptors = new ArrayList<ImportDirectoryTable>();
+        var prefetched = section == null ? CompletableFuture.<Void>completedFuture(null) :
+                prefetchTable(section, importTable.getRva(), ImportDirectoryTable.LENGTH, DESCRIPTOR_CHUNK,
+                              (data, off) -> {
+                                  var idt = ImportDirectoryTable.parse(data, off);
+                                  if (idt.importLookupTableRva() == 0) return false;
+                                  descriptors.add(idt);
+                                  return true;
+                              });
+        var hintNames = new ConcurrentLinkedQueue<Integer>();
+        return prefetched.thenCompose(v -> prefetchDescriptorReferences(peFile, descriptors, hintNames))
+                         .thenCompose(v -> prefetchWindows(peFile, hintNames, 2 + NAME_WINDOW))
+                         .thenApply(v -> {
+                             var entries = new ArrayList<ImportEntry>();
+                             for (var entry : peFile.getImportTable()) {
+                                 entries.add(entry.materialize());
+                             }
+                             return List.copyOf(entries);
+                         });
+    }
+
+    /**
+     * Prefetches the DLL names and the lookup tables, the RVAs of the hint/name entries are collected.
+     */
+    private static CompletableFuture<Void> prefetchDescriptorReferences(PEFile peFile,
+                                                                       List<ImportDirectoryTable> descriptors,
+                                                                       Queue<Integer> hintNames) {
+        var plus = peFile.standardHeader.isPE32Plus();
+        var width = plus ? 8 : 4;
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        var names = new ArrayList<Integer>();
+        for (var idt : descriptors) {
+            names.add(idt.nameRva());
+            var section = peFile.sectionSet.find(idt.importLookupTableRva());
+            if (section == null) continue;
+            futures.add(prefetchTable(section, idt.importLookupTableRva(), width, LOOKUP_CHUNK, (data, off) -> {
+                var value = plus ? I.u64(data, off) : I.u32L(data, off);
+                if (value == 0) return false;
+                var ordinalFlag = plus ? Long.MIN_VALUE : 1L << 31;
+                if ((value & ordinalFlag) == 0) hintNames.add((int) value & 0x7fffffff);
+                return true;
+            }));
+        }
+        futures.add(prefetchWindows(peFile, names, NAME_WINDOW));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    static CompletableFuture<List<ResourceNode>> listChildren(PEFile peFile, ResourceNode dirNode) {
+        var resourceTable = peFile.dataDirectories.getResourceTable();
+        if (resourceTable == null || !(dirNode.entry instanceof ImageResourceDirectory)) {
+            return CompletableFuture.completedFuture(List.copyOf(peFile.listChildren(dirNode)));
+        }
+        var table = (ImageResourceDirectory) dirNode.entry;
+        var count = table.numberOfNamedEntries() + table.numberOfIdEntries();
+        var beginRva = resourceTable.getRva();
+        var entriesRva = beginRva + dirNode.irdOffset + ImageResourceDirectory.LENGTH;
+        // the entries, then the headers and the names of the children
+        return prefetchWindows(peFile, List.of(entriesRva), count * 8).thenCompose(v -> {
+            var section = peFile.sectionSet.find(entriesRva);
+            var offset = section == null ? -1 : section.rawOffset(entriesRva, count * 8);
+            var entries = offset < 0 ? null : unchecked(() -> peFile.accessor().viewAtMostIfShared(offset, count * 8));
+            if (entries == null || entries.remaining() < count * 8) return CompletableFuture.completedFuture(null);
+            var heads = new ArrayList<Integer>();
+            var names = new ArrayList<Integer>();
+            for (int i = 0; i < count; i++) {
+                var namePtr = I.u32(entries, i * 8);
+                heads.add(beginRva + (I.u32(entries, i * 8 + 4) & 0x7fffffff));
+                if (namePtr < 0) names.add(beginRva + (namePtr & 0x7fffffff));
+            }
+            return CompletableFuture.allOf(prefetchWindows(peFile, heads, ImageResourceDirectory.LENGTH),
+                                           prefetchWindows(peFile, names, RESOURCE_NAME_WINDOW));
+        }).thenApply(v -> List.copyOf(peFile.listChildren(dirNode)));
+    }
+
+    private static Throwable unwrap(Throwable th) {
+        return th instanceof CompletionException && th.getCause() != null ? th.getCause() : th;
+    }
+
+    private static <R> R unchecked(Call<R> call) {
+        try {
+            return call.call();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Call<R> {
+        R call() throws IOException;
+    }
+
+    private interface EntryVisitor {
+        /**
+         * @return false to stop at the entry
+         */
+        boolean visit(ByteBuffer data, int offset);
+    }
+}
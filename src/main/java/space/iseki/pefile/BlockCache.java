@@ -0,0 +1,392 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cache of fixed-size blocks of the file content, placed in front of slow storage backends.
+ * <p>
+ * Parsing reads the same few regions repeatedly, such as resource directory entries and import names.
+ * With the cache, each block is fetched from the backend only once until evicted.
+ * <p>
+ * A cache can be shared by many {@link PEFile} instances, the blocks of each file are kept apart,
+ * and are dropped when the file is closed.
+ * The cache is thread-safe, a cache of at least 128 blocks is split into up to 16 segments, each locked and evicted
+ * on its own, so the eviction order holds within a segment.
+ *
+ * @see PEFile#open(DataAccessor, BlockCache)
+ * @see PEFile#open(java.nio.file.Path, BlockCache)
+ */
+public final class BlockCache {
+    static final int SEGMENT_CAPACITY = 64;
+    static final int MAX_SEGMENTS = 16;
+    private final int blockSize;
+    private final int capacity;
+    private final Eviction eviction;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create a cache with the {@link Eviction#LRU} eviction.
+     *
+     * @param blockSize the size of each block in bytes, must be positive
+     * @param capacity  the maximum number of blocks, must be positive
+     */
+    public BlockCache(int blockSize, int capacity) {
+        this(blockSize, capacity, Eviction.LRU);
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param blockSize the size of each block in bytes, must be positive
+     * @param capacity  the maximum number of blocks, must be positive
+     * @param eviction  which block to evict when the cache is full
+     */
+    public BlockCache(int blockSize, int capacity, @NotNull Eviction eviction) {
+        if (blockSize <= 0) throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.blockSize = blockSize;
+        this.capacity = capacity;
+        this.eviction = Objects.requireNonNull(eviction);
+        var n = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, capacity / SEGMENT_CAPACITY)));
+        this.segments = new Segment[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment(i, capacity / n + (i < capacity % n ? 1 : 0));
+        }
+    }
+
+    /**
+     * @return the size of each block in bytes
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * @return the maximum number of blocks
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the eviction policy
+     */
+    public @NotNull Eviction getEviction() {
+        return eviction;
+    }
+
+    /**
+     * @return the number of blocks currently cached
+     */
+    public int size() {
+        var size = 0;
+        for (var segment : segments) {
+            try {
+                segment.lock.lock();
+                size += segment.size;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of block lookups served by the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of block lookups fetched from the backend
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of blocks evicted because the cache was full
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Drop all blocks, the statistics are kept.
+     */
+    public void clear() {
+        for (var segment : segments) {
+            try {
+                segment.lock.lock();
+                segment.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BlockCache{" +
+               "blockSize=" + blockSize +
+               ", capacity=" + capacity +
+               ", eviction=" + eviction +
+               ", hits=" + hits.sum() +
+               ", misses=" + misses.sum() +
+               ", evictions=" + evictions.sum() +
+               '}';
+    }
+
+    Source newSource() {
+        return new Source(segments.length);
+    }
+
+    byte[] get(Source source, long block) {
+        var hash = hash(source, block);
+        var segment = segments[(hash >>> 16) & (segments.length - 1)];
+        byte[] data;
+        try {
+            segment.lock.lock();
+            data = segment.get(source, block, hash);
+        } finally {
+            segment.lock.unlock();
+        }
+        if (data == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return data;
+    }
+
+    /**
+     * Cache a block, it's ignored if the source is invalidated, e.g. a read racing the close.
+     */
+    void put(Source source, long block, byte[] data) {
+        var hash = hash(source, block);
+        var segment = segments[(hash >>> 16) & (segments.length - 1)];
+        try {
+            segment.lock.lock();
+            // invalidate sets the flag before it takes the segment locks
+            if (source.invalidated) return;
+            segment.put(source, block, hash, data);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Drop the blocks of the source, in the time proportional to the number of them.
+     */
+    void invalidate(Source source) {
+        source.invalidated = true;
+        for (var segment : segments) {
+            try {
+                segment.lock.lock();
+                segment.invalidate(source);
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    private static int hash(Source source, long block) {
+        var h = source.hash * 31 + Long.hashCode(block);
+        h *= 0x9e3779b9;
+        return h ^ (h >>> 15);
+    }
+
+    /**
+     * The block to evict when the cache is full.
+     */
+    public enum Eviction {
+        /**
+         * Evict the least recently used block.
+         */
+        LRU,
+        /**
+         * Evict the earliest loaded block.
+         */
+        FIFO,
+    }
+
+    /**
+     * The blocks of a file, compared by identity.
+     * The list heads are guarded by the lock of each segment.
+     */
+    static final class Source {
+        private final int hash = System.identityHashCode(this);
+        private final Node[] heads;
+        private volatile boolean invalidated;
+
+        private Source(int segments) {
+            this.heads = new Node[segments];
+        }
+    }
+
+    /**
+     * A cached block, linked in the hash chain, the eviction order and the blocks of its source in the segment.
+     */
+    private static final class Node {
+        final Source source;
+        final long block;
+        final int hash;
+        final byte[] data;
+        Node next;
+        Node before;
+        Node after;
+        Node sourcePrev;
+        Node sourceNext;
+
+        Node(Source source, long block, int hash, byte[] data) {
+            this.source = source;
+            this.block = block;
+            this.hash = hash;
+            this.data = data;
+        }
+    }
+
+    /**
+     * A part of the cache under its own lock, the lookup doesn't allocate.
+     */
+    private final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final int index;
+        final int capacity;
+        Node[] table = new Node[16];
+        int size;
+        // the eldest, evicted first
+        Node head;
+        Node tail;
+
+        Segment(int index, int capacity) {
+            this.index = index;
+            this.capacity = capacity;
+        }
+
+        byte[] get(Source source, long block, int hash) {
+            var node = find(source, block, hash);
+            if (node == null) return null;
+            if (eviction == Eviction.LRU && node != tail) {
+                unlinkOrder(node);
+                linkOrder(node);
+            }
+            return node.data;
+        }
+
+        void put(Source source, long block, int hash, byte[] data) {
+            var old = find(source, block, hash);
+            if (old != null) remove(old);
+            var node = new Node(source, block, hash, data);
+            var i = hash & (table.length - 1);
+            node.next = table[i];
+            table[i] = node;
+            linkOrder(node);
+            node.sourceNext = source.heads[index];
+            if (node.sourceNext != null) node.sourceNext.sourcePrev = node;
+            source.heads[index] = node;
+            if (++size > capacity) {
+                evictions.increment();
+                remove(head);
+            } else if (size > table.length - (table.length >>> 2)) {
+                resize();
+            }
+        }
+
+        void invalidate(Source source) {
+            for (var node = source.heads[index]; node != null; node = node.sourceNext) {
+                unlinkTable(node);
+                unlinkOrder(node);
+                size--;
+            }
+            source.heads[index] = null;
+        }
+
+        void clear() {
+            for (var node = head; node != null; node = node.after) node.source.heads[index] = null;
+            Arrays.fill(table, null);
+            head = tail = null;
+            size = 0;
+        }
+
+        private Node find(Source source, long block, int hash) {
+            for (var node = table[hash & (table.length - 1)]; node != null; node = node.next) {
+                if (node.hash == hash && node.source == source && node.block == block) return node;
+            }
+            return null;
+        }
+
+        private void remove(Node node) {
+            unlinkTable(node);
+            unlinkOrder(node);
+            if (node.sourcePrev != null) {
+                node.sourcePrev.sourceNext = node.sourceNext;
+            } else {
+                node.source.heads[index] = node.sourceNext;
+            }
+            if (node.sourceNext != null) node.sourceNext.sourcePrev = node.sourcePrev;
+            size--;
+        }
+
+        private void unlinkTable(Node node) {
+            var i = node.hash & (table.length - 1);
+            if (table[i] == node) {
+                table[i] = node.next;
+                return;
+            }
+            for (var p = table[i]; p != null; p = p.next) {
+                if (p.next == node) {
+                    p.next = node.next;
+                    return;
+                }
+            }
+        }
+
+        private void linkOrder(Node node) {
+            node.before = tail;
+            node.after = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.after = node;
+            }
+            tail = node;
+        }
+
+        private void unlinkOrder(Node node) {
+            if (node.before == null) {
+                head = node.after;
+            } else {
+                node.before.after = node.after;
+            }
+            if (node.after == null) {
+                tail = node.before;
+            } else {
+                node.after.before = node.before;
+            }
+        }
+
+        private void resize() {
+            var old = table;
+            table = new Node[old.length * 2];
+            for (var chain : old) {
+                for (var node = chain; node != null; ) {
+                    var next = node.next;
+                    var i = node.hash & (table.length - 1);
+                    node.next = table[i];
+                    table[i] = node;
+                    node = next;
+                }
+            }
+        }
+    }
+}
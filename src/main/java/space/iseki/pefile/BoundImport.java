@@ -0,0 +1,143 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An entry of the bound import directory, {@code IMAGE_BOUND_IMPORT_DESCRIPTOR}, or a forwarder reference of it,
+ * {@code IMAGE_BOUND_FORWARDER_REF}.
+ * <p>
+ * The IAT slots of a bound DLL hold the addresses of the symbols in the DLL with the time stamp, they are valid if
+ * the loaded DLL has the same time stamp.
+ *
+ * @see PEFile#getBoundImports()
+ */
+public final class BoundImport {
+    static final int LENGTH = 8;
+    /**
+     * The limit of the bytes read for the directory.
+     */
+    private static final int MAX_DIRECTORY_SIZE = 1 << 20;
+    private static final int NAME_WINDOW = 256;
+    private final int timeDateStamp;
+    private final @Nullable String moduleName;
+    private final @NotNull List<@NotNull BoundImport> forwarders;
+
+    BoundImport(int timeDateStamp, @Nullable String moduleName, @NotNull List<@NotNull BoundImport> forwarders) {
+        this.timeDateStamp = timeDateStamp;
+        this.moduleName = moduleName;
+        this.forwarders = forwarders;
+    }
+
+    /**
+     * @return the time stamp of the DLL the addresses are bound to
+     */
+    public int getTimeDateStamp() {
+        return timeDateStamp;
+    }
+
+    /**
+     * @return the name of the DLL, or null if it's unavailable
+     */
+    public @Nullable String getModuleName() {
+        return moduleName;
+    }
+
+    /**
+     * @return the DLLs the symbols are forwarded to, always empty for a forwarder reference
+     */
+    public @Unmodifiable @NotNull List<@NotNull BoundImport> getForwarders() {
+        return forwarders;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BoundImport that = (BoundImport) o;
+        return timeDateStamp == that.timeDateStamp &&
+               Objects.equals(moduleName, that.moduleName) &&
+               forwarders.equals(that.forwarders);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = timeDateStamp;
+        result = 31 * result + Objects.hashCode(moduleName);
+        result = 31 * result + forwarders.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return U.structure("BoundImport",
+                           moduleName != null ? U.fieldEscape("moduleName", moduleName) : "null",
+                           U.field("timeDateStamp", U.timeDateU32(timeDateStamp)),
+                           U.field("forwarders", forwarders.toString()));
+    }
+
+    /**
+     * Reads the bound import directory, it's usually in the headers, so the address is translated by
+     * {@link PEFile#rvaToFileOffset(int)}.
+     *
+     * @throws PEFileException if the directory is not terminated
+     */
+    static List<BoundImport> read(PEFile peFile) throws IOException {
+        var directory = peFile.dataDirectories.getBoundImport();
+        if (directory == null || directory.getRva() == 0) return List.of();
+        var offset = peFile.rvaToFileOffset(directory.getRva());
+        if (offset < 0) return List.of();
+        var size = (int) Math.min(Math.max(Integer.toUnsignedLong(directory.getSize()), LENGTH), MAX_DIRECTORY_SIZE);
+        var data = new byte[size];
+        var len = peFile.accessor().readAtMost(offset, data);
+        var list = new ArrayList<BoundImport>();
+        var off = 0;
+        while (true) {
+            if (off + LENGTH > len) {
+                throw new PEFileException("incomplete BoundImportDescriptor read");
+            }
+            var timeDateStamp = I.u32(data, off);
+            var nameOffset = Short.toUnsignedInt(I.u16(data, off + 4));
+            var refs = Short.toUnsignedInt(I.u16(data, off + 6));
+            off += LENGTH;
+            if (timeDateStamp == 0 && nameOffset == 0 && refs == 0) break;
+            if (off + refs * LENGTH > len) {
+                throw new PEFileException("incomplete BoundImportDescriptor read");
+            }
+            var forwarders = new ArrayList<BoundImport>(refs);
+            for (int i = 0; i < refs; i++, off += LENGTH) {
+                var refName = readName(peFile, offset, data, len, Short.toUnsignedInt(I.u16(data, off + 4)));
+                forwarders.add(new BoundImport(I.u32(data, off), refName, List.of()));
+            }
+            var name = readName(peFile, offset, data, len, nameOffset);
+            list.add(new BoundImport(timeDateStamp, name, List.copyOf(forwarders)));
+        }
+        return List.copyOf(list);
+    }
+
+    /**
+     * Reads the name at {@code nameOffset} since the directory, usually inside the read bytes.
+     */
+    private static String readName(PEFile peFile, long offset, byte[] data, int len, int nameOffset)
+            throws IOException {
+        if (nameOffset >= len) {
+            data = new byte[NAME_WINDOW];
+            len = peFile.accessor().readAtMost(offset + nameOffset, data);
+            nameOffset = 0;
+        }
+        for (int i = nameOffset; i < len; i++) {
+            if (data[i] == 0) {
+                return i == nameOffset ? null : new String(data, nameOffset, i - nameOffset,
+                                                           StandardCharsets.ISO_8859_1);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,60 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An accessor over the content already in memory, either a heap or a direct buffer.
+ * <p>
+ * Only absolute operations are used on the shared buffer, so no lock is required.
+ */
+final class ByteBufferDataAccessorV2 implements DataAccessorV2 {
+    private final ByteBuffer data;
+    private volatile boolean open = true;
+
+    /**
+     * @param data the remaining bytes of it are the content, the buffer will not be modified
+     */
+    ByteBufferDataAccessorV2(@NotNull ByteBuffer data) {
+        this.data = data.slice();
+    }
+
+    @Override
+    public int read(@NotNull ByteBuffer buffer, long position) {
+        if (!open) {
+            throw new IllegalStateException("The file was closed");
+        }
+        var size = data.limit();
+        if (position >= size) {
+            return -1;
+        }
+        var bytesToCopy = (int) Math.min(buffer.remaining(), size - position);
+        buffer.put(buffer.position(), data, (int) position, bytesToCopy);
+        buffer.position(buffer.position() + bytesToCopy);
+        return bytesToCopy;
+    }
+
+    @Override
+    public ByteBuffer view(long position, int length) {
+        if (!open) {
+            throw new IllegalStateException("The file was closed");
+        }
+        var size = data.limit();
+        if (position >= size) {
+            return ByteBuffer.allocate(0);
+        }
+        var bytesToView = (int) Math.min(Integer.toUnsignedLong(length), size - position);
+        return data.slice((int) position, bytesToView).asReadOnlyBuffer();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
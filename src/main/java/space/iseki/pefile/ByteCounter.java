@@ -0,0 +1,69 @@
+package space.iseki.pefile;
+/*
+This file is used within a Multi-Release Jar file.
+All modifications should be reflected in other source-roots.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Counts the byte values, the kernel of the byte histograms.
+ * <p>
+ * The bytes are counted into 4 interleaved tables and summed up at the end of each update,
+ * so the consecutive increments of the same value don't wait for each other.
+ */
+final class ByteCounter {
+    private final long[] counts = new long[256];
+    private final int[] tables = new int[4 * 256];
+
+    /**
+     * Counts the remaining bytes of {@code data}, the position of {@code data} is not changed.
+     */
+    void update(ByteBuffer data) {
+        var t = tables;
+        var begin = data.position();
+        var end = data.limit();
+        var i = begin;
+        if (data.hasArray()) {
+            var a = data.array();
+            var off = data.arrayOffset();
+            for (; i + 4 <= end; i += 4) {
+                t[a[off + i] & 0xff]++;
+                t[256 + (a[off + i + 1] & 0xff)]++;
+                t[512 + (a[off + i + 2] & 0xff)]++;
+                t[768 + (a[off + i + 3] & 0xff)]++;
+            }
+            for (; i < end; i++) t[a[off + i] & 0xff]++;
+        } else {
+            for (; i + 4 <= end; i += 4) {
+                var v = data.getInt(i);
+                t[v & 0xff]++;
+                t[256 + (v >>> 8 & 0xff)]++;
+                t[512 + (v >>> 16 & 0xff)]++;
+                t[768 + (v >>> 24)]++;
+            }
+            for (; i < end; i++) t[data.get(i) & 0xff]++;
+        }
+        flush();
+    }
+
+    private void flush() {
+        var t = tables;
+        for (int v = 0; v < 256; v++) {
+            counts[v] += (long) t[v] + t[256 + v] + t[512 + v] + t[768 + v];
+        }
+        Arrays.fill(t, 0);
+    }
+
+    /**
+     * @return the counts indexed by the unsigned byte value, the array is owned by this counter
+     */
+    long[] counts() {
+        return counts;
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+    }
+}
@@ -0,0 +1,124 @@
+package space.iseki.pefile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Byte histograms and Shannon entropy of file ranges, each computed in one pass by
+ * {@link WrappedDataAccessor#scan}.
+ */
+final class ByteStatistics {
+    static final int CHUNK = 1 << 20;
+    private static final double LOG2 = Math.log(2);
+
+    private ByteStatistics() {
+    }
+
+    /**
+     * @param length the number of bytes, it stops at the end of data
+     * @return the counts indexed by the unsigned byte value
+     */
+    static long[] histogram(WrappedDataAccessor accessor, long position, long length) throws IOException {
+        var counter = new ByteCounter();
+        accessor.scan(position, length, CHUNK, counter::update);
+        return counter.counts().clone();
+    }
+
+    /**
+     * @return the Shannon entropy in bits per byte, in {@code [0, 8]}, or 0 if there's no byte
+     */
+    static double entropy(long[] histogram) {
+        var total = 0L;
+        for (var c : histogram) total += c;
+        if (total == 0) return 0;
+        var sum = 0.0;
+        for (var c : histogram) {
+            if (c == 0) continue;
+            var p = (double) c / total;
+            sum -= p * Math.log(p);
+        }
+        return sum / LOG2;
+    }
+
+    /**
+     * Computes the entropy of each window of {@code window} bytes, the windows begin every {@code step} bytes.
+     * <p>
+     * The range is counted once in blocks of {@code step} bytes, and each window sums up the last blocks.
+     * A range shorter than {@code window} has one entry for all of its bytes, the incomplete tail is dropped
+     * otherwise.
+     */
+    static double[] entropyProfile(WrappedDataAccessor accessor, long position, long length, int window, int step)
+            throws IOException {
+        checkWindow(window, step);
+        var profile = new Profile(window / step, step);
+        var total = accessor.scan(position, length, CHUNK, profile::accept);
+        return profile.finish(total);
+    }
+
+    private static final class Profile {
+        private final int step;
+        private final long[][] blocks;
+        private final long[] sum = new long[256];
+        private final ByteCounter counter = new ByteCounter();
+        private double[] entries = new double[16];
+        private int entryCount;
+        private int blockCount;
+        /**
+         * The bytes counted in the current block.
+         */
+        private int filled;
+
+        Profile(int blocksPerWindow, int step) {
+            this.step = step;
+            this.blocks = new long[blocksPerWindow][];
+        }
+
+        void accept(ByteBuffer chunk) {
+            var begin = chunk.position();
+            var end = chunk.limit();
+            while (begin < end) {
+                var n = Math.min(end - begin, step - filled);
+                counter.update(chunk.limit(begin + n).position(begin));
+                begin += n;
+                filled += n;
+                if (filled == step) completeBlock();
+            }
+            chunk.limit(end).position(begin);
+        }
+
+        private void completeBlock() {
+            var slot = blockCount++ % blocks.length;
+            var block = blocks[slot];
+            if (block == null) {
+                block = blocks[slot] = new long[256];
+            } else {
+                for (int v = 0; v < 256; v++) sum[v] -= block[v];
+            }
+            System.arraycopy(counter.counts(), 0, block, 0, 256);
+            for (int v = 0; v < 256; v++) sum[v] += block[v];
+            counter.reset();
+            filled = 0;
+            if (blockCount >= blocks.length) {
+                if (entryCount == entries.length) entries = Arrays.copyOf(entries, entryCount * 2);
+                entries[entryCount++] = entropy(sum);
+            }
+        }
+
+        double[] finish(long total) {
+            if (entryCount > 0) return Arrays.copyOf(entries, entryCount);
+            if (total == 0) return new double[0];
+            // shorter than a window, the completed blocks and the current block
+            var counts = counter.counts();
+            for (int v = 0; v < 256; v++) counts[v] += sum[v];
+            return new double[]{entropy(counts)};
+        }
+    }
+
+    static void checkWindow(int window, int step) {
+        if (window <= 0 || step <= 0 || window % step != 0) {
+            throw new IllegalArgumentException("window and step must be positive, and window must be a multiple of " +
+                                               "step: " + window + ", " + step);
+        }
+    }
+}
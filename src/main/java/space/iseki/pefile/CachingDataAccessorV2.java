@@ -0,0 +1,94 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An accessor reading through a {@link BlockCache}.
+ * <p>
+ * A missing block is fetched from the delegate as a whole, concurrent misses on the same block might fetch it twice,
+ * which is harmless.
+ * A block shorter than the block size is cached only if it ends at the end of the file.
+ */
+final class CachingDataAccessorV2 implements DataAccessorV2 {
+    private final DataAccessorV2 delegate;
+    private final BlockCache cache;
+    private final BlockCache.Source source;
+
+    CachingDataAccessorV2(@NotNull DataAccessorV2 delegate, @NotNull BlockCache cache) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = Objects.requireNonNull(cache);
+        this.source = cache.newSource();
+    }
+
+    @Override
+    public int read(@NotNull ByteBuffer buffer, long position) throws IOException {
+        var blockSize = cache.getBlockSize();
+        var total = 0;
+        while (buffer.hasRemaining()) {
+            var pos = position + total;
+            var block = block(pos / blockSize);
+            var off = (int) (pos % blockSize);
+            if (off >= block.length) break;
+            var n = Math.min(buffer.remaining(), block.length - off);
+            buffer.put(block, off, n);
+            total += n;
+            if (block.length < blockSize) break;
+        }
+        return total == 0 && buffer.hasRemaining() ? -1 : total;
+    }
+
+    @Override
+    public ByteBuffer view(long position, int length) throws IOException {
+        var blockSize = cache.getBlockSize();
+        var off = (int) (position % blockSize);
+        if (off + (long) length > blockSize) return null;
+        var block = block(position / blockSize);
+        if (off >= block.length) return ByteBuffer.allocate(0);
+        return ByteBuffer.wrap(block, off, Math.min(length, block.length - off)).slice().asReadOnlyBuffer();
+    }
+
+    private byte[] block(long index) throws IOException {
+        var block = cache.get(source, index);
+        if (block != null) return block;
+        if (!delegate.isOpen()) {
+            throw new IllegalStateException("The file was closed");
+        }
+        var blockSize = cache.getBlockSize();
+        var buffer = ByteBuffer.allocate(blockSize);
+        var base = index * blockSize;
+        while (buffer.hasRemaining()) {
+            // a short or empty read is allowed, only -1 is the end
+            if (delegate.read(buffer, base + buffer.position()) < 0) break;
+        }
+        if (buffer.position() == blockSize) {
+            block = buffer.array();
+        } else {
+            block = Arrays.copyOf(buffer.array(), buffer.position());
+            // the last block of the file, otherwise it's returned to this read only
+            if (base + block.length != delegate.size()) return block;
+        }
+        cache.put(source, index, block);
+        return block;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public void close() throws Exception {
+        cache.invalidate(source);
+        delegate.close();
+    }
+}
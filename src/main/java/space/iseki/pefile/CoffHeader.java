@@ -1,5 +1,7 @@
 package space.iseki.pefile;
 
+import java.nio.ByteBuffer;
+
 @SuppressWarnings("unused")
 public final class CoffHeader {
     @Field(reference = MachineTypes.class)
@@ -34,7 +36,7 @@ public final class CoffHeader {
     }
 
     @SuppressWarnings("SameParameterValue")
-    static CoffHeader parse(byte[] buf, int off) {
+    static CoffHeader parse(ByteBuffer buf, int off) {
         return new CoffHeader(I.u16(buf, off),
                               I.u16(buf, off + 2),
                               I.u32(buf, off + 4),
@@ -0,0 +1,43 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Adapts a public {@link DataAccessor} to the internal accessor interface.
+ */
+final class CustomDataAccessorV2 implements DataAccessorV2 {
+    private final DataAccessor accessor;
+
+    CustomDataAccessorV2(@NotNull DataAccessor accessor) {
+        this.accessor = Objects.requireNonNull(accessor);
+    }
+
+    @Override
+    public int read(@NotNull ByteBuffer buffer, long position) throws IOException {
+        return accessor.read(buffer, position);
+    }
+
+    @Override
+    public long read(ByteBuffer[] buffers, long position) throws IOException {
+        return accessor.read(buffers, position);
+    }
+
+    @Override
+    public long size() throws IOException {
+        return accessor.size();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return accessor.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        accessor.close();
+    }
+}
@@ -0,0 +1,88 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A positional-read source of the PE file content, to plug custom storage backends into {@link PEFile}.
+ * <p>
+ * The methods might be invoked by many threads at the same time, implementations must be thread-safe.
+ * Reading never depends on a shared position, so the implementation doesn't need to serialize the reads.
+ *
+ * @see PEFile#open(DataAccessor)
+ */
+public interface DataAccessor extends AutoCloseable {
+    /**
+     * Reads bytes into {@code dst} since the offset {@code position} of the content.
+     * <p>
+     * Bytes are written since the position of {@code dst}, and the position of {@code dst} is advanced by the number
+     * of bytes read.
+     * Reading fewer bytes than {@code dst.remaining()} is allowed, the caller will read the rest again.
+     *
+     * @param dst      the buffer to be filled
+     * @param position the offset of the content, non-negative
+     * @return the number of bytes read, or -1 if {@code position} is at or beyond the end of the content
+     * @throws IOException if an I/O error occurs
+     */
+    int read(@NotNull ByteBuffer dst, long position) throws IOException;
+
+    /**
+     * Returns the size of the content in bytes.
+     * <p>
+     * It's invoked once, the reads are stopped at the size, so no request is made beyond the end of the content.
+     *
+     * @return the size
+     * @throws IOException if an I/O error occurs
+     */
+    long size() throws IOException;
+
+    /**
+     * Reads bytes into a sequence of buffers since the offset {@code position} of the content.
+     * <p>
+     * The buffers are filled in order, a buffer is filled completely before the next one unless the end of content
+     * reached.
+     * The library reads the nearby small structures, e.g. the descriptors of the import table, by a single vectored
+     * read over the whole range, a buffer for each structure and each gap between them.
+     * The default implementation invokes {@link #read(ByteBuffer, long)} for each buffer,
+     * backends with a per-request cost should override it to issue a single request.
+     * Reading fewer bytes than the total remaining is allowed, the caller will read the rest again.
+     *
+     * @param dsts     the buffers to be filled
+     * @param position the offset of the content, non-negative
+     * @return the number of bytes read, or -1 if {@code position} is at or beyond the end of the content
+     * @throws IOException if an I/O error occurs
+     */
+    default long read(@NotNull ByteBuffer @NotNull [] dsts, long position) throws IOException {
+        long total = 0;
+        for (var dst : dsts) {
+            while (dst.hasRemaining()) {
+                var n = read(dst, position + total);
+                if (n < 0) return total == 0 ? -1 : total;
+                if (n == 0) return total;
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns whether the accessor is open.
+     * <p>
+     * The default implementation returns {@code true}.
+     *
+     * @return false if the accessor is closed
+     */
+    default boolean isOpen() {
+        return true;
+    }
+
+    /**
+     * Closes the accessor, it's invoked when the {@link PEFile} is closed.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -56,7 +56,7 @@ final class DataAccessorReadableChannel implements SeekableByteChannel {
 
     @Override
     public void close() {
-        ACCESSOR.setRelease(this, null);
+        ACCESSOR.setRelease(this, (DataAccessorV2) null);
     }
 
     @Override
@@ -71,10 +71,14 @@ final class DataAccessorReadableChannel implements SeekableByteChannel {
             if (pos >= size) {
                 return -1;
             }
+            int totalRead;
             if (dst.remaining() > size - pos) {
-                dst = dst.slice(dst.position(), (int) (size - pos));
+                // the accessor advances the slice, not the dst
+                totalRead = accessor.read(dst.slice(dst.position(), (int) (size - pos)), Math.addExact(offset, pos));
+                if (totalRead > 0) dst.position(dst.position() + totalRead);
+            } else {
+                totalRead = accessor.read(dst, Math.addExact(offset, pos));
             }
-            var totalRead = this.accessor.read(dst, Math.addExact(offset, pos));
             if (totalRead > 0) {
                 POSITION.setRelease(this, pos + totalRead);
             }
@@ -90,24 +94,32 @@ final class DataAccessorReadableChannel implements SeekableByteChannel {
     }
 
     @Override
-    public long position() {
+    public long position() throws IOException {
+        checkOpen();
         return (long) POSITION.getAcquire(this);
     }
 
     @Override
-    public SeekableByteChannel position(long newPosition) {
-        if (newPosition < 0 || newPosition > size) {
-            throw new IllegalArgumentException("newPosition must be non-negative and less than size");
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("newPosition must be non-negative");
         }
+        checkOpen();
+        // setting the position beyond the size is legal, the later reads return EOF
         POSITION.setRelease(this, newPosition);
         return this;
     }
 
     @Override
     public long size() throws IOException {
+        checkOpen();
         return size;
     }
 
+    private void checkOpen() throws ClosedChannelException {
+        if (!isOpen()) throw new ClosedChannelException();
+    }
+
     @Override
     public SeekableByteChannel truncate(long size) throws IOException {
         throw new NonWritableChannelException();
@@ -13,17 +13,62 @@ import java.nio.channels.FileChannel;
 interface DataAccessorV2 extends AutoCloseable {
     int read(@NotNull ByteBuffer buffer, long position) throws IOException;
 
+    /**
+     * Returns a read-only view of at most {@code length} bytes since {@code position} without copying.
+     *
+     * @return the view, empty if {@code position} is beyond the end, or {@code null} if the accessor can't provide one
+     * @throws IOException if the accessor could provide a view, but failed to load the data
+     */
+    @SuppressWarnings("RedundantThrows")
+    default ByteBuffer view(long position, int length) throws IOException {
+        return null;
+    }
+
+    /**
+     * Reads into the buffers in order, as a single request if the accessor supports it.
+     *
+     * @return the number of bytes read, or -1 if {@code position} is at the end
+     */
+    default long read(ByteBuffer[] buffers, long position) throws IOException {
+        long total = 0;
+        for (var buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                var n = read(buffer, position + total);
+                if (n < 0) return total == 0 ? -1 : total;
+                if (n == 0) return total;
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the size of the data, or -1 if it's unknown without a cost
+     */
+    default long size() throws IOException {
+        return -1;
+    }
+
     boolean isOpen();
 }
 
 final class MmapHelper {
     public static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Whether {@link OpenOptions.AccessStrategy#AUTO} maps the files.
+     * <p>
+     * Before JDK 22 a mapping can't be unmapped explicitly, it lives until the buffer is collected, and on Windows
+     * the file stays locked until then, so the files are only mapped if asked explicitly.
+     */
+    public static boolean isPreferred() {
         return false;
     }
 
-    @SuppressWarnings({"unused", "RedundantThrows"})
     public static DataAccessorV2 accessorOf(FileChannel channel) throws IOException {
-        return null;
+        return MappedByteBufferDataAccessorV2.map(channel);
     }
 }
 
@@ -2,6 +2,7 @@ package space.iseki.pefile;
 
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 public final class DataDirectories {
@@ -84,7 +85,7 @@ public final class DataDirectories {
                ")";
     }
 
-    private static Item b(byte[] buf, int off, int numbers, int index) {
+    private static Item b(ByteBuffer buf, int off, int numbers, int index) {
         if (index > numbers) {
             return null;
         }
@@ -92,7 +93,7 @@ public final class DataDirectories {
         return Item.parse(buf, base);
     }
 
-    static DataDirectories parse(byte[] buf, int off, int numbers) {
+    static DataDirectories parse(ByteBuffer buf, int off, int numbers) {
         Item exportTable = b(buf, off, numbers, 1);
         Item importTable = b(buf, off, numbers, 2);
         Item resourceTable = b(buf, off, numbers, 3);
@@ -318,7 +319,7 @@ public final class DataDirectories {
             this.size = size;
         }
 
-        static Item parse(byte[] buf, int off) {
+        static Item parse(ByteBuffer buf, int off) {
             return new Item(I.u32(buf, off), I.u32(buf, off + 4));
         }
 
@@ -0,0 +1,151 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A DLL in the delay-load import table.
+ * <p>
+ * The addresses are RVAs, the ones of the legacy VA-based descriptors are converted.
+ */
+public final class DelayImportEntry {
+    private final PEFile peFile;
+    private final DelayImportDescriptor descriptor;
+    private final @Nullable String name;
+
+    DelayImportEntry(PEFile peFile, DelayImportDescriptor descriptor, @Nullable String name) {
+        this.peFile = peFile;
+        this.descriptor = descriptor;
+        this.name = name;
+    }
+
+    DelayImportDescriptor descriptor() {
+        return descriptor;
+    }
+
+    public @Nullable String getName() {
+        return name;
+    }
+
+    /**
+     * @return the raw attributes, bit 0 is set if the descriptor is RVA-based
+     */
+    public int getAttributes() {
+        return descriptor.attributes();
+    }
+
+    /**
+     * @return true if the fields of the descriptor are RVAs, false if they are VAs of the legacy format
+     */
+    public boolean isRvaBased() {
+        return descriptor.rvaBased();
+    }
+
+    public int getModuleHandleRva() {
+        return descriptor.moduleHandleRva();
+    }
+
+    public int getImportAddressTableRva() {
+        return descriptor.importAddressTableRva();
+    }
+
+    public int getImportNameTableRva() {
+        return descriptor.importNameTableRva();
+    }
+
+    public int getBoundImportAddressTableRva() {
+        return descriptor.boundImportAddressTableRva();
+    }
+
+    public int getUnloadInformationTableRva() {
+        return descriptor.unloadInformationTableRva();
+    }
+
+    public int getTimeDateStamp() {
+        return descriptor.timeDateStamp();
+    }
+
+    /**
+     * Returns the symbols in the import name table, read lazily.
+     * <p>
+     * The {@linkplain ImportSymbol#getIatRva() IAT slots} of them are in the delay-load Import Address Table.
+     *
+     * @return the symbols
+     */
+    public @NotNull Iterable<@NotNull ImportSymbol> symbols() {
+        return () -> new ImportSymbolIterator(peFile,
+                                              descriptor.importNameTableRva(),
+                                              descriptor.importAddressTableRva(),
+                                              descriptor.nameBias(),
+                                              descriptor);
+    }
+
+    @Override
+    public String toString() {
+        return U.structure("DelayImportEntry",
+                           name != null ? U.fieldEscape("name", name) : "null",
+                           U.field("descriptor", descriptor));
+    }
+}
+
+/**
+ * A delay-load directory entry, the addresses are converted to RVAs.
+ *
+ * @param nameBias the value subtracted from the hint/name references of the name table, the image base if VA-based
+ */
+record DelayImportDescriptor(int attributes,
+                             int nameRva,
+                             int moduleHandleRva,
+                             int importAddressTableRva,
+                             int importNameTableRva,
+                             int boundImportAddressTableRva,
+                             int unloadInformationTableRva,
+                             int timeDateStamp,
+                             int nameBias) {
+    public static final int LENGTH = 32;
+
+    boolean rvaBased() {
+        return (attributes & 1) != 0;
+    }
+
+    /**
+     * Parses a descriptor, the VAs of a legacy descriptor are converted by {@code imageBase}.
+     *
+     * @return the descriptor, or null if it's the null one terminating the table
+     */
+    static DelayImportDescriptor parse(byte[] buf, int off, long imageBase) {
+        var attributes = I.u32(buf, off);
+        var nameRva = I.u32(buf, off + 4);
+        if (nameRva == 0) return null;
+        var bias = (attributes & 1) != 0 ? 0 : (int) imageBase;
+        return new DelayImportDescriptor(attributes,
+                                         toRva(nameRva, bias),
+                                         toRva(I.u32(buf, off + 8), bias),
+                                         toRva(I.u32(buf, off + 12), bias),
+                                         toRva(I.u32(buf, off + 16), bias),
+                                         toRva(I.u32(buf, off + 20), bias),
+                                         toRva(I.u32(buf, off + 24), bias),
+                                         I.u32(buf, off + 28),
+                                         bias);
+    }
+
+    /**
+     * Zero means absent, it's kept.
+     */
+    private static int toRva(int address, int bias) {
+        return address == 0 ? 0 : address - bias;
+    }
+
+    @Override
+    public String toString() {
+        return U.structure("DelayImportDescriptor",
+                           U.field("attributes", attributes),
+                           U.field("nameRva", nameRva),
+                           U.field("moduleHandleRva", moduleHandleRva),
+                           U.field("importAddressTableRva", importAddressTableRva),
+                           U.field("importNameTableRva", importNameTableRva),
+                           U.field("boundImportAddressTableRva", boundImportAddressTableRva),
+                           U.field("unloadInformationTableRva", unloadInformationTableRva),
+                           U.field("timeDateStamp", U.timeDateU32(timeDateStamp)));
+    }
+}
@@ -0,0 +1,76 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+
+/**
+ * The delay-load import table, the DLLs loaded on the first call of their symbols.
+ * <p>
+ * Both the RVA-based descriptors and the legacy VA-based ones are supported, the addresses of the latter are
+ * converted to RVAs by the image base.
+ */
+public final class DelayImportTable implements Iterable<DelayImportEntry> {
+    private static final VarHandle SNAPSHOT;
+
+    static {
+        try {
+            SNAPSHOT = MethodHandles.lookup()
+                                    .findVarHandle(DelayImportTable.class, "snapshot", ImportSnapshot.class)
+                                    .withInvokeExactBehavior();
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new Error(e);
+        }
+    }
+
+    private final PEFile peFile;
+    @SuppressWarnings({"FieldMayBeFinal", "unused"})
+    private ImportSnapshot snapshot;
+
+    DelayImportTable(PEFile peFile) {
+        this.peFile = peFile;
+    }
+
+    /**
+     * Returns an iterator over the DLLs, the descriptors are read lazily.
+     * <p>
+     * After the {@code PEFile} object is closed, the behavior of the iterator is undefined.
+     * During the iteration, the following exceptions may be thrown:
+     * <ul>
+     *     <li>{@link UncheckedIOException} if an I/O error occurs.</li>
+     *     <li>{@link PEFileException} if the PE file is invalid.</li>
+     *     <li>{@link IllegalStateException} if the PE file is closed.</li>
+     *     </ul>
+     *
+     * @return an Iterator, which does not support the {@code remove} operation.
+     */
+    @Override
+    public @NotNull Iterator<@NotNull DelayImportEntry> iterator() {
+        return new DelayImportTableIterator(peFile);
+    }
+
+    /**
+     * Returns the whole delay-load import table in memory, in the same form as {@link ImportTable#snapshot()}.
+     * <p>
+     * The snapshot is cached, the later calls return the same instance.
+     *
+     * @return the snapshot, empty if the file has no delay-load import table
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws PEFileException      if the delay-load import table is invalid
+     */
+    public @NotNull ImportSnapshot snapshot() {
+        var s = (ImportSnapshot) SNAPSHOT.getAcquire(this);
+        if (s != null) return s;
+        try {
+            s = ImportSnapshot.readDelay(peFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        SNAPSHOT.setRelease(this, s);
+        return s;
+    }
+}
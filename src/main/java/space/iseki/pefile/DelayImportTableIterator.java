@@ -0,0 +1,74 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+
+final class DelayImportTableIterator extends AbstractIterator<@NotNull DelayImportEntry> {
+    /**
+     * The number of descriptors read at a time.
+     */
+    private static final int CHUNK = 16;
+    private final PEFile peFile;
+    private final Section section;
+    private final ArrayDeque<DelayImportEntry> ready = new ArrayDeque<>();
+    private int nextRva;
+    private boolean terminated;
+
+    DelayImportTableIterator(PEFile peFile) {
+        this.peFile = peFile;
+        var delayTable = peFile.dataDirectories.getDelayImportDescriptor();
+        if (delayTable == null) {
+            section = null;
+            return;
+        }
+        section = peFile.sectionSet.findData(delayTable.getRva());
+        nextRva = delayTable.getRva();
+    }
+
+    @Override
+    protected void computeNext() {
+        try {
+            if (ready.isEmpty() && section != null && !terminated) {
+                fill();
+            }
+            var next = ready.poll();
+            if (next == null) {
+                end();
+                return;
+            }
+            setNext(next);
+        } catch (EOFException | IndexOutOfBoundsException e) {
+            throw new PEFileException("incomplete DelayImportDescriptor read");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a chunk of descriptors, the bytes out of the raw data are zero.
+     */
+    private void fill() throws IOException {
+        var available = Math.max(0, section.dataEnd() - Integer.toUnsignedLong(nextRva)) / DelayImportDescriptor.LENGTH;
+        var count = (int) Math.min(CHUNK, available);
+        if (count == 0) {
+            throw new PEFileException("incomplete DelayImportDescriptor read");
+        }
+        var data = new byte[count * DelayImportDescriptor.LENGTH];
+        section.copyBytes(data, nextRva, 0, data.length);
+        var imageBase = peFile.optionalHeader.getImageBase();
+        for (int i = 0; i < count; i++) {
+            var descriptor = DelayImportDescriptor.parse(data, i * DelayImportDescriptor.LENGTH, imageBase);
+            if (descriptor == null) {
+                terminated = true;
+                break;
+            }
+            var name = peFile.sectionSet.readNullShortString(descriptor.nameRva());
+            ready.add(new DelayImportEntry(peFile, descriptor, name));
+        }
+        nextRva = U.add(nextRva, data.length);
+    }
+}
@@ -0,0 +1,51 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * A lock-free accessor based on the positional read of {@link FileChannel}.
+ * <p>
+ * {@link FileChannel#read(ByteBuffer, long)} doesn't touch the channel position,
+ * so concurrent readers don't need to be serialized.
+ */
+final class FileChannelDataAccessorV2 implements DataAccessorV2 {
+    private final FileChannel channel;
+
+    FileChannelDataAccessorV2(@NotNull FileChannel channel) {
+        this.channel = Objects.requireNonNull(channel);
+    }
+
+    @Override
+    public int read(@NotNull ByteBuffer buffer, long position) throws IOException {
+        try {
+            return channel.read(buffer, position);
+        } catch (ClosedChannelException e) {
+            throw new IllegalStateException("The file was closed", e);
+        }
+    }
+
+    @Override
+    public long size() throws IOException {
+        try {
+            return channel.size();
+        } catch (ClosedChannelException e) {
+            throw new IllegalStateException("The file was closed", e);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        channel.close();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+}
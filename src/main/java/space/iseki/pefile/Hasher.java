@@ -0,0 +1,113 @@
+package space.iseki.pefile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the message digests of the file and the sections.
+ * <p>
+ * Each range is read once by {@link WrappedDataAccessor#scan}, and every chunk is fed to all digests.
+ */
+final class Hasher {
+    static final int CHUNK = 1 << 20;
+
+    private Hasher() {
+    }
+
+    /**
+     * Checks the algorithms are available, so the failures are reported before any read.
+     */
+    static void checkAlgorithms(Set<String> algorithms) {
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("algorithms must not be empty");
+        }
+        newDigests(algorithms);
+    }
+
+    private static MessageDigest[] newDigests(Set<String> algorithms) {
+        var digests = new MessageDigest[algorithms.size()];
+        var i = 0;
+        for (var algorithm : algorithms) {
+            try {
+                digests[i++] = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException("Unsupported algorithm: " + algorithm, e);
+            }
+        }
+        return digests;
+    }
+
+    /**
+     * Hashes at most {@code length} bytes since {@code position}, it stops at the end of data.
+     *
+     * @param length the number of bytes, or -1 for all bytes to the end of data
+     * @return the digests keyed by the algorithm names, in the iteration order of {@code algorithms}
+     */
+    static Map<String, byte[]> hash(WrappedDataAccessor accessor, long position, long length, Set<String> algorithms)
+            throws IOException {
+        var digests = newDigests(algorithms);
+        accessor.scan(position, length, CHUNK, chunk -> {
+            var begin = chunk.position();
+            for (var digest : digests) {
+                digest.update(chunk.position(begin));
+            }
+        });
+        var result = new LinkedHashMap<String, byte[]>();
+        var i = 0;
+        for (var algorithm : algorithms) result.put(algorithm, digests[i++].digest());
+        return Collections.unmodifiableMap(result);
+    }
+
+    static Map<String, byte[]> hash(Section section, Set<String> algorithms) throws IOException {
+        return hash(section.accessor(),
+                    Integer.toUnsignedLong(section.getPointerToRawData()),
+                    Integer.toUnsignedLong(section.getSizeOfRawData()),
+                    algorithms);
+    }
+
+    /**
+     * Hashes the sections, on the pool if not null, otherwise on the calling thread.
+     *
+     * @return the digests aligned with {@code sections} by index
+     */
+    static List<Map<String, byte[]>> hashSections(List<Section> sections,
+                                                  Set<String> algorithms,
+                                                  ForkJoinPool pool) throws IOException {
+        var result = new ArrayList<Map<String, byte[]>>(sections.size());
+        if (pool == null) {
+            for (var section : sections) result.add(hash(section, algorithms));
+            return Collections.unmodifiableList(result);
+        }
+        var tasks = new ArrayList<Callable<Map<String, byte[]>>>(sections.size());
+        for (var section : sections) tasks.add(() -> hash(section, algorithms));
+        for (var future : pool.invokeAll(tasks)) result.add(join(future));
+        return Collections.unmodifiableList(result);
+    }
+
+    private static <T> T join(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new UncheckedIOException(new IOException(cause));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package space.iseki.pefile;
 
+import java.nio.ByteBuffer;
+
 record ImageResourceDirectory(int characteristics,
                               int timeDateStamp,
                               short majorVersion,
@@ -8,7 +10,7 @@ record ImageResourceDirectory(int characteristics,
                               short numberOfIdEntries) {
     public static final int LENGTH = 16;
 
-    static ImageResourceDirectory parse(byte[] data, int offset) {
+    static ImageResourceDirectory parse(ByteBuffer data, int offset) {
         return new ImageResourceDirectory(I.u32(data, offset),
                                           I.u32(data, offset + 4),
                                           I.u16(data, offset + 8),
@@ -32,7 +34,7 @@ record ImageResourceDirectory(int characteristics,
 record ImageResourceDataEntry(int dataRva, int size, int codePage) {
     public static final int LENGTH = 16;
 
-    static ImageResourceDataEntry parse(byte[] data, int offset) {
+    static ImageResourceDataEntry parse(ByteBuffer data, int offset) {
         if (I.u32(data, offset + 12) != 0) {
             throw new PEFileException("The 4th field of ImageResourceDataEntry should be zero, but it is not. Chunk: " +
                                       U.hex(data, offset, LENGTH));
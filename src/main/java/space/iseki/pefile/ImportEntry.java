@@ -3,6 +3,7 @@ package space.iseki.pefile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,23 +11,72 @@ public final class ImportEntry {
     private final ImportDirectoryTable idt;
     private final @Nullable String name;
     private final PEFile peFile;
+    private final @Nullable List<@NotNull ImportSymbol> symbols;
 
     ImportEntry(PEFile peFile, ImportDirectoryTable idt, String name) {
+        this(peFile, idt, name, null);
+    }
+
+    private ImportEntry(PEFile peFile, ImportDirectoryTable idt, String name, List<ImportSymbol> symbols) {
         this.idt = idt;
         this.peFile = peFile;
         this.name = name;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Returns a copy with all symbols read into memory.
+     */
+    ImportEntry materialize() {
+        if (symbols != null) return this;
+        var list = new ArrayList<ImportSymbol>();
+        for (var symbol : new ImportSymbols(peFile, idt)) {
+            list.add(symbol);
+        }
+        return new ImportEntry(peFile, idt, name, List.copyOf(list));
+    }
+
+    ImportDirectoryTable idt() {
+        return idt;
     }
 
     public @Nullable String getName() {
         return name;
     }
 
+    public int getImportLookupTableRva() {
+        return idt.importLookupTableRva();
+    }
+
+    /**
+     * @return the RVA of the Import Address Table, the {@linkplain ImportSymbol#getIatRva() slots} of the symbols
+     */
+    public int getImportAddressTableRva() {
+        return idt.importAddressTableRva();
+    }
+
+    /**
+     * @return 0 if the DLL is not bound, -1 if it's bound by the {@linkplain PEFile#getBoundImports() bound import
+     * directory}, otherwise the time stamp of the DLL the IAT is bound to
+     */
+    public int getTimeDateStamp() {
+        return idt.timeDateStamp();
+    }
+
     @Override
     public String toString() {
         return U.structure("ImportEntry", name != null ? U.fieldEscape("name", name) : "null", U.field("idt", idt));
     }
 
+    /**
+     * Returns the symbols imported from the DLL.
+     * <p>
+     * The symbols are read lazily, except the entries returned by {@link ImportTable#materializeAsync()}.
+     *
+     * @return the symbols
+     */
     public @NotNull Iterable<@NotNull ImportSymbol> symbols() {
+        if (symbols != null) return symbols;
         return new ImportSymbols(peFile, idt);
     }
 }
@@ -54,6 +104,14 @@ record ImportDirectoryTable(int importLookupTableRva,
                                         I.u32(buf, off + 16));
     }
 
+    static ImportDirectoryTable parse(ByteBuffer buf, int off) {
+        return new ImportDirectoryTable(I.u32(buf, off),
+                                        I.u32(buf, off + 4),
+                                        I.u32(buf, off + 8),
+                                        I.u32(buf, off + 12),
+                                        I.u32(buf, off + 16));
+    }
+
     static List<ImportDirectoryTable> parseList(byte[] buf, int off) {
         var list = new ArrayList<ImportDirectoryTable>();
         var breakFlag = false;
@@ -0,0 +1,172 @@
+package space.iseki.pefile;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Computes the hashes of the import table from the name pool of {@link ImportSnapshot}, without decoding the names.
+ * <p>
+ * Each symbol is normalized to {@code lib.func} as pefile does: the names are lowercase, the extension
+ * {@code .dll}, {@code .ocx} or {@code .sys} of the DLL is removed, and a symbol imported by ordinal is named by
+ * {@link OrdinalNames}, or {@code ord<N>} if unknown. Only the ASCII letters are lowercased.
+ * The DLLs and the symbols without a name are skipped.
+ */
+final class ImportHash {
+    private static final byte[][] EXTENSIONS = {{'d', 'l', 'l'}, {'o', 'c', 'x'}, {'s', 'y', 's'}};
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    /**
+     * The ordinals are 16-bit, {@code ord65535}.
+     */
+    private static final int ORDINAL_NAME_LENGTH = 8;
+
+    private ImportHash() {
+    }
+
+    /**
+     * @return the MD5 of the normalized symbols joined by commas, in lowercase hex, or an empty string if the file
+     * has no import table
+     */
+    static String imphash(ImportSnapshot snapshot) {
+        if (snapshot.size() == 0) return "";
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new Error(e);
+        }
+        var first = new boolean[]{true};
+        forEach(snapshot, (buf, len) -> {
+            if (!first[0]) md5.update((byte) ',');
+            first[0] = false;
+            md5.update(buf, 0, len);
+        });
+        return HexFormat.of().formatHex(md5.digest());
+    }
+
+    /**
+     * Folds the hashes of the distinct normalized symbols in ascending order, so the order of the table doesn't
+     * matter.
+     * <p>
+     * A symbol is hashed by FNV-1a 64 then {@link #mix(long)}, the fold is {@code h = mix(h ^ v)} since 0.
+     *
+     * @return the fingerprint, 0 if no symbol
+     */
+    static long fingerprint(ImportSnapshot snapshot) {
+        var hashes = new long[snapshot.symbolCount()];
+        var count = new int[1];
+        forEach(snapshot, (buf, len) -> {
+            var h = FNV_OFFSET;
+            for (int i = 0; i < len; i++) {
+                h = (h ^ (buf[i] & 0xff)) * FNV_PRIME;
+            }
+            hashes[count[0]++] = mix(h);
+        });
+        Arrays.sort(hashes, 0, count[0]);
+        var h = 0L;
+        for (int i = 0; i < count[0]; i++) {
+            if (i > 0 && hashes[i] == hashes[i - 1]) continue;
+            h = mix(h ^ hashes[i]);
+        }
+        return h;
+    }
+
+    /**
+     * The finalizer of MurmurHash3.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @FunctionalInterface
+    private interface SymbolConsumer {
+        /**
+         * @param buf the normalized symbol in {@code [0, len)}, reused after return
+         */
+        void accept(byte[] buf, int len);
+    }
+
+    private static void forEach(ImportSnapshot snapshot, SymbolConsumer consumer) {
+        var pool = snapshot.names();
+        // the lowercase name of the DLL, the key of OrdinalNames
+        var key = new byte[64];
+        // the normalized DLL name, a dot, then the symbol
+        var buf = new byte[256];
+        for (int d = 0; d < snapshot.size(); d++) {
+            var dllLength = snapshot.dllNameLength(d);
+            if (dllLength < 0) continue;
+            if (key.length < dllLength) key = new byte[dllLength];
+            lower(pool, snapshot.dllNameOffset(d), key, 0, dllLength);
+            var libLength = stripExtension(key, dllLength);
+            if (buf.length < libLength + 1 + ORDINAL_NAME_LENGTH) buf = new byte[libLength + 256];
+            System.arraycopy(key, 0, buf, 0, libLength);
+            buf[libLength] = '.';
+            for (int i = snapshot.symbolBegin(d); i < snapshot.symbolEnd(d); i++) {
+                var at = libLength + 1;
+                int len;
+                if (snapshot.isOrdinal(i)) {
+                    var ordinal = snapshot.getOrdinal(i);
+                    var name = OrdinalNames.lookup(key, 0, dllLength, ordinal);
+                    if (name == null) {
+                        len = at + putOrdinalName(buf, at, ordinal);
+                    } else {
+                        if (buf.length < at + name.length) buf = Arrays.copyOf(buf, at + name.length + 256);
+                        System.arraycopy(name, 0, buf, at, name.length);
+                        len = at + name.length;
+                    }
+                } else {
+                    var nameLength = snapshot.symbolNameLength(i);
+                    if (nameLength < 0) continue;
+                    if (buf.length < at + nameLength) buf = Arrays.copyOf(buf, at + nameLength + 256);
+                    lower(pool, snapshot.symbolNameOffset(i), buf, at, nameLength);
+                    len = at + nameLength;
+                }
+                consumer.accept(buf, len);
+            }
+        }
+    }
+
+    /**
+     * Writes {@code ord<N>}, at most {@value #ORDINAL_NAME_LENGTH} bytes.
+     *
+     * @return the length
+     */
+    private static int putOrdinalName(byte[] buf, int off, int ordinal) {
+        buf[off] = 'o';
+        buf[off + 1] = 'r';
+        buf[off + 2] = 'd';
+        var digits = 1;
+        for (int v = ordinal; v >= 10; v /= 10) digits++;
+        for (int i = digits - 1, v = ordinal; i >= 0; i--, v /= 10) {
+            buf[off + 3 + i] = (byte) ('0' + v % 10);
+        }
+        return 3 + digits;
+    }
+
+    private static void lower(byte[] src, int off, byte[] dst, int dstOff, int len) {
+        for (int i = 0; i < len; i++) {
+            var b = src[off + i];
+            dst[dstOff + i] = b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+        }
+    }
+
+    /**
+     * @return the length without the known extension
+     */
+    private static int stripExtension(byte[] name, int len) {
+        for (var ext : EXTENSIONS) {
+            var dot = len - ext.length - 1;
+            if (dot >= 0 && name[dot] == '.' && Arrays.equals(name, dot + 1, len, ext, 0, ext.length)) {
+                return dot;
+            }
+        }
+        return len;
+    }
+}
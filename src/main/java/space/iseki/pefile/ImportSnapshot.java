@@ -0,0 +1,600 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable, in-memory copy of the import table.
+ * <p>
+ * The DLLs and the symbols are addressed by index, the symbols of all DLLs are numbered continuously, and the
+ * symbols of the DLL {@code d} are in {@code [symbolBegin(d), symbolEnd(d))}.
+ * The table is stored in flat arrays, the names are decoded only when requested.
+ * <p>
+ * A snapshot of the delay-load import table has the same form, the import name tables take the place of the
+ * import lookup tables.
+ *
+ * @see ImportTable#snapshot()
+ * @see DelayImportTable#snapshot()
+ */
+public final class ImportSnapshot {
+    static final ImportSnapshot EMPTY = new ImportSnapshot(new int[0],
+                                                           new int[0],
+                                                           new int[0],
+                                                           new int[1],
+                                                           new int[0],
+                                                           new short[0],
+                                                           new int[0],
+                                                           new int[0],
+                                                           new byte[0],
+                                                           new int[0],
+                                                           null);
+    private static final int DESCRIPTOR_FIELDS = 5;
+    private static final int MIN_DESCRIPTORS = 16;
+    private static final int MIN_LOOKUP_ENTRIES = 64;
+    /**
+     * The limit of the descriptors and the entries of a lookup table, a larger table is considered broken.
+     */
+    private static final int MAX_ENTRIES = 1 << 20;
+    /**
+     * The bytes read after the last name of a cluster, the longer names are read again.
+     */
+    private static final int NAME_WINDOW = 256;
+    /**
+     * The names closer than it are read at once.
+     */
+    private static final int CLUSTER = 1 << 16;
+    /**
+     * The fields of the descriptors, {@value #DESCRIPTOR_FIELDS} per DLL, in the order of the import directory
+     * table. For the delay-load table, they are the import name table, the time stamp, 0, the name and the import
+     * address table, as RVAs.
+     */
+    private final int[] descriptors;
+    private final int[] dllNameOffsets;
+    private final int[] dllNameLengths;
+    private final int[] symbolBegins;
+    /**
+     * The ordinals, or -1 if imported by name.
+     */
+    private final int[] ordinals;
+    private final short[] hints;
+    private final int[] symbolNameOffsets;
+    private final int[] symbolNameLengths;
+    /**
+     * The ISO-8859-1 names, not terminated, a length of -1 means the name is unavailable.
+     */
+    private final byte[] names;
+    /**
+     * The RVAs of the IAT slots.
+     */
+    private final int[] slotRvas;
+    /**
+     * The values in the IAT slots of the bound DLLs, 0 for the others, or null if no DLL is bound.
+     */
+    private final long[] boundAddresses;
+    /**
+     * The slot RVA in the high 32 bits, the symbol in the low 32 bits, sorted, built on the first lookup.
+     */
+    private volatile long[] slotIndex;
+
+    private ImportSnapshot(int[] descriptors,
+                           int[] dllNameOffsets,
+                           int[] dllNameLengths,
+                           int[] symbolBegins,
+                           int[] ordinals,
+                           short[] hints,
+                           int[] symbolNameOffsets,
+                           int[] symbolNameLengths,
+                           byte[] names,
+                           int[] slotRvas,
+                           long[] boundAddresses) {
+        this.descriptors = descriptors;
+        this.dllNameOffsets = dllNameOffsets;
+        this.dllNameLengths = dllNameLengths;
+        this.symbolBegins = symbolBegins;
+        this.ordinals = ordinals;
+        this.hints = hints;
+        this.symbolNameOffsets = symbolNameOffsets;
+        this.symbolNameLengths = symbolNameLengths;
+        this.names = names;
+        this.slotRvas = slotRvas;
+        this.boundAddresses = boundAddresses;
+    }
+
+    /**
+     * @return the number of DLLs
+     */
+    public int size() {
+        return dllNameLengths.length;
+    }
+
+    /**
+     * @return the number of symbols of all DLLs
+     */
+    public int symbolCount() {
+        return ordinals.length;
+    }
+
+    public @Nullable String getDllName(int dll) {
+        Objects.checkIndex(dll, size());
+        return decode(dllNameOffsets[dll], dllNameLengths[dll]);
+    }
+
+    /**
+     * @return the RVA of the import lookup table, or the import name table of a delay-load DLL
+     */
+    public int getImportLookupTableRva(int dll) {
+        return descriptor(dll, 0);
+    }
+
+    public int getTimeDateStamp(int dll) {
+        return descriptor(dll, 1);
+    }
+
+    /**
+     * @return the forwarder chain, or 0 for a delay-load DLL
+     */
+    public int getForwarderChain(int dll) {
+        return descriptor(dll, 2);
+    }
+
+    public int getImportAddressTableRva(int dll) {
+        return descriptor(dll, 4);
+    }
+
+    /**
+     * @return the index of the first symbol of the DLL
+     */
+    public int symbolBegin(int dll) {
+        Objects.checkIndex(dll, size());
+        return symbolBegins[dll];
+    }
+
+    /**
+     * @return the index after the last symbol of the DLL
+     */
+    public int symbolEnd(int dll) {
+        Objects.checkIndex(dll, size());
+        return symbolBegins[dll + 1];
+    }
+
+    /**
+     * @return true if the symbol is imported by ordinal
+     */
+    public boolean isOrdinal(int symbol) {
+        Objects.checkIndex(symbol, symbolCount());
+        return ordinals[symbol] >= 0;
+    }
+
+    /**
+     * @return the ordinal, or 0 if the symbol is imported by name
+     */
+    public int getOrdinal(int symbol) {
+        Objects.checkIndex(symbol, symbolCount());
+        return Math.max(ordinals[symbol], 0);
+    }
+
+    /**
+     * @return the hint as an unsigned value, or 0 if the symbol is imported by ordinal
+     */
+    public int getHint(int symbol) {
+        Objects.checkIndex(symbol, symbolCount());
+        return Short.toUnsignedInt(hints[symbol]);
+    }
+
+    /**
+     * @return the name, or null if the symbol is imported by ordinal or the name is unavailable
+     */
+    public @Nullable String getSymbolName(int symbol) {
+        Objects.checkIndex(symbol, symbolCount());
+        return decode(symbolNameOffsets[symbol], symbolNameLengths[symbol]);
+    }
+
+    /**
+     * Returns the symbol in the form of {@link ImportEntry#symbols()}.
+     * <p>
+     * If the name is unavailable, the name of the symbol is empty.
+     */
+    public @NotNull ImportSymbol getSymbol(int symbol) {
+        if (isOrdinal(symbol)) return new ImportSymbol("", ordinals[symbol], slotRvas[symbol]);
+        var name = getSymbolName(symbol);
+        return new ImportSymbol(name == null ? "" : name, 0, slotRvas[symbol]);
+    }
+
+    /**
+     * @return the RVA of the slot in the Import Address Table, or 0 if the descriptor has no Import Address Table
+     * @see ImportSymbol#getIatRva()
+     */
+    public int getIatRva(int symbol) {
+        Objects.checkIndex(symbol, symbolCount());
+        return slotRvas[symbol];
+    }
+
+    /**
+     * Returns the address in the IAT slot of the file, if the DLL is bound.
+     * <p>
+     * A DLL is bound if the time stamp of its descriptor is not zero, the linker or the binding tool has written
+     * the addresses of the symbols to the slots, see {@link PEFile#getBoundImports()}.
+     * The addresses of a delay-load DLL are not read.
+     *
+     * @return the VA in the slot, or 0 if the DLL is not bound
+     */
+    public long getBoundAddress(int symbol) {
+        Objects.checkIndex(symbol, symbolCount());
+        return boundAddresses == null ? 0 : boundAddresses[symbol];
+    }
+
+    /**
+     * Finds the symbol whose IAT slot is at {@code rva}.
+     *
+     * @return the index of the symbol, or -1 if no slot is at {@code rva}
+     */
+    public int findByIatRva(int rva) {
+        var index = slotIndex;
+        if (index == null) {
+            index = new long[slotRvas.length];
+            for (int i = 0; i < slotRvas.length; i++) {
+                index[i] = Integer.toUnsignedLong(slotRvas[i]) << 32 | i;
+            }
+            Arrays.sort(index);
+            slotIndex = index;
+        }
+        var key = Integer.toUnsignedLong(rva) << 32;
+        var at = Arrays.binarySearch(index, key);
+        // the key has symbol 0, the insertion point is the first slot not less than it
+        if (at < 0) at = -at - 1;
+        if (rva == 0 || at == index.length || index[at] >>> 32 != Integer.toUnsignedLong(rva)) return -1;
+        return (int) index[at];
+    }
+
+    /**
+     * The name pool, the names are addressed by the offsets and the lengths below.
+     */
+    byte[] names() {
+        return names;
+    }
+
+    int dllNameOffset(int dll) {
+        return dllNameOffsets[dll];
+    }
+
+    /**
+     * @return the length in the name pool, or -1 if the name is unavailable
+     */
+    int dllNameLength(int dll) {
+        return dllNameLengths[dll];
+    }
+
+    int symbolNameOffset(int symbol) {
+        return symbolNameOffsets[symbol];
+    }
+
+    /**
+     * @return the length in the name pool, or -1 if imported by ordinal or the name is unavailable
+     */
+    int symbolNameLength(int symbol) {
+        return symbolNameLengths[symbol];
+    }
+
+    private int descriptor(int dll, int field) {
+        Objects.checkIndex(dll, size());
+        return descriptors[dll * DESCRIPTOR_FIELDS + field];
+    }
+
+    private String decode(int offset, int length) {
+        return length < 0 ? null : new String(names, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return U.structure("ImportSnapshot", U.field("dlls", size()), U.field("symbols", symbolCount()));
+    }
+
+    /**
+     * Reads the import table, the descriptors, then the lookup table of each DLL, then all names in clusters.
+     *
+     * @throws PEFileException if the import table is invalid
+     */
+    static ImportSnapshot read(PEFile peFile) throws IOException {
+        var importTable = peFile.dataDirectories.getImportTable();
+        if (importTable == null) return EMPTY;
+        var section = peFile.sectionSet.find(importTable.getRva());
+        if (section == null) return EMPTY;
+        var data = readDescriptors(section, importTable, ImportDirectoryTable.LENGTH, 0, "ImportDirectoryTable");
+        var idts = ImportDirectoryTable.parseList(data, 0);
+        var descriptors = new int[idts.size() * DESCRIPTOR_FIELDS];
+        for (int d = 0; d < idts.size(); d++) {
+            var idt = idts.get(d);
+            descriptors[d * DESCRIPTOR_FIELDS] = idt.importLookupTableRva();
+            descriptors[d * DESCRIPTOR_FIELDS + 1] = idt.timeDateStamp();
+            descriptors[d * DESCRIPTOR_FIELDS + 2] = idt.forwarderChain();
+            descriptors[d * DESCRIPTOR_FIELDS + 3] = idt.nameRva();
+            descriptors[d * DESCRIPTOR_FIELDS + 4] = idt.importAddressTableRva();
+        }
+        return read(peFile, descriptors, new int[idts.size()], idts, true);
+    }
+
+    /**
+     * Reads the delay-load import table, the import name tables take the place of the lookup tables.
+     *
+     * @throws PEFileException if the delay-load import table is invalid
+     */
+    static ImportSnapshot readDelay(PEFile peFile) throws IOException {
+        var delayTable = peFile.dataDirectories.getDelayImportDescriptor();
+        if (delayTable == null) return EMPTY;
+        var section = peFile.sectionSet.findData(delayTable.getRva());
+        if (section == null) return EMPTY;
+        var data = readDescriptors(section, delayTable, DelayImportDescriptor.LENGTH, 4, "DelayImportDescriptor");
+        var imageBase = peFile.optionalHeader.getImageBase();
+        var list = new ArrayList<DelayImportDescriptor>();
+        for (int off = 0; ; off += DelayImportDescriptor.LENGTH) {
+            var descriptor = DelayImportDescriptor.parse(data, off, imageBase);
+            if (descriptor == null) break;
+            list.add(descriptor);
+        }
+        var descriptors = new int[list.size() * DESCRIPTOR_FIELDS];
+        var nameBiases = new int[list.size()];
+        for (int d = 0; d < list.size(); d++) {
+            var descriptor = list.get(d);
+            descriptors[d * DESCRIPTOR_FIELDS] = descriptor.importNameTableRva();
+            descriptors[d * DESCRIPTOR_FIELDS + 1] = descriptor.timeDateStamp();
+            descriptors[d * DESCRIPTOR_FIELDS + 3] = descriptor.nameRva();
+            descriptors[d * DESCRIPTOR_FIELDS + 4] = descriptor.importAddressTableRva();
+            nameBiases[d] = descriptor.nameBias();
+        }
+        return read(peFile, descriptors, nameBiases, list, false);
+    }
+
+    /**
+     * @param descriptors the fields of the descriptors, as {@link #descriptors}
+     * @param nameBiases  subtracted from the hint/name references of each lookup table
+     * @param owners      the descriptors, for the error messages
+     * @param readBound   whether to read the IAT slots of the bound DLLs
+     */
+    private static ImportSnapshot read(PEFile peFile,
+                                       int[] descriptors,
+                                       int[] nameBiases,
+                                       List<?> owners,
+                                       boolean readBound) throws IOException {
+        var dlls = nameBiases.length;
+        var plus = peFile.standardHeader.isPE32Plus();
+        var entrySize = plus ? 8 : 4;
+        var symbolBegins = new int[dlls + 1];
+        var ordinals = new int[MIN_LOOKUP_ENTRIES];
+        var nameRvas = new int[MIN_LOOKUP_ENTRIES];
+        var slotRvas = new int[MIN_LOOKUP_ENTRIES];
+        long[] boundAddresses = null;
+        var count = 0;
+        var table = new byte[MIN_LOOKUP_ENTRIES * entrySize];
+        for (int d = 0; d < dlls; d++) {
+            symbolBegins[d] = count;
+            var tableRva = descriptors[d * DESCRIPTOR_FIELDS];
+            var tableSection = peFile.sectionSet.findData(tableRva);
+            if (tableSection == null) continue;
+            var entries = readLookupTable(tableSection, tableRva, entrySize, table);
+            table = entries.table;
+            if (count + entries.count > ordinals.length) {
+                var capacity = Math.max(ordinals.length * 2, count + entries.count);
+                ordinals = Arrays.copyOf(ordinals, capacity);
+                nameRvas = Arrays.copyOf(nameRvas, capacity);
+                slotRvas = Arrays.copyOf(slotRvas, capacity);
+                if (boundAddresses != null) boundAddresses = Arrays.copyOf(boundAddresses, capacity);
+            }
+            var iatRva = descriptors[d * DESCRIPTOR_FIELDS + 4];
+            if (readBound && iatRva != 0 && descriptors[d * DESCRIPTOR_FIELDS + 1] != 0 && entries.count > 0) {
+                if (boundAddresses == null) boundAddresses = new long[ordinals.length];
+                readBoundAddresses(peFile.sectionSet, iatRva, entries.count, plus, boundAddresses, count);
+            }
+            for (int i = 0; i < entries.count; i++) {
+                var raw = plus ? I.u64(table, i * 8) : I.u32L(table, i * 4);
+                var v = ImportSymbolIterator.lookupEntry(raw, plus, i, owners.get(d));
+                if (v < 0) {
+                    ordinals[count] = (int) v & 0xffff;
+                } else {
+                    ordinals[count] = -1;
+                    nameRvas[count] = (int) v - nameBiases[d];
+                }
+                slotRvas[count] = ImportSymbolIterator.slotRva(iatRva, i, entrySize);
+                count++;
+            }
+        }
+        symbolBegins[dlls] = count;
+        var names = new NamePool(peFile.sectionSet, dlls, count);
+        for (int d = 0; d < dlls; d++) {
+            names.add(d, descriptors[d * DESCRIPTOR_FIELDS + 3]);
+        }
+        for (int i = 0; i < count; i++) {
+            if (ordinals[i] < 0) names.add(dlls + i, nameRvas[i]);
+        }
+        names.resolve(dlls);
+        return new ImportSnapshot(descriptors,
+                                  Arrays.copyOf(names.offsets, dlls),
+                                  Arrays.copyOf(names.lengths, dlls),
+                                  symbolBegins,
+                                  Arrays.copyOf(ordinals, count),
+                                  names.hints,
+                                  Arrays.copyOfRange(names.offsets, dlls, dlls + count),
+                                  Arrays.copyOfRange(names.lengths, dlls, dlls + count),
+                                  Arrays.copyOf(names.pool, names.poolSize),
+                                  Arrays.copyOf(slotRvas, count),
+                                  boundAddresses == null ? null : Arrays.copyOf(boundAddresses, count));
+    }
+
+    /**
+     * Reads {@code count} IAT slots since {@code iatRva} into {@code dst}, the slots out of the sections are 0.
+     */
+    private static void readBoundAddresses(SectionSet sectionSet,
+                                           int iatRva,
+                                           int count,
+                                           boolean plus,
+                                           long[] dst,
+                                           int dstOff) throws IOException {
+        var entrySize = plus ? 8 : 4;
+        var data = new byte[count * entrySize];
+        sectionSet.readBytes(data, iatRva);
+        for (int i = 0; i < count; i++) {
+            dst[dstOff + i] = plus ? I.u64(data, i * 8) : I.u32L(data, i * 4);
+        }
+    }
+
+    /**
+     * Reads the descriptors, the guessed number of them is read at once, and doubled until the null one is found.
+     *
+     * @param length    the size of a descriptor
+     * @param nullField the offset of the field that is zero in the null descriptor
+     * @param structure the name of the descriptor, for the error messages
+     * @return the descriptors, including the null one
+     */
+    private static byte[] readDescriptors(Section section,
+                                          DataDirectories.Item directory,
+                                          int length,
+                                          int nullField,
+                                          String structure) throws IOException {
+        var rva = directory.getRva();
+        var available = Math.max(0, section.dataEnd() - Integer.toUnsignedLong(rva)) / length;
+        var guess = Integer.toUnsignedLong(directory.getSize()) / length + 1;
+        var count = (int) Math.min(available, Math.min(Math.max(MIN_DESCRIPTORS, guess), MAX_ENTRIES));
+        while (true) {
+            if (count == 0) {
+                throw new PEFileException("incomplete " + structure + " read");
+            }
+            var data = new byte[count * length];
+            section.copyBytes(data, rva, 0, data.length);
+            for (int off = 0; off < data.length; off += length) {
+                if (I.u32(data, off + nullField) == 0) return data;
+            }
+            if (count == available || count >= MAX_ENTRIES) {
+                throw new PEFileException("incomplete " + structure + " read");
+            }
+            count = (int) Math.min(available, count * 2L);
+        }
+    }
+
+    private record LookupTable(byte[] table, int count) {
+    }
+
+    /**
+     * Reads a lookup table into {@code table}, or a larger array if it doesn't fit, the bytes out of the raw data
+     * are zero.
+     *
+     * @return the table and the number of the entries before the null one
+     */
+    private static LookupTable readLookupTable(Section section, int rva, int entrySize, byte[] table)
+            throws IOException {
+        var available = Math.max(0, section.dataEnd() - Integer.toUnsignedLong(rva)) / entrySize;
+        var read = 0;
+        while (true) {
+            var capacity = (int) Math.min(available, table.length / entrySize);
+            if (capacity == read) {
+                if (capacity == available || capacity >= MAX_ENTRIES) {
+                    throw new PEFileException("incomplete ImportDirectoryTable read");
+                }
+                table = Arrays.copyOf(table, table.length * 2);
+                continue;
+            }
+            var len = (capacity - read) * entrySize;
+            Arrays.fill(table, read * entrySize, capacity * entrySize, (byte) 0);
+            section.copyBytes(table, U.add(rva, read * entrySize), read * entrySize, len);
+            for (int i = read; i < capacity; i++) {
+                var zero = entrySize == 8 ? I.u64(table, i * 8) == 0 : I.u32(table, i * 4) == 0;
+                if (zero) return new LookupTable(table, i);
+            }
+            read = capacity;
+        }
+    }
+
+    /**
+     * Collects the names, the nearby ones are read at once.
+     * <p>
+     * The references {@code [0, dlls)} are the DLL names, the rest are the hint/name entries of the symbols.
+     */
+    private static final class NamePool {
+        private final SectionSet sectionSet;
+        private final long[] keys;
+        private int keyCount;
+        final int[] offsets;
+        final int[] lengths;
+        final short[] hints;
+        byte[] pool = new byte[256];
+        int poolSize;
+
+        NamePool(SectionSet sectionSet, int dlls, int symbols) {
+            this.sectionSet = sectionSet;
+            this.keys = new long[dlls + symbols];
+            this.offsets = new int[dlls + symbols];
+            this.lengths = new int[dlls + symbols];
+            this.hints = new short[symbols];
+            Arrays.fill(lengths, -1);
+        }
+
+        void add(int ref, int rva) {
+            // sort by the RVA, then the reference
+            keys[keyCount++] = Integer.toUnsignedLong(rva) << 31 | ref;
+        }
+
+        void resolve(int dlls) throws IOException {
+            Arrays.sort(keys, 0, keyCount);
+            var window = new byte[0];
+            for (int i = 0; i < keyCount; ) {
+                var begin = keys[i] >>> 31;
+                var j = i + 1;
+                while (j < keyCount && (keys[j] >>> 31) - begin <= CLUSTER) j++;
+                var end = Math.min((keys[j - 1] >>> 31) + 2 + NAME_WINDOW, 0x1_0000_0000L);
+                var len = (int) (end - begin);
+                if (window.length < len) window = new byte[len];
+                sectionSet.readBytes(window, (int) begin, 0, len);
+                for (; i < j; i++) {
+                    var ref = (int) (keys[i] & 0x7fffffff);
+                    var rva = (int) (keys[i] >>> 31);
+                    if (ref < dlls) {
+                        addName(ref, rva, window, begin, len);
+                    } else {
+                        var at = (int) (Integer.toUnsignedLong(rva) - begin);
+                        hints[ref - dlls] = at + 2 <= len ? I.u16(window, at) : 0;
+                        addName(ref, U.add(rva, 2), window, begin, len);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Copies the name from the window if it's terminated in the raw data of the section, otherwise reads it as
+         * {@link SectionSet#readNullShortString(int)} does.
+         */
+        private void addName(int ref, int rva, byte[] window, long begin, int len) throws IOException {
+            var section = sectionSet.findData(rva);
+            if (section == null) return;
+            var at = (int) (Integer.toUnsignedLong(rva) - begin);
+            var rawEnd = Integer.toUnsignedLong(section.getVirtualAddress()) +
+                         Integer.toUnsignedLong(section.getSizeOfRawData());
+            var limit = (int) Math.min(len, Math.max(at, rawEnd - begin));
+            for (int i = at; i < limit; i++) {
+                if (window[i] == 0) {
+                    append(ref, window, at, i - at);
+                    return;
+                }
+            }
+            var name = sectionSet.readNullShortString(rva);
+            if (name != null) {
+                var bytes = name.getBytes(StandardCharsets.ISO_8859_1);
+                append(ref, bytes, 0, bytes.length);
+            }
+        }
+
+        private void append(int ref, byte[] src, int off, int len) {
+            // an empty name is unavailable, as readNullShortString returns null for it
+            if (len == 0) return;
+            if (poolSize + len > pool.length) pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + len));
+            System.arraycopy(src, off, pool, poolSize, len);
+            offsets[ref] = poolSize;
+            lengths[ref] = len;
+            poolSize += len;
+        }
+    }
+}
@@ -6,10 +6,12 @@ import org.jetbrains.annotations.NotNull;
 public final class ImportSymbol {
     private final @NotNull @NonNls String name;
     private final int ordinal;
+    private final int iatRva;
 
-    ImportSymbol(String name, int ordinal) {
+    ImportSymbol(String name, int ordinal, int iatRva) {
         this.name = name;
         this.ordinal = ordinal;
+        this.iatRva = iatRva;
     }
 
     /**
@@ -20,6 +22,17 @@ public final class ImportSymbol {
         return ordinal;
     }
 
+    /**
+     * Returns the RVA of the slot in the Import Address Table, where the loader writes the address of the symbol.
+     * <p>
+     * Comparing the value in the slot of a loaded image with the export of the DLL reveals the hooked imports.
+     *
+     * @return the RVA, or 0 if the descriptor has no Import Address Table
+     */
+    public int getIatRva() {
+        return iatRva;
+    }
+
     /**
      * Returns the name of the symbol.
      * @return the name of the symbol. If the symbol is imported by ordinal, returns the ordinal as a string.
@@ -31,6 +44,10 @@ public final class ImportSymbol {
         return name;
     }
 
+    /**
+     * Two symbols are equal if they have the same name and ordinal, the {@linkplain #getIatRva() slot} is not
+     * compared, so the same import of different descriptors or files is equal.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
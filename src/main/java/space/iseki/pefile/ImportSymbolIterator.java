@@ -2,24 +2,50 @@ package space.iseki.pefile;
 
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.util.Arrays;
 
 public final class ImportSymbolIterator extends AbstractIterator<ImportSymbol> {
+    /**
+     * The number of lookup table entries read at once.
+     */
+    private static final int CHUNK = 64;
     private final PEFile peFile;
-    private final InputStream input;
-    private final ImportDirectoryTable idt;
+    private final Section section;
+    /**
+     * The descriptor of the DLL, for the error messages.
+     */
+    private final Object descriptor;
+    /**
+     * Subtracted from the RVAs of the hint/name entries, the image base of the VA-based delay-load descriptors.
+     */
+    private final int nameBias;
+    private final int iatRva;
+    private final int entrySize;
+    private byte[] chunk;
+    private int chunkPos;
+    private int chunkLen;
+    private int nextRva;
     private int index;
 
     ImportSymbolIterator(PEFile peFile, ImportDirectoryTable idt) {
+        this(peFile, idt.importLookupTableRva(), idt.importAddressTableRva(), 0, idt);
+    }
+
+    /**
+     * @param lookupTableRva the RVA of the lookup table
+     * @param iatRva         the RVA of the Import Address Table, parallel to the lookup table, or 0
+     * @param nameBias       subtracted from the hint/name references in the table
+     * @param descriptor     the descriptor of the DLL, for the error messages
+     */
+    ImportSymbolIterator(PEFile peFile, int lookupTableRva, int iatRva, int nameBias, Object descriptor) {
         this.peFile = peFile;
-        this.idt = idt;
-        Section section = peFile.sectionSet.find(idt.importLookupTableRva());
-        if (section == null) {
-            this.input = null;
-            return;
-        }
-        input = section.inputStream(idt.importLookupTableRva());
+        this.descriptor = descriptor;
+        this.nameBias = nameBias;
+        this.iatRva = iatRva;
+        this.section = peFile.sectionSet.findData(lookupTableRva);
+        this.entrySize = peFile.standardHeader.isPE32Plus() ? 8 : 4;
+        this.nextRva = lookupTableRva;
     }
 
     /**
@@ -35,41 +61,30 @@ public final class ImportSymbolIterator extends AbstractIterator<ImportSymbol> {
 
     @Override
     protected void computeNext() {
-        if (input == null) {
+        if (section == null) {
             end();
             return;
         }
         try {
-            var plus = peFile.standardHeader.isPE32Plus();
-            var buf = input.readNBytes(plus ? 8 : 4);
-            long rawValue = plus ? I.u64(buf, 0) : I.u32L(buf, 0);
+            var plus = entrySize == 8;
+            if (chunkPos == chunkLen) fill();
+            long rawValue = plus ? I.u64(chunk, chunkPos) : I.u32L(chunk, chunkPos);
+            chunkPos += entrySize;
             if (rawValue == 0) {
                 end();
                 return;
             }
-            long v = rawValue;
-            if (!plus) {
-                // move the 31bit to 63bit, and clear the 31bit
-                v = (v & ~(1L << 31)) | ((v & (1L << 31)) << 32);
-            }
+            var v = lookupEntry(rawValue, plus, index, descriptor);
             var isOrdinal = v < 0;
-            // clear the sign bit
-            v &= ~Long.MIN_VALUE;
-            if (isOrdinal) {
-                if ((v & ~0xffff) != 0) {
-                    badImportLookupTableField(rawValue);
-                }
-            } else {
-                if ((v & ~0x7fffffffL) != 0) {
-                    badImportLookupTableField(rawValue);
-                }
-            }
+            var slot = slotRva(iatRva, index, entrySize);
             if (isOrdinal) {
                 var ordinal = (int) v & 0xffff;
-                setNext(new ImportSymbol("", ordinal));
+                setNext(new ImportSymbol("", ordinal, slot));
             } else {
-                var nameRva = (int) v & 0x7fffffff;
-                setNext(new ImportSymbol(peFile.sectionSet.readNullShortString(nameRva + 2), 0));
+                var nameRva = ((int) v & 0x7fffffff) - nameBias;
+                var name = peFile.sectionSet.readNullShortString(nameRva + 2);
+                // unavailable, as ImportSnapshot#getSymbol maps it
+                setNext(new ImportSymbol(name == null ? "" : name, 0, slot));
             }
             index++;
         } catch (EOFException | IndexOutOfBoundsException e) {
@@ -80,9 +95,54 @@ public final class ImportSymbolIterator extends AbstractIterator<ImportSymbol> {
 
     }
 
-    private void badImportLookupTableField(long v) {
-        var m = "bad ImportLookupTable field[%d] in %s: %s, some bit must be 0".formatted(index, idt, U.hex(v));
-        throw new PEFileException(m);
+    /**
+     * Reads the next chunk of the lookup table up to {@link Section#dataEnd()}, the bytes out of the raw data are zero.
+     */
+    private void fill() throws IOException {
+        var available = Math.max(0, section.dataEnd() - Integer.toUnsignedLong(nextRva)) / entrySize;
+        var len = (int) Math.min(CHUNK, available) * entrySize;
+        if (len == 0) {
+            throw new PEFileException("incomplete ImportDirectoryTable read");
+        }
+        if (chunk == null) chunk = new byte[CHUNK * entrySize];
+        Arrays.fill(chunk, 0, len, (byte) 0);
+        section.copyBytes(chunk, nextRva, 0, len);
+        nextRva = U.add(nextRva, len);
+        chunkPos = 0;
+        chunkLen = len;
+    }
+
+    /**
+     * @return the RVA of the {@code index}-th slot of the Import Address Table, or 0 if there's no table
+     */
+    static int slotRva(int iatRva, int index, int entrySize) {
+        return iatRva == 0 ? 0 : iatRva + index * entrySize;
+    }
+
+    /**
+     * Validates an entry of the lookup table and moves the ordinal flag of PE32 to the sign bit.
+     *
+     * @param rawValue   the entry, not zero
+     * @param index      the index of the entry, for the error message
+     * @param descriptor the descriptor of the DLL, for the error message
+     * @return negative if imported by ordinal, the low 16 bits are the ordinal, otherwise the RVA of the hint/name
+     * entry
+     * @throws PEFileException if the reserved bits are not zero
+     */
+    static long lookupEntry(long rawValue, boolean plus, int index, Object descriptor) {
+        long v = rawValue;
+        if (!plus) {
+            // move the 31bit to 63bit, and clear the 31bit
+            v = (v & ~(1L << 31)) | ((v & (1L << 31)) << 32);
+        }
+        var isOrdinal = v < 0;
+        // clear the sign bit
+        var bits = v & ~Long.MIN_VALUE;
+        if ((bits & (isOrdinal ? ~0xffffL : ~0x7fffffffL)) != 0) {
+            var m = "bad ImportLookupTable field[%d] in %s: %s, some bit must be 0";
+            throw new PEFileException(m.formatted(index, descriptor, U.hex(rawValue)));
+        }
+        return v;
     }
 
 }
@@ -2,11 +2,33 @@ package space.iseki.pefile;
 
 import org.jetbrains.annotations.NotNull;
 
+import org.jetbrains.annotations.Unmodifiable;
+
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public final class ImportTable implements Iterable<ImportEntry> {
+    private static final VarHandle SNAPSHOT;
+
+    static {
+        try {
+            SNAPSHOT = MethodHandles.lookup()
+                                    .findVarHandle(ImportTable.class, "snapshot", ImportSnapshot.class)
+                                    .withInvokeExactBehavior();
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new Error(e);
+        }
+    }
+
     private final PEFile peFile;
+    @SuppressWarnings({"FieldMayBeFinal", "unused"})
+    private ImportSnapshot snapshot;
 
     ImportTable(PEFile peFile) {
         this.peFile = peFile;
@@ -29,4 +51,75 @@ public final class ImportTable implements Iterable<ImportEntry> {
     public @NotNull Iterator<@NotNull ImportEntry> iterator() {
         return new ImportTableIterator(peFile);
     }
+
+    /**
+     * Reads the whole import table, including the symbols of each entry, without blocking the caller.
+     * <p>
+     * For a PEFile opened by {@link PEFile#openAsync(Path)}, the structures are prefetched by async reads,
+     * then parsed from memory. Otherwise, the table is read on the calling thread, and the returned future is
+     * already completed.
+     * <p>
+     * The future completes exceptionally with the exceptions listed in {@link #iterator()}.
+     *
+     * @return the entries, unmodifiable, the symbols of them are in memory
+     */
+    public @NotNull CompletableFuture<@NotNull @Unmodifiable List<@NotNull ImportEntry>> materializeAsync() {
+        return AsyncLoader.materializeImports(peFile);
+    }
+
+    /**
+     * Returns the whole import table in memory, in a compact form.
+     * <p>
+     * The descriptors and each lookup table are read at once, and the nearby names are read together.
+     * The snapshot is cached, the later calls return the same instance.
+     *
+     * @return the snapshot, empty if the file has no import table
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws PEFileException      if the import table is invalid
+     */
+    public @NotNull ImportSnapshot snapshot() {
+        var s = (ImportSnapshot) SNAPSHOT.getAcquire(this);
+        if (s != null) return s;
+        try {
+            s = ImportSnapshot.read(peFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        SNAPSHOT.setRelease(this, s);
+        return s;
+    }
+
+    /**
+     * Computes the imphash, compatible with {@code pefile}.
+     * <p>
+     * Each imported symbol is normalized to {@code lib.func} in lowercase, where {@code lib} is the DLL name without
+     * the extension {@code .dll}, {@code .ocx} or {@code .sys}. A symbol imported by ordinal is named by the
+     * ordinal tables of {@code ws2_32.dll}, {@code wsock32.dll} and {@code oleaut32.dll}, or {@code ord<N>}
+     * otherwise. The imphash is the MD5 of the symbols joined by commas, in table order.
+     * <p>
+     * The names are hashed from the {@linkplain #snapshot() snapshot} directly, without decoding them.
+     *
+     * @return the hash in lowercase hex, or an empty string if the file has no import table
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws PEFileException      if the import table is invalid
+     */
+    public @NotNull String imphash() {
+        return ImportHash.imphash(snapshot());
+    }
+
+    /**
+     * Computes a 64-bit fingerprint of the set of imported symbols, normalized as {@link #imphash()}.
+     * <p>
+     * Unlike the imphash, the order and the duplicates of the symbols don't matter. Each symbol is hashed by
+     * 64-bit FNV-1a followed by the MurmurHash3 finalizer {@code fmix64}, then the distinct hashes in ascending order
+     * (as signed values) are folded by {@code h = fmix64(h ^ v)} starting from 0.
+     * The algorithm is stable, the fingerprints can be stored and compared across versions.
+     *
+     * @return the fingerprint, 0 if there's no symbol
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws PEFileException      if the import table is invalid
+     */
+    public long fingerprint() {
+        return ImportHash.fingerprint(snapshot());
+    }
 }
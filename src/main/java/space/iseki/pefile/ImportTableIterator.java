@@ -4,26 +4,34 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 
 public final class ImportTableIterator extends AbstractIterator<@NotNull ImportEntry> {
-    private final InputStream input;
+    /**
+     * The number of descriptors read at a time.
+     */
+    private static final int CHUNK = 16;
+    /**
+     * The bytes read for each DLL name, longer names are read again.
+     */
+    private static final int NAME_WINDOW = 64;
     private final PEFile peFile;
+    private final Section section;
+    private final ArrayDeque<ImportEntry> ready = new ArrayDeque<>();
+    private int nextRva;
+    private boolean terminated;
 
     ImportTableIterator(PEFile peFile) {
         this.peFile = peFile;
         DataDirectories.Item importTable = peFile.dataDirectories.getImportTable();
         if (importTable == null) {
-            input = null;
+            section = null;
             return;
         }
-        var section = peFile.sectionSet.find(importTable.getRva());
-        if (section == null) {
-            input = null;
-            return;
-        }
-        input = section.inputStream(importTable.getRva());
+        section = peFile.sectionSet.find(importTable.getRva());
+        nextRva = importTable.getRva();
     }
 
     /**
@@ -40,22 +48,79 @@ public final class ImportTableIterator extends AbstractIterator<@NotNull ImportE
     @Override
     protected void computeNext() {
         try {
-            if (input == null) {
-                end();
-                return;
+            if (ready.isEmpty() && section != null && !terminated) {
+                fill();
             }
-            var buf = input.readNBytes(ImportDirectoryTable.LENGTH);
-            var idt = ImportDirectoryTable.parse(buf, 0);
-            if (idt.importLookupTableRva() == 0) {
+            var next = ready.poll();
+            if (next == null) {
                 end();
                 return;
             }
-            var name = peFile.sectionSet.readNullShortString(idt.nameRva());
-            setNext(new ImportEntry(peFile, idt, name));
+            setNext(next);
         } catch (EOFException | IndexOutOfBoundsException e) {
             throw new PEFileException("incomplete ImportDirectoryTable read");
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
+
+    /**
+     * Reads a chunk of descriptors, and the DLL names of them in a batch.
+     */
+    private void fill() throws IOException {
+        var available = Math.max(0, section.dataEnd() - Integer.toUnsignedLong(nextRva)) / ImportDirectoryTable.LENGTH;
+        var count = (int) Math.min(CHUNK, available);
+        if (count == 0) {
+            throw new PEFileException("incomplete ImportDirectoryTable read");
+        }
+        var data = section.view(nextRva, count * ImportDirectoryTable.LENGTH);
+        var batch = new ReadBatch(section.accessor(), ReadBatch.DEFAULT_GAP, count);
+        var descriptors = new ImportDirectoryTable[count];
+        var names = new int[count];
+        var n = 0;
+        for (; n < count; n++) {
+            var idt = ImportDirectoryTable.parse(data, n * ImportDirectoryTable.LENGTH);
+            if (idt.importLookupTableRva() == 0) {
+                terminated = true;
+                break;
+            }
+            descriptors[n] = idt;
+            names[n] = -1;
+            var nameSection = peFile.sectionSet.find(idt.nameRva());
+            if (nameSection == null) continue;
+            var rawEnd = Integer.toUnsignedLong(nameSection.getVirtualAddress()) +
+                         Integer.toUnsignedLong(nameSection.getSizeOfRawData());
+            var window = (int) Math.min(NAME_WINDOW, rawEnd - Integer.toUnsignedLong(idt.nameRva()));
+            if (window > 0 && nameSection.rawOffset(idt.nameRva(), window) >= 0) {
+                names[n] = batch.add(nameSection, idt.nameRva(), window);
+            }
+        }
+        batch.execute();
+        for (int i = 0; i < n; i++) {
+            var name = names[i] < 0 ? null : decodeName(batch, names[i]);
+            if (name == null) {
+                name = peFile.sectionSet.readNullShortString(descriptors[i].nameRva());
+            }
+            ready.add(new ImportEntry(peFile, descriptors[i], name));
+        }
+        nextRva = U.add(nextRva, count * ImportDirectoryTable.LENGTH);
+    }
+
+    /**
+     * @return the name, or null if the window doesn't contain the whole name
+     */
+    private static String decodeName(ReadBatch batch, int range) {
+        var data = batch.buffer(range);
+        var offset = batch.offset(range);
+        var available = batch.available(range);
+        for (int i = 0; i < available; i++) {
+            if (data.get(offset + i) == 0) {
+                if (i == 0) return null;
+                var bytes = Scratch.bytes(i);
+                data.get(offset, bytes, 0, i);
+                return new String(bytes, 0, i, StandardCharsets.ISO_8859_1);
+            }
+        }
+        return null;
+    }
 }
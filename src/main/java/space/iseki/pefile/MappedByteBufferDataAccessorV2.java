@@ -0,0 +1,100 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A memory-mapped accessor for the runtimes without the Foreign Memory API.
+ * <p>
+ * A {@link MappedByteBuffer} can't address more than 2GB, so the file is mapped in {@link #CHUNK_SIZE} windows.
+ * <p>
+ * The buffers are never unmapped explicitly, unmapping a buffer that another thread is still copying from would
+ * crash the VM. {@link #close()} drops the references instead, the mapping will be released by the GC.
+ */
+final class MappedByteBufferDataAccessorV2 implements DataAccessorV2 {
+    static final int CHUNK_SIZE = 1 << 30;
+    private final long size;
+    private final int chunkSize;
+    private volatile MappedByteBuffer[] chunks;
+
+    private MappedByteBufferDataAccessorV2(MappedByteBuffer[] chunks, long size, int chunkSize) {
+        this.chunks = chunks;
+        this.size = size;
+        this.chunkSize = chunkSize;
+    }
+
+    static @NotNull MappedByteBufferDataAccessorV2 map(@NotNull FileChannel channel) throws IOException {
+        return map(channel, CHUNK_SIZE);
+    }
+
+    /**
+     * Maps the file in windows of {@code chunkSize}, a small size lets the tests cross the window boundaries.
+     */
+    static @NotNull MappedByteBufferDataAccessorV2 map(@NotNull FileChannel channel, int chunkSize)
+            throws IOException {
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+        var size = channel.size();
+        var chunks = new MappedByteBuffer[Math.toIntExact((size + chunkSize - 1) / chunkSize)];
+        for (int i = 0; i < chunks.length; i++) {
+            var begin = (long) i * chunkSize;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, begin, Math.min(chunkSize, size - begin));
+        }
+        return new MappedByteBufferDataAccessorV2(chunks, size, chunkSize);
+    }
+
+    @Override
+    public int read(@NotNull ByteBuffer buffer, long position) {
+        var chunks = this.chunks;
+        if (chunks == null) {
+            throw new IllegalStateException("The file was closed");
+        }
+        if (position >= size) {
+            return -1;
+        }
+        var bytesToCopy = (int) Math.min(buffer.remaining(), size - position);
+        var remaining = bytesToCopy;
+        while (remaining > 0) {
+            var chunk = chunks[(int) (position / chunkSize)];
+            var offset = (int) (position % chunkSize);
+            var n = Math.min(remaining, chunk.capacity() - offset);
+            buffer.put(buffer.position(), chunk, offset, n);
+            buffer.position(buffer.position() + n);
+            position += n;
+            remaining -= n;
+        }
+        return bytesToCopy;
+    }
+
+    @Override
+    public ByteBuffer view(long position, int length) {
+        var chunks = this.chunks;
+        if (chunks == null) {
+            throw new IllegalStateException("The file was closed");
+        }
+        if (position >= size) {
+            return ByteBuffer.allocate(0);
+        }
+        var bytesToView = (int) Math.min(Integer.toUnsignedLong(length), size - position);
+        var chunk = chunks[(int) (position / chunkSize)];
+        var offset = (int) (position % chunkSize);
+        if (bytesToView > chunk.capacity() - offset) {
+            // spans two windows
+            return null;
+        }
+        return chunk.slice(offset, bytesToView);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return chunks != null;
+    }
+
+    @Override
+    public void close() {
+        chunks = null;
+    }
+}
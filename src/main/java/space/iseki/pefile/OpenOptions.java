@@ -0,0 +1,271 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Options of {@link PEFile#open(java.nio.file.Path, OpenOptions)}.
+ * <p>
+ * The options are immutable, create them by {@link #builder()}.
+ * The {@link #DEFAULT} options behave the same as {@link PEFile#open(java.nio.file.Path)}.
+ */
+public final class OpenOptions {
+    /**
+     * The default options.
+     */
+    public static final @NotNull OpenOptions DEFAULT = builder().build();
+    /**
+     * The maximum size of a file to be read into the heap.
+     */
+    public static final long MAX_HEAP_SIZE = Integer.MAX_VALUE - 8;
+    /**
+     * The default {@link Builder#heapThreshold(long)}.
+     * <p>
+     * Mapping a small file costs more than reading it, and reading releases the file descriptor at once.
+     */
+    public static final long DEFAULT_HEAP_THRESHOLD = 64 * 1024;
+    private final AccessStrategy accessStrategy;
+    private final long heapThreshold;
+    private final long mmapThreshold;
+    private final @Nullable BlockCache blockCache;
+    private final boolean lazyResourceRoot;
+    private final Validation validation;
+
+    private OpenOptions(Builder builder) {
+        this.accessStrategy = builder.accessStrategy;
+        this.heapThreshold = builder.heapThreshold;
+        this.mmapThreshold = builder.mmapThreshold;
+        this.blockCache = builder.blockCache;
+        this.lazyResourceRoot = builder.lazyResourceRoot;
+        this.validation = builder.validation;
+    }
+
+    /**
+     * @return a builder with the default options
+     */
+    public static @NotNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder initialized with the options
+     */
+    public @NotNull Builder toBuilder() {
+        return new Builder().accessStrategy(accessStrategy)
+                            .heapThreshold(heapThreshold)
+                            .mmapThreshold(mmapThreshold)
+                            .blockCache(blockCache)
+                            .lazyResourceRoot(lazyResourceRoot)
+                            .validation(validation);
+    }
+
+    public @NotNull AccessStrategy getAccessStrategy() {
+        return accessStrategy;
+    }
+
+    /**
+     * @see Builder#heapThreshold(long)
+     */
+    public long getHeapThreshold() {
+        return heapThreshold;
+    }
+
+    /**
+     * @see Builder#mmapThreshold(long)
+     */
+    public long getMmapThreshold() {
+        return mmapThreshold;
+    }
+
+    public @Nullable BlockCache getBlockCache() {
+        return blockCache;
+    }
+
+    public boolean isLazyResourceRoot() {
+        return lazyResourceRoot;
+    }
+
+    public @NotNull Validation getValidation() {
+        return validation;
+    }
+
+    /**
+     * Resolve the strategy for a file, never returns {@link AccessStrategy#AUTO}.
+     */
+    AccessStrategy resolve(long fileSize) {
+        var strategy = accessStrategy;
+        if (strategy == AccessStrategy.AUTO) {
+            if (fileSize <= heapThreshold) {
+                strategy = AccessStrategy.HEAP;
+            } else if (blockCache == null && fileSize >= mmapThreshold && MmapHelper.isPreferred()) {
+                strategy = AccessStrategy.MMAP;
+            } else {
+                strategy = AccessStrategy.POSITIONAL;
+            }
+        }
+        if (strategy == AccessStrategy.HEAP && fileSize > MAX_HEAP_SIZE) {
+            strategy = AccessStrategy.POSITIONAL;
+        }
+        if (strategy == AccessStrategy.MMAP && !MmapHelper.isSupported()) {
+            strategy = AccessStrategy.POSITIONAL;
+        }
+        return strategy;
+    }
+
+    @Override
+    public String toString() {
+        return "OpenOptions{" +
+               "accessStrategy=" + accessStrategy +
+               ", heapThreshold=" + heapThreshold +
+               ", mmapThreshold=" + mmapThreshold +
+               ", blockCache=" + blockCache +
+               ", lazyResourceRoot=" + lazyResourceRoot +
+               ", validation=" + validation +
+               '}';
+    }
+
+    /**
+     * How the file content is accessed.
+     */
+    public enum AccessStrategy {
+        /**
+         * Choose by the file size, see {@link Builder#heapThreshold(long)} and {@link Builder#mmapThreshold(long)}.
+         * <p>
+         * It maps the files only on JDK 22 or later, see {@link #MMAP}.
+         */
+        AUTO,
+        /**
+         * Map the file into memory, falls back to {@link #POSITIONAL} if memory mapping isn't supported.
+         * <p>
+         * On JDK 22 or later, {@link PEFile#close()} unmaps the file.
+         * Before JDK 22, a mapping can't be unmapped explicitly: it stays alive after {@link PEFile#close()} until the
+         * garbage collector reclaims it, and on Windows the file stays locked until then, it can't be deleted or
+         * replaced.
+         */
+        MMAP,
+        /**
+         * Read the file by positional reads of a {@link java.nio.channels.FileChannel},
+         * through the block cache if it's set.
+         */
+        POSITIONAL,
+        /**
+         * Read the whole file into the heap and close it at once,
+         * falls back to {@link #POSITIONAL} if the file is larger than {@link #MAX_HEAP_SIZE}.
+         */
+        HEAP,
+    }
+
+    /**
+     * How strictly the directories parsed by the open are validated.
+     */
+    public enum Validation {
+        /**
+         * An invalid directory fails the open with {@link PEFileException}.
+         */
+        STRICT,
+        /**
+         * An invalid resource directory doesn't fail the open, {@link PEFile#getResourceRoot()} returns null instead.
+         * The headers and the section table are always validated.
+         */
+        LENIENT,
+    }
+
+    public static final class Builder {
+        private AccessStrategy accessStrategy = AccessStrategy.AUTO;
+        private long heapThreshold = DEFAULT_HEAP_THRESHOLD;
+        private long mmapThreshold = 0;
+        private @Nullable BlockCache blockCache;
+        private boolean lazyResourceRoot;
+        private Validation validation = Validation.STRICT;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the access strategy, default is {@link AccessStrategy#AUTO}.
+         *
+         * @param accessStrategy the strategy
+         * @return this builder
+         */
+        public @NotNull Builder accessStrategy(@NotNull AccessStrategy accessStrategy) {
+            this.accessStrategy = Objects.requireNonNull(accessStrategy);
+            return this;
+        }
+
+        /**
+         * Files not larger than it are read into the heap by {@link AccessStrategy#AUTO}, and closed at once.
+         * <p>
+         * Default is {@link #DEFAULT_HEAP_THRESHOLD}.
+         *
+         * @param heapThreshold the size in bytes, -1 to disable, at most {@link #MAX_HEAP_SIZE}
+         * @return this builder
+         * @throws IllegalArgumentException if the value is out of range
+         */
+        public @NotNull Builder heapThreshold(long heapThreshold) {
+            if (heapThreshold < -1 || heapThreshold > MAX_HEAP_SIZE) {
+                throw new IllegalArgumentException("heapThreshold out of range: " + heapThreshold);
+            }
+            this.heapThreshold = heapThreshold;
+            return this;
+        }
+
+        /**
+         * Files not smaller than it are mapped by {@link AccessStrategy#AUTO}, others are read by positional reads.
+         * <p>
+         * Default is 0, all files not read into the heap are mapped.
+         * If the block cache is set, or before JDK 22, {@link AccessStrategy#AUTO} doesn't map any file,
+         * see {@link AccessStrategy#MMAP}.
+         *
+         * @param mmapThreshold the size in bytes, non-negative
+         * @return this builder
+         * @throws IllegalArgumentException if the value is negative
+         */
+        public @NotNull Builder mmapThreshold(long mmapThreshold) {
+            if (mmapThreshold < 0) {
+                throw new IllegalArgumentException("mmapThreshold must be non-negative: " + mmapThreshold);
+            }
+            this.mmapThreshold = mmapThreshold;
+            return this;
+        }
+
+        /**
+         * Set the block cache for {@link AccessStrategy#POSITIONAL}, default is null.
+         *
+         * @param blockCache the cache, might be shared with other files, null to disable
+         * @return this builder
+         */
+        public @NotNull Builder blockCache(@Nullable BlockCache blockCache) {
+            this.blockCache = blockCache;
+            return this;
+        }
+
+        /**
+         * Parse the resource root at the first call of {@link PEFile#getResourceRoot()} instead of the open,
+         * default is false.
+         *
+         * @param lazyResourceRoot true to parse lazily
+         * @return this builder
+         */
+        public @NotNull Builder lazyResourceRoot(boolean lazyResourceRoot) {
+            this.lazyResourceRoot = lazyResourceRoot;
+            return this;
+        }
+
+        /**
+         * Set the validation, default is {@link Validation#STRICT}.
+         *
+         * @param validation the validation
+         * @return this builder
+         */
+        public @NotNull Builder validation(@NotNull Validation validation) {
+            this.validation = Objects.requireNonNull(validation);
+            return this;
+        }
+
+        public @NotNull OpenOptions build() {
+            return new OpenOptions(this);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package space.iseki.pefile;
 
+import java.nio.ByteBuffer;
+
 public final class OptionalHeader {
     @Field
     private final boolean isPE32Plus;
@@ -92,7 +94,7 @@ public final class OptionalHeader {
         this.numberOfRvaAndSizes = numberOfRvaAndSizes;
     }
 
-    static OptionalHeader parse(byte[] buf, int off, boolean isPE32Plus) {
+    static OptionalHeader parse(ByteBuffer buf, int off, boolean isPE32Plus) {
         off -= isPE32Plus ? 24 : 28;
         var imageBase = isPE32Plus ? I.u64(buf, off + 24) : I.u32L(buf, off + 28);
         var sectionAlignment = I.u32(buf, off + 32);
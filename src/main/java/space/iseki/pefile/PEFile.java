@@ -7,14 +7,26 @@ import org.jetbrains.annotations.Unmodifiable;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import java.util.AbstractList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 /**
  * Represents an opened PE file.
@@ -29,6 +41,34 @@ import java.util.Optional;
  */
 public final class PEFile implements AutoCloseable {
     static final long PE_SIGNATURE_LE = 0x00004550;
+    private static final VarHandle RESOURCE_ROOT;
+    /**
+     * The resource root is parsed, and there's no resource root.
+     */
+    private static final Object NO_RESOURCE_ROOT = new Object();
+
+    static {
+        try {
+            RESOURCE_ROOT = MethodHandles.lookup()
+                                         .findVarHandle(PEFile.class, "resourceRoot", Object.class)
+                                         .withInvokeExactBehavior();
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new Error(e);
+        }
+    }
+
+    /**
+     * The number of resource directory entries loaded at a time.
+     */
+    private static final int CHILDREN_BLOCK = 64;
+    /**
+     * A child that failed to load with its block, it's read alone at each access.
+     */
+    private static final Object FAILED_CHILD = new Object();
+    /**
+     * The bytes prefetched for each resource name, longer names are read again.
+     */
+    private static final int RESOURCE_NAME_WINDOW = 64;
     final SectionSet sectionSet;
     final CoffHeader coffHeader;
     final StandardHeader standardHeader;
@@ -36,9 +76,16 @@ public final class PEFile implements AutoCloseable {
     final DataDirectories dataDirectories;
     private final WrappedDataAccessor accessor;
     private final ImportTable importTable = new ImportTable(this);
+    private final DelayImportTable delayImportTable = new DelayImportTable(this);
     private final ExportTable exportTable = new ExportTable(this);
     private final Section rsrcSection;
-    private final ResourceNode resourceRoot;
+    private final OpenOptions.Validation validation;
+    private final List<String> unreachableStructures;
+    /**
+     * The {@link ResourceNode}, or {@link #NO_RESOURCE_ROOT}, or null if not parsed yet.
+     */
+    @SuppressWarnings("unused")
+    private Object resourceRoot;
 
     PEFile(WrappedDataAccessor accessor,
            Section[] sections,
@@ -46,7 +93,37 @@ public final class PEFile implements AutoCloseable {
            StandardHeader standardHeader,
            OptionalHeader optionalHeader,
            DataDirectories dataDirectories) throws IOException {
+        this(accessor, sections, coffHeader, standardHeader, optionalHeader, dataDirectories, List.of());
+    }
+
+    PEFile(WrappedDataAccessor accessor,
+           Section[] sections,
+           CoffHeader coffHeader,
+           StandardHeader standardHeader,
+           OptionalHeader optionalHeader,
+           DataDirectories dataDirectories,
+           List<String> unreachableStructures) throws IOException {
+        this(accessor,
+             sections,
+             coffHeader,
+             standardHeader,
+             optionalHeader,
+             dataDirectories,
+             unreachableStructures,
+             OpenOptions.DEFAULT);
+    }
+
+    PEFile(WrappedDataAccessor accessor,
+           Section[] sections,
+           CoffHeader coffHeader,
+           StandardHeader standardHeader,
+           OptionalHeader optionalHeader,
+           DataDirectories dataDirectories,
+           List<String> unreachableStructures,
+           OpenOptions options) throws IOException {
         this.accessor = accessor;
+        this.unreachableStructures = unreachableStructures;
+        this.validation = options.getValidation();
         this.sectionSet = new SectionSet(sections);
         this.coffHeader = coffHeader;
         this.standardHeader = standardHeader;
@@ -55,22 +132,37 @@ public final class PEFile implements AutoCloseable {
         this.rsrcSection = Optional.ofNullable(dataDirectories.getResourceTable())
                                    .map(i -> sectionSet.find(i.getRva()))
                                    .orElse(null);
+        if (!options.isLazyResourceRoot()) {
+            RESOURCE_ROOT.setRelease(this, readResourceRoot());
+        }
+    }
+
+    /**
+     * @return the {@link ResourceNode}, or {@link #NO_RESOURCE_ROOT}
+     */
+    private Object readResourceRoot() throws IOException {
         var resourceTable = dataDirectories.getResourceTable();
-        if (resourceTable != null && resourceTable.getRva() != 0) {
+        if (resourceTable == null || resourceTable.getRva() == 0) {
+            return NO_RESOURCE_ROOT;
+        }
+        try {
             if (rsrcSection == null) {
                 throw new PEFileException("Resource section not found, rva: " +
                                           Integer.toUnsignedLong(resourceTable.getRva()));
             }
             try {
-                var data = new byte[ImageResourceDirectory.LENGTH];
-                rsrcSection.copyBytes(data, resourceTable.getRva(), 0, data.length);
+                var data = rsrcSection.view(resourceTable.getRva(), ImageResourceDirectory.LENGTH);
                 var ird = ImageResourceDirectory.parse(data, 0);
-                resourceRoot = new ResourceNode(this, "<ROOT>", 0, 0, ird);
+                return new ResourceNode(this, "<ROOT>", 0, 0, ird);
             } catch (EOFException | IndexOutOfBoundsException e) {
                 throw new PEFileException("Invalid resource section");
             }
-        } else {
-            resourceRoot = null;
+        } catch (UnbufferedDataException ignored) {
+            // streaming open, the resource directory is listed in unreachableStructures
+            return NO_RESOURCE_ROOT;
+        } catch (PEFileException e) {
+            if (validation == OpenOptions.Validation.LENIENT) return NO_RESOURCE_ROOT;
+            throw e;
         }
     }
 
@@ -88,6 +180,9 @@ public final class PEFile implements AutoCloseable {
 
     /**
      * Open a PE file from a {@link Path}.
+     * <p>
+     * Files not larger than {@link OpenOptions#DEFAULT_HEAP_THRESHOLD} are read into memory and closed at once,
+     * larger files are memory mapped.
      *
      * @param path the path of the PE file
      * @return the PEFile
@@ -98,6 +193,54 @@ public final class PEFile implements AutoCloseable {
         return wrapUncheckIOException(() -> safeOpen(WrappedDataAccessor.of(path)));
     }
 
+    /**
+     * Open a PE file from a {@link Path} with the options.
+     *
+     * @param path    the path of the PE file
+     * @param options the options
+     * @return the PEFile
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws PEFileException      if the file is not a valid PE file
+     * @see OpenOptions
+     */
+    public static @NotNull PEFile open(@NotNull Path path, @NotNull OpenOptions options) {
+        Objects.requireNonNull(options);
+        return wrapUncheckIOException(() -> safeOpen(WrappedDataAccessor.of(path, options), options));
+    }
+
+    /**
+     * Open a PE file from a {@link Path}, reading through a {@link BlockCache}.
+     * <p>
+     * The file is read by positional reads instead of memory mapping, it's useful for files on slow storages.
+     *
+     * @param path  the path of the PE file
+     * @param cache the cache, might be shared with other PEFile instances
+     * @return the PEFile
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws PEFileException      if the file is not a valid PE file
+     */
+    public static @NotNull PEFile open(@NotNull Path path, @NotNull BlockCache cache) {
+        return wrapUncheckIOException(() -> safeOpen(WrappedDataAccessor.of(path, cache)));
+    }
+
+    /**
+     * Open a PE file from a {@link Path} without blocking the caller.
+     * <p>
+     * The file is read by an {@link java.nio.channels.AsynchronousFileChannel}, the headers are prefetched by async
+     * reads and parsed when they arrive.
+     * The returned PEFile can be used by both the blocking API and the async API, such as
+     * {@link ImportTable#materializeAsync()} and {@link #listChildrenAsync(ResourceNode)}.
+     * <p>
+     * The future completes exceptionally with {@link UncheckedIOException} if an I/O error occurs,
+     * or {@link PEFileException} if the file is not a valid PE file, the file is closed in these cases.
+     *
+     * @param path the path of the PE file
+     * @return the future of the PEFile
+     */
+    public static @NotNull CompletableFuture<@NotNull PEFile> openAsync(@NotNull Path path) {
+        return AsyncLoader.open(path);
+    }
+
     /**
      * Open a PE file from a {@link SeekableByteChannel}.
      * <p>
@@ -112,27 +255,134 @@ public final class PEFile implements AutoCloseable {
         return wrapUncheckIOException(() -> open(WrappedDataAccessor.of(channel)));
     }
 
-    private static long seekToCoffHeader(WrappedDataAccessor accessor) throws IOException {
-        try {
-            var buf = new byte[4];
-            accessor.readFully(0x3c, buf);
-            var peBeginAt = I.u32L(buf, 0);
-            accessor.readFully(peBeginAt, buf);
-            return peBeginAt;
-        } catch (EOFException ignored) {
-            throw new PEFileException("Invalid PE file, unexpected EOF during seek to COFF header");
-        }
+    /**
+     * Open a PE file from a custom {@link DataAccessor}.
+     * <p>
+     * The accessor will be closed when the PEFile is closed, or when any exception is thrown during the opening.
+     *
+     * @param accessor the accessor
+     * @return the PEFile
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws PEFileException      if the file is not a valid PE file
+     */
+    public static @NotNull PEFile open(@NotNull DataAccessor accessor) {
+        var wrapped = new WrappedDataAccessor(new CustomDataAccessorV2(accessor));
+        return wrapUncheckIOException(() -> safeOpen(wrapped));
+    }
+
+    /**
+     * Open a PE file from a custom {@link DataAccessor}, reading through a {@link BlockCache}.
+     * <p>
+     * The accessor will be closed when the PEFile is closed, or when any exception is thrown during the opening.
+     *
+     * @param accessor the accessor
+     * @param cache    the cache, might be shared with other PEFile instances
+     * @return the PEFile
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws PEFileException      if the file is not a valid PE file
+     */
+    public static @NotNull PEFile open(@NotNull DataAccessor accessor, @NotNull BlockCache cache) {
+        var wrapped = new WrappedDataAccessor(new CachingDataAccessorV2(new CustomDataAccessorV2(accessor), cache));
+        return wrapUncheckIOException(() -> safeOpen(wrapped));
+    }
+
+    /**
+     * Open a PE file from a byte array.
+     * <p>
+     * The array is not copied, it must not be modified until the PEFile is closed.
+     *
+     * @param bytes the content of the PE file
+     * @return the PEFile
+     * @throws PEFileException if the file is not a valid PE file
+     */
+    public static @NotNull PEFile open(byte @NotNull [] bytes) {
+        return open(ByteBuffer.wrap(bytes));
     }
 
-    private static void doCheckSignature(int peSignature) {
-        if (peSignature != PE_SIGNATURE_LE) {
-            throw new PEFileException("Invalid PE signature: " + U.hex(peSignature));
+    /**
+     * Open a PE file from the remaining bytes of a {@link ByteBuffer}, either a heap or a direct buffer.
+     * <p>
+     * The content is not copied, it must not be modified until the PEFile is closed.
+     * The position and limit of the buffer are not changed.
+     * <p>
+     * On Java 22 or later, a {@code MemorySegment} can be opened by {@code PEFile.open(segment.asByteBuffer())}.
+     *
+     * @param buffer the content of the PE file
+     * @return the PEFile
+     * @throws PEFileException if the file is not a valid PE file
+     */
+    public static @NotNull PEFile open(@NotNull ByteBuffer buffer) {
+        var accessor = new WrappedDataAccessor(new ByteBufferDataAccessorV2(buffer));
+        return wrapUncheckIOException(() -> open(accessor));
+    }
+
+    /**
+     * Open a PE file from a non-seekable {@link InputStream} by a single forward pass.
+     * <p>
+     * Only the headers, the section table, and the sections holding the import, export and resource directories
+     * (with the import names they point to) are buffered, at most {@code maxBufferedBytes} bytes in total.
+     * A structure can't be reached if it exceeds the limit or it's located before the data already passed,
+     * such structures are listed by {@link #getUnreachableStructures()},
+     * and reading them throws {@link PEFileException}.
+     * <p>
+     * The stream is read no further than the last buffered byte, and it will not be closed.
+     *
+     * @param input            the stream, positioned at the beginning of the PE file
+     * @param maxBufferedBytes the maximum number of bytes buffered in memory
+     * @return the PEFile
+     * @throws UncheckedIOException     if an I/O error occurs
+     * @throws PEFileException          if the file is not a valid PE file, or the headers exceed the limit
+     * @throws IllegalArgumentException if {@code maxBufferedBytes} is negative
+     */
+    public static @NotNull PEFile open(@NotNull InputStream input, long maxBufferedBytes) {
+        Objects.requireNonNull(input);
+        if (maxBufferedBytes < 0) {
+            throw new IllegalArgumentException("maxBufferedBytes must be non-negative");
         }
+        return wrapUncheckIOException(() -> StreamingLoader.load(input, maxBufferedBytes));
+    }
+
+    /**
+     * Read the headers of a PE file, without parsing the section table and the directories.
+     * <p>
+     * It's much cheaper than {@link #open(Path)}, usually only the first 4 KiB of the file is read,
+     * and the file is closed before return.
+     *
+     * @param path the path of the PE file
+     * @return the summary of the headers
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws PEFileException      if the file is not a valid PE file
+     */
+    public static @NotNull PESummary probe(@NotNull Path path) {
+        return wrapUncheckIOException(() -> {
+            try (var ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                var accessor = new WrappedDataAccessor(new FileChannelDataAccessorV2(ch));
+                return new PESummary(PEHeaders.read(accessor, false));
+            }
+        });
+    }
+
+    /**
+     * Read the headers of a PE file in memory, without parsing the section table and the directories.
+     * <p>
+     * The remaining bytes of the buffer are the content, the buffer is not modified.
+     *
+     * @param data the content of the PE file
+     * @return the summary of the headers
+     * @throws PEFileException if the file is not a valid PE file
+     */
+    public static @NotNull PESummary probe(@NotNull ByteBuffer data) {
+        var accessor = new WrappedDataAccessor(new ByteBufferDataAccessorV2(data));
+        return wrapUncheckIOException(() -> new PESummary(PEHeaders.read(accessor, false)));
     }
 
     private static PEFile safeOpen(WrappedDataAccessor accessor) throws IOException {
+        return safeOpen(accessor, OpenOptions.DEFAULT);
+    }
+
+    private static PEFile safeOpen(WrappedDataAccessor accessor, OpenOptions options) throws IOException {
         try {
-            return open(accessor);
+            return open(accessor, options);
         } catch (Throwable th) {
             try {
                 accessor.close();
@@ -144,56 +394,19 @@ public final class PEFile implements AutoCloseable {
     }
 
     static PEFile open(WrappedDataAccessor accessor) throws IOException {
-        var peBeginAt = seekToCoffHeader(accessor);
-        var data = new byte[4096];
-        var read = accessor.readAtMost(peBeginAt, data);
-        if (read < 24) {
-            throw new PEFileException("Invalid PE file, unexpected EOF during read PE signature and COFF header");
-        }
-        doCheckSignature(I.u32(data, 0));
-        var coffHeader = CoffHeader.parse(data, 4);
-        if (coffHeader.getSizeOfOptionalHeader() + 24 > read) {
-            // refill buffer
-            data = new byte[coffHeader.getSizeOfOptionalHeader() + 24];
-            try {
-                accessor.readFully(peBeginAt, data);
-            } catch (EOFException ignored) {
-                throw new PEFileException("Invalid PE file, unexpected EOF during read optional headers");
-            }
-        }
-        var ptr = 24;
-        var standardHeader = StandardHeader.parse(data, ptr);
-        ptr += standardHeader.length();
-        var optionalHeader = OptionalHeader.parse(data, ptr, standardHeader.isPE32Plus());
-        ptr += optionalHeader.length();
-        var dataDirectory = DataDirectories.parse(data, ptr, optionalHeader.getNumberOfRvaAndSizes());
-        ptr += dataDirectory.length();
-        if (coffHeader.getNumbersOfSections() > 96) {
-            throw new PEFileException("Invalid PE file, too many sections: " +
-                                      Integer.toUnsignedString(coffHeader.getNumbersOfSections()));
-        }
-        var sectionTableChunkSize = SectionTableItem.LENGTH * coffHeader.getNumbersOfSections();
-        if (sectionTableChunkSize + ptr > data.length) {
-            data = new byte[sectionTableChunkSize];
-            try {
-                accessor.readFully(U.add(peBeginAt, ptr), data);
-            } catch (EOFException ignored) {
-                throw new PEFileException("Invalid PE file, unexpected EOF during read section table");
-            }
-            ptr = 0;
-        }
-        var sectionTable = new SectionTableItem[coffHeader.getNumbersOfSections()];
-        for (int i = 0; i < sectionTable.length; i++) {
-            sectionTable[i] = SectionTableItem.parse(data, ptr);
-            ptr += SectionTableItem.LENGTH;
-        }
+        return open(accessor, OpenOptions.DEFAULT);
+    }
 
-        var sections = new Section[coffHeader.getNumbersOfSections()];
-        for (int i = 0; i < sections.length; i++) {
-            var s = sectionTable[i];
-            sections[i] = new Section(s, accessor);
-        }
-        return new PEFile(accessor, sections, coffHeader, standardHeader, optionalHeader, dataDirectory);
+    static PEFile open(WrappedDataAccessor accessor, OpenOptions options) throws IOException {
+        var headers = PEHeaders.read(accessor);
+        return new PEFile(accessor,
+                          headers.sections(accessor),
+                          headers.coffHeader(),
+                          headers.standardHeader(),
+                          headers.optionalHeader(),
+                          headers.dataDirectories(),
+                          List.of(),
+                          options);
     }
 
     private static <R> R wrapUncheckIOException(Wrap<R> callable) {
@@ -216,6 +429,31 @@ public final class PEFile implements AutoCloseable {
         return importTable;
     }
 
+    /**
+     * Returns an object that provides an iterator over the delay-load import table.
+     * <p/>
+     * The returned iterator is not thread-safe.
+     *
+     * @return the object will be unusable after the PEFile is closed
+     */
+    public @NotNull DelayImportTable getDelayImportTable() {
+        return delayImportTable;
+    }
+
+    /**
+     * Returns the bound import directory, the DLLs whose IAT slots are pre-filled with the addresses at link time.
+     * <p>
+     * The directory is read on each call.
+     *
+     * @return the descriptors, empty if the file has no bound import directory
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws PEFileException      if the directory is invalid
+     * @see ImportSnapshot#getBoundAddress(int)
+     */
+    public @Unmodifiable @NotNull List<@NotNull BoundImport> getBoundImports() {
+        return wrapUncheckIOException(() -> BoundImport.read(this));
+    }
+
     /**
      * Returns an object that provides an iterator over the export table.
      * <p/>
@@ -254,11 +492,205 @@ public final class PEFile implements AutoCloseable {
         return List.of(sectionSet.sections);
     }
 
+    /**
+     * Translates a Relative Virtual Address (RVA) to the file offset.
+     * <p>
+     * An RVA inside the headers, i.e. below {@code SizeOfHeaders} and not in any section, is the file offset itself.
+     *
+     * @param rva the RVA, unsigned
+     * @return the file offset, or -1 if the RVA is not backed by the file, e.g. in the uninitialized tail of a section
+     */
+    public long rvaToFileOffset(int rva) {
+        var section = sectionSet.find(rva);
+        if (section != null) {
+            return section.rawOffset(rva, 1);
+        }
+        if (U.lt(rva, optionalHeader.getSizeOfHeaders())) {
+            return Integer.toUnsignedLong(rva);
+        }
+        return -1;
+    }
+
+    /**
+     * Translates a file offset to the Relative Virtual Address (RVA).
+     * <p>
+     * An offset inside the headers, i.e. below {@code SizeOfHeaders} and not in any section, is the RVA itself.
+     *
+     * @param offset the file offset
+     * @return the RVA as an unsigned value, or -1 if the offset is not mapped, e.g. in the overlay
+     */
+    public long fileOffsetToRva(long offset) {
+        if (offset < 0) return -1;
+        var section = sectionSet.findByFileOffset(offset);
+        if (section != null) {
+            var rva = Integer.toUnsignedLong(section.getVirtualAddress()) + offset -
+                      Integer.toUnsignedLong(section.getPointerToRawData());
+            return rva > 0xffffffffL ? -1 : rva;
+        }
+        if (offset < Integer.toUnsignedLong(optionalHeader.getSizeOfHeaders())) {
+            return offset;
+        }
+        return -1;
+    }
+
+    /**
+     * Translates a Virtual Address (VA) to the Relative Virtual Address (RVA), by the {@code ImageBase}.
+     *
+     * @param va the VA, unsigned
+     * @return the RVA as an unsigned value, or -1 if the VA is below the {@code ImageBase} or too far from it
+     */
+    public long vaToRva(long va) {
+        var rva = va - optionalHeader.getImageBase();
+        if (Long.compareUnsigned(va, optionalHeader.getImageBase()) < 0 || Long.compareUnsigned(rva, 0xffffffffL) > 0) {
+            return -1;
+        }
+        return rva;
+    }
+
+    WrappedDataAccessor accessor() {
+        return accessor;
+    }
+
+    /**
+     * Returns a read-only view of the file content {@code [offset, offset + length)}.
+     * <p>
+     * If the file is memory-mapped, the view shares the mapping and no bytes are copied,
+     * otherwise the bytes are copied into a heap buffer.
+     * The byte order of the view is little-endian.
+     * <p>
+     * On Java 22 or later, the view can be turned into a {@code MemorySegment} by {@code MemorySegment.ofBuffer}.
+     * <p>
+     * The behavior of a view after the PEFile is closed depends on the runtime and the access strategy:
+     * <ul>
+     *     <li>On Java 22 or later, accessing a view of a mapping throws {@link IllegalStateException}.</li>
+     *     <li>On Java 17 ~ 21, a view of a {@code MappedByteBuffer} stays readable, the mapping is released by GC
+     *     once all views are unreachable.</li>
+     *     <li>A heap view, copied or of a file read into the heap, is always readable.</li>
+     * </ul>
+     * So don't rely on the exception to detect the use after close.
+     *
+     * @param offset the file offset
+     * @param length the number of bytes
+     * @return the view
+     * @throws UncheckedIOException     if an I/O error occurs, or the range exceeds the end of the file
+     * @throws IllegalArgumentException if {@code offset} or {@code length} is negative
+     */
+    public @NotNull ByteBuffer view(long offset, int length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("offset and length must be non-negative");
+        }
+        return wrapUncheckIOException(() -> accessor.view(offset, length));
+    }
+
+    /**
+     * Computes the message digests of the whole file.
+     * <p>
+     * The file is read once, every chunk is fed to all digests.
+     * If the file is memory-mapped, the digests read from the mapping directly.
+     *
+     * @param algorithms the algorithm names of {@link MessageDigest}, e.g. {@code MD5}, {@code SHA-1}, {@code SHA-256}
+     * @return the digests keyed by the algorithm names, unmodifiable
+     * @throws UncheckedIOException     if an I/O error occurs
+     * @throws IllegalArgumentException if {@code algorithms} is empty, or an algorithm is not supported
+     */
+    public @Unmodifiable @NotNull Map<@NotNull String, byte @NotNull []> hashFile(
+            @NotNull Set<@NotNull String> algorithms) {
+        Hasher.checkAlgorithms(algorithms);
+        return wrapUncheckIOException(() -> Hasher.hash(accessor, 0, -1, algorithms));
+    }
+
+    /**
+     * Computes the message digests of the raw data of each section, on the calling thread.
+     *
+     * @see #hashSections(Set, ForkJoinPool)
+     */
+    public @Unmodifiable @NotNull List<@NotNull Map<@NotNull String, byte @NotNull []>> hashSections(
+            @NotNull Set<@NotNull String> algorithms) {
+        return hashSections(algorithms, null);
+    }
+
+    /**
+     * Computes the message digests of the raw data of each section.
+     * <p>
+     * Each section is read once, every chunk is fed to all digests.
+     * If the file is memory-mapped, the digests read from the mapping directly.
+     * The raw data of a truncated file is hashed up to the end of the file.
+     *
+     * @param algorithms the algorithm names of {@link MessageDigest}, e.g. {@code MD5}, {@code SHA-1}, {@code SHA-256}
+     * @param pool       the pool hashing the sections in parallel, or null to hash them on the calling thread
+     * @return the digests of each section keyed by the algorithm names, aligned with {@link #getSections()} by index,
+     * so the sections with identical headers get their own entries, unmodifiable
+     * @throws UncheckedIOException     if an I/O error occurs
+     * @throws IllegalArgumentException if {@code algorithms} is empty, or an algorithm is not supported
+     */
+    public @Unmodifiable @NotNull List<@NotNull Map<@NotNull String, byte @NotNull []>> hashSections(
+            @NotNull Set<@NotNull String> algorithms, @Nullable ForkJoinPool pool) {
+        Hasher.checkAlgorithms(algorithms);
+        return wrapUncheckIOException(() -> Hasher.hashSections(getSections(), algorithms, pool));
+    }
+
+    /**
+     * Returns the file offset of the overlay, the data appended after the last raw data of the sections.
+     * <p>
+     * The overlay might be empty, e.g. the offset equals to the file size.
+     *
+     * @return the end of the raw data of the sections, or {@code SizeOfHeaders} if no section has raw data
+     */
+    public long getOverlayOffset() {
+        var end = Integer.toUnsignedLong(optionalHeader.getSizeOfHeaders());
+        for (var section : sectionSet.sections) {
+            if (section.getSizeOfRawData() == 0) continue;
+            end = Math.max(end,
+                           Integer.toUnsignedLong(section.getPointerToRawData()) +
+                           Integer.toUnsignedLong(section.getSizeOfRawData()));
+        }
+        return end;
+    }
+
+    /**
+     * Counts the byte values of the overlay, in one pass.
+     *
+     * @return the counts indexed by the unsigned byte value, the length is 256
+     * @throws UncheckedIOException if an I/O error occurs
+     * @see #getOverlayOffset()
+     */
+    public long @NotNull [] overlayHistogram() {
+        return wrapUncheckIOException(() -> ByteStatistics.histogram(accessor, getOverlayOffset(), -1));
+    }
+
+    /**
+     * Returns the Shannon entropy of the overlay, in bits per byte.
+     *
+     * @return the entropy in {@code [0, 8]}, or 0 if there's no overlay
+     * @throws UncheckedIOException if an I/O error occurs
+     * @see #getOverlayOffset()
+     */
+    public double overlayEntropy() {
+        return ByteStatistics.entropy(overlayHistogram());
+    }
+
+    /**
+     * Extracts the printable ASCII and UTF-16LE strings of the whole file, including the overlay, with the
+     * {@linkplain StringExtractor#DEFAULT default options}.
+     * <p>
+     * The file is streamed in chunks and the strings are passed to {@code consumer} as they are found, nothing is
+     * accumulated, so it's suitable for large files.
+     *
+     * @param consumer receives the strings in the order they end
+     * @throws UncheckedIOException if an I/O error occurs
+     * @see StringExtractor#extract(PEFile, Consumer)
+     */
+    public void extractStrings(@NotNull Consumer<? super StringExtractor.@NotNull ExtractedString> consumer) {
+        StringExtractor.DEFAULT.extract(this, consumer);
+    }
+
     /**
      * Close the underlying file.
      * <p>
      * This method will close the underlying file channel.
      * If the file channel is already closed, this method will do nothing.
+     * A file mapped by {@link OpenOptions.AccessStrategy#MMAP} before JDK 22 stays mapped, and locked on Windows,
+     * until the mapping is garbage collected.
      * After this method is called, the PEFile instance is no longer usable, some methods might throw
      * {@link IllegalStateException} when invoked.
      *
@@ -269,8 +701,32 @@ public final class PEFile implements AutoCloseable {
         accessor.close();
     }
 
+    /**
+     * Returns the structures that could not be reached by {@link #open(InputStream, long)}.
+     *
+     * @return the descriptions of the structures, empty if the file is opened by other methods
+     */
+    public @Unmodifiable @NotNull List<@NotNull String> getUnreachableStructures() {
+        return unreachableStructures;
+    }
+
+    /**
+     * Returns the root of the resource tree.
+     * <p>
+     * If the file is opened with {@link OpenOptions.Builder#lazyResourceRoot(boolean)},
+     * the root is parsed at the first call.
+     *
+     * @return the root, or null if the file has no resource
+     * @throws PEFileException      if the resource directory is invalid, only if it's parsed lazily
+     * @throws UncheckedIOException if an I/O error occurs, only if it's parsed lazily
+     */
     public @Nullable ResourceNode getResourceRoot() {
-        return resourceRoot;
+        var root = (Object) RESOURCE_ROOT.getAcquire(this);
+        if (root == null) {
+            root = wrapUncheckIOException(this::readResourceRoot);
+            RESOURCE_ROOT.setRelease(this, root);
+        }
+        return root == NO_RESOURCE_ROOT ? null : (ResourceNode) root;
     }
 
     /**
@@ -301,54 +757,118 @@ public final class PEFile implements AutoCloseable {
         var beginRva = dataDirectories.getResourceTable().getRva();
 
         return new AbstractList<>() {
+            private final Object[] nodes = new Object[size()];
+
             @Override
             public ResourceNode get(int index) {
                 Objects.checkIndex(index, size());
-                var data = new byte[8];
-                var offset = index * 8 + ImageResourceDirectory.LENGTH;
+                var node = nodes[index];
+                if (node instanceof ResourceNode) return (ResourceNode) node;
                 try {
-                    rsrcSection.copyBytes(data, beginRva + offset + dirNode.irdOffset, 0, data.length);
-                    var namePtr = I.u32(data, 0);
-                    var offsetToData = I.u32(data, 4);
-                    var resourceID = 0;
-                    String name;
-                    if (namePtr < 0) {
-                        namePtr &= 0x7fffffff;
-                        var lenBuf = new byte[2];
-                        sectionSet.readBytes(lenBuf, namePtr + beginRva);
-                        var len = Short.toUnsignedInt(I.u16(lenBuf, 0));
-                        if (len > 4096) {
-                            resourceNameTooLong(len, offset);
+                    if (node == null) {
+                        var begin = index / CHILDREN_BLOCK * CHILDREN_BLOCK;
+                        var count = Math.min(CHILDREN_BLOCK, size() - begin);
+                        try {
+                            load(begin, count, false);
+                        } catch (IOException | RuntimeException ignored) {
+                            // the entries of the block are unreadable as a whole, they're read one by one below
                         }
-                        if (len == 0) {
-                            resourceNameZeroLength(offset);
+                        for (int i = begin; i < begin + count; i++) {
+                            if (nodes[i] == null) nodes[i] = FAILED_CHILD;
                         }
-                        var nameBuf = new byte[len * 2];
-                        sectionSet.readBytes(nameBuf, namePtr + beginRva + 2);
-                        name = new String(nameBuf, 0, len * 2, StandardCharsets.UTF_16LE);
-                    } else {
-                        resourceID = namePtr;
-                        name = "<ID:" + Integer.toUnsignedLong(resourceID) + ">";
-                    }
-                    Object newTable;
-                    if (offsetToData < 0) {
-                        // is directory
-                        offsetToData = offsetToData & 0x7fffffff;
-                        var dataBuf = new byte[ImageResourceDirectory.LENGTH];
-                        rsrcSection.copyBytes(dataBuf, beginRva + offsetToData, 0, dataBuf.length);
-                        newTable = ImageResourceDirectory.parse(dataBuf, 0);
-                    } else {
-                        // is leaf, data entry
-                        var dataBuf = new byte[ImageResourceDataEntry.LENGTH];
-                        rsrcSection.copyBytes(dataBuf, beginRva + offsetToData, 0, dataBuf.length);
-                        newTable = ImageResourceDataEntry.parse(dataBuf, 0);
+                        node = nodes[index];
+                        if (node instanceof ResourceNode) return (ResourceNode) node;
                     }
-                    return new ResourceNode(PEFile.this, name, resourceID, offsetToData, newTable);
+                    // the entry is broken, read it alone again, so only this index fails
+                    load(index, 1, true);
+                    return (ResourceNode) nodes[index];
                 } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
             }
 
+            /**
+             * Loads the children {@code [begin, begin + count)}, the entries, the child headers and the names are
+             * read in batches by the batch of the thread.
+             *
+             * @param strict whether to throw the failure of a child, otherwise the child is left unloaded
+             */
+            private void load(int begin, int count, boolean strict) throws IOException {
+                var entryOffset = begin * 8 + ImageResourceDirectory.LENGTH;
+                var batch = ReadBatch.borrow(rsrcSection.accessor());
+                try {
+                    var entriesHandle = batch.add(rsrcSection, beginRva + entryOffset + dirNode.irdOffset, count * 8);
+                    batch.execute();
+                    batch.checkFully(entriesHandle);
+                    var entries = batch.buffer(entriesHandle);
+                    var base = batch.offset(entriesHandle);
+                    // a head, and a name if it's named, for each child, the handles are assigned in order
+                    for (int i = 0; i < count; i++) {
+                        var namePtr = I.u32(entries, base + i * 8);
+                        var offsetToData = I.u32(entries, base + i * 8 + 4);
+                        var length = offsetToData < 0 ? ImageResourceDirectory.LENGTH : ImageResourceDataEntry.LENGTH;
+                        batch.add(rsrcSection, beginRva + (offsetToData & 0x7fffffff), length);
+                        var window = nameWindow(namePtr);
+                        if (window > 0) batch.add(rsrcSection, (namePtr & 0x7fffffff) + beginRva, window);
+                    }
+                    batch.execute();
+                    var handle = entriesHandle + 1;
+                    for (int i = 0; i < count; i++) {
+                        var namePtr = I.u32(entries, base + i * 8);
+                        var head = handle++;
+                        var name = nameWindow(namePtr) > 0 ? handle++ : -1;
+                        try {
+                            nodes[begin + i] = parse(entries, base + i * 8, entryOffset + i * 8, batch, head, name);
+                        } catch (IOException | RuntimeException e) {
+                            if (strict) throw e;
+                        }
+                    }
+                } finally {
+                    batch.release();
+                }
+            }
+
+            /**
+             * @return the bytes of the name prefetched with the entry, 0 if it isn't named or the name isn't in the
+             * raw data
+             */
+            private int nameWindow(int namePtr) {
+                if (namePtr >= 0) return 0;
+                var nameRva = (namePtr & 0x7fffffff) + beginRva;
+                var rawEnd = Integer.toUnsignedLong(rsrcSection.getVirtualAddress()) +
+                             Integer.toUnsignedLong(rsrcSection.getSizeOfRawData());
+                var window = (int) Math.min(RESOURCE_NAME_WINDOW, rawEnd - Integer.toUnsignedLong(nameRva));
+                return window >= 2 && rsrcSection.rawOffset(nameRva, window) >= 0 ? window : 0;
+            }
+
+            private ResourceNode parse(ByteBuffer entries, int entry, int offset, ReadBatch batch, int head,
+                                       int window) throws IOException {
+                var namePtr = I.u32(entries, entry);
+                var offsetToData = I.u32(entries, entry + 4);
+                var resourceID = 0;
+                String name;
+                if (namePtr < 0) {
+                    namePtr &= 0x7fffffff;
+                    name = readResourceName(batch, window, namePtr + beginRva, offset);
+                } else {
+                    resourceID = namePtr;
+                    name = "<ID:" + Integer.toUnsignedLong(resourceID) + ">";
+                }
+                Object newTable;
+                batch.checkFully(head);
+                var dataBuf = batch.buffer(head);
+                var dataOffset = batch.offset(head);
+                if (offsetToData < 0) {
+                    // is directory
+                    offsetToData = offsetToData & 0x7fffffff;
+                    newTable = ImageResourceDirectory.parse(dataBuf, dataOffset);
+                } else {
+                    // is leaf, data entry
+                    newTable = ImageResourceDataEntry.parse(dataBuf, dataOffset);
+                }
+                return new ResourceNode(PEFile.this, name, resourceID, offsetToData, newTable);
+            }
+
             @Override
             public int size() {
                 return table.numberOfNamedEntries() + table.numberOfIdEntries();
@@ -356,6 +876,54 @@ public final class PEFile implements AutoCloseable {
         };
     }
 
+    /**
+     * Reads the length-prefixed UTF-16LE resource name, from the prefetched window if it contains the whole name.
+     */
+    private String readResourceName(ReadBatch batch, int window, int nameRva, int entryOffset) throws IOException {
+        int len;
+        if (window >= 0) {
+            len = Short.toUnsignedInt(I.u16(batch.buffer(window), batch.offset(window)));
+        } else {
+            var lenBuf = Scratch.bytes(2);
+            sectionSet.readBytes(lenBuf, nameRva, 0, 2);
+            len = Short.toUnsignedInt(I.u16(lenBuf, 0));
+        }
+        if (len > 4096) {
+            resourceNameTooLong(len, entryOffset);
+        }
+        if (len == 0) {
+            resourceNameZeroLength(entryOffset);
+        }
+        var nameBuf = Scratch.bytes(len * 2);
+        if (window >= 0 && batch.available(window) >= 2 + len * 2) {
+            batch.buffer(window).get(batch.offset(window) + 2, nameBuf, 0, len * 2);
+        } else {
+            sectionSet.readBytes(nameBuf, nameRva + 2, 0, len * 2);
+        }
+        return new String(nameBuf, 0, len * 2, StandardCharsets.UTF_16LE);
+    }
+
+    /**
+     * List children of a directory node without blocking the caller.
+     * <p>
+     * For a PEFile opened by {@link #openAsync(Path)}, the entries of the directory, the headers and the names of the
+     * children are prefetched by async reads, then the children are parsed from memory.
+     * Otherwise, the children are read on the calling thread, and the returned future is already completed.
+     * <p>
+     * The future completes exceptionally with the exceptions listed in {@link #listChildren(ResourceNode)}.
+     *
+     * @param dirNode the directory node
+     * @return the future of the children, unmodifiable and in memory
+     * @throws IllegalArgumentException if the dirNode does not belong to this PEFile
+     */
+    public @NotNull CompletableFuture<@NotNull @Unmodifiable List<@NotNull ResourceNode>> listChildrenAsync(
+            @NotNull ResourceNode dirNode) {
+        if (dirNode.peFile != this) {
+            throw new IllegalArgumentException("ResourceNode does not belong to this PEFile");
+        }
+        return AsyncLoader.listChildren(this, dirNode);
+    }
+
     private void resourceNameZeroLength(int entryOffset) {
         throw new PEFileException("Resource name zero length at offset: " + Integer.toUnsignedLong(entryOffset));
     }
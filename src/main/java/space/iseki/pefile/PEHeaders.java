@@ -0,0 +1,115 @@
+package space.iseki.pefile;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The headers of a PE file, from the PE signature to the end of the section table.
+ *
+ * @param sectionTableEnd the file offset just after the section table
+ */
+record PEHeaders(CoffHeader coffHeader,
+                 StandardHeader standardHeader,
+                 OptionalHeader optionalHeader,
+                 DataDirectories dataDirectories,
+                 SectionTableItem[] sectionTable,
+                 long sectionTableEnd) {
+    static final int MAX_SECTIONS = 96;
+
+    private static void doCheckSignature(int peSignature) {
+        if (peSignature != PEFile.PE_SIGNATURE_LE) {
+            throw new PEFileException("Invalid PE signature: " + U.hex(peSignature));
+        }
+    }
+
+    static PEHeaders read(WrappedDataAccessor accessor) throws IOException {
+        return read(accessor, true);
+    }
+
+    /**
+     * @param withSectionTable false to skip the section table, the {@link #sectionTable()} will be empty
+     */
+    static PEHeaders read(WrappedDataAccessor accessor, boolean withSectionTable) throws IOException {
+        // the DOS header and the PE headers are usually inside the first page
+        var head = accessor.viewAtMost(0, 4096);
+        if (head.remaining() < 0x40) {
+            throw new PEFileException("Invalid PE file, unexpected EOF during seek to COFF header");
+        }
+        var peBeginAt = I.u32L(head, 0x3c);
+        ByteBuffer data;
+        if (peBeginAt + 24 <= head.remaining()) {
+            data = head.slice((int) peBeginAt, head.remaining() - (int) peBeginAt).order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            data = accessor.viewAtMost(peBeginAt, 4096);
+        }
+        if (data.remaining() < 4) {
+            throw new PEFileException("Invalid PE file, unexpected EOF during seek to COFF header");
+        }
+        if (data.remaining() < 24) {
+            throw new PEFileException("Invalid PE file, unexpected EOF during read PE signature and COFF header");
+        }
+        doCheckSignature(I.u32(data, 0));
+        var coffHeader = CoffHeader.parse(data, 4);
+        if (coffHeader.getNumbersOfSections() > MAX_SECTIONS) {
+            throw new PEFileException("Invalid PE file, too many sections: " +
+                                      Integer.toUnsignedString(coffHeader.getNumbersOfSections()));
+        }
+        var optionalEnd = coffHeader.getSizeOfOptionalHeader() + 24;
+        var sectionTableChunkSize = withSectionTable ? SectionTableItem.LENGTH * coffHeader.getNumbersOfSections() : 0;
+        ByteBuffer sectionData = null;
+        if (optionalEnd + sectionTableChunkSize > data.remaining()) {
+            // refill the optional headers and the section table, they are adjacent so it's a single read
+            var batch = new ReadBatch(accessor);
+            var headersRange = batch.add(peBeginAt, optionalEnd);
+            var sectionTableRange = batch.add(peBeginAt + optionalEnd, sectionTableChunkSize);
+            batch.execute();
+            try {
+                data = batch.dataFully(headersRange);
+            } catch (EOFException ignored) {
+                throw new PEFileException("Invalid PE file, unexpected EOF during read optional headers");
+            }
+            sectionData = batch.data(sectionTableRange);
+        }
+        var ptr = 24;
+        var standardHeader = StandardHeader.parse(data, ptr);
+        ptr += standardHeader.length();
+        var optionalHeader = OptionalHeader.parse(data, ptr, standardHeader.isPE32Plus());
+        ptr += optionalHeader.length();
+        var dataDirectory = DataDirectories.parse(data, ptr, optionalHeader.getNumberOfRvaAndSizes());
+        ptr += dataDirectory.length();
+        var sectionTableBegin = U.add(peBeginAt, ptr);
+        if (sectionTableChunkSize + ptr <= data.remaining()) {
+            sectionData = data;
+        } else if (sectionData != null && ptr == optionalEnd && sectionData.remaining() == sectionTableChunkSize) {
+            ptr = 0;
+        } else {
+            try {
+                sectionData = accessor.view(sectionTableBegin, sectionTableChunkSize);
+            } catch (EOFException ignored) {
+                throw new PEFileException("Invalid PE file, unexpected EOF during read section table");
+            }
+            ptr = 0;
+        }
+        var sectionTable = new SectionTableItem[withSectionTable ? coffHeader.getNumbersOfSections() : 0];
+        for (int i = 0; i < sectionTable.length; i++) {
+            sectionTable[i] = SectionTableItem.parse(sectionData, ptr);
+            ptr += SectionTableItem.LENGTH;
+        }
+        return new PEHeaders(coffHeader,
+                             standardHeader,
+                             optionalHeader,
+                             dataDirectory,
+                             sectionTable,
+                             sectionTableBegin + sectionTableChunkSize);
+    }
+
+    Section[] sections(WrappedDataAccessor accessor) {
+        var sections = new Section[sectionTable.length];
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = new Section(sectionTable[i], accessor);
+        }
+        return sections;
+    }
+}
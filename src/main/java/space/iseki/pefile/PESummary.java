@@ -0,0 +1,97 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * The headers of a PE file, returned by {@link PEFile#probe(java.nio.file.Path)}.
+ * <p>
+ * It's immutable and holds no reference to the file, the section table and the directories are not parsed.
+ */
+public final class PESummary {
+    private final CoffHeader coffHeader;
+    private final StandardHeader standardHeader;
+    private final OptionalHeader optionalHeader;
+    private final DataDirectories dataDirectories;
+
+    PESummary(@NotNull PEHeaders headers) {
+        this.coffHeader = headers.coffHeader();
+        this.standardHeader = headers.standardHeader();
+        this.optionalHeader = headers.optionalHeader();
+        this.dataDirectories = headers.dataDirectories();
+    }
+
+    public @NotNull CoffHeader getCoffHeader() {
+        return coffHeader;
+    }
+
+    public @NotNull StandardHeader getStandardHeader() {
+        return standardHeader;
+    }
+
+    public @NotNull OptionalHeader getOptionalHeader() {
+        return optionalHeader;
+    }
+
+    public @NotNull DataDirectories getDataDirectories() {
+        return dataDirectories;
+    }
+
+    /**
+     * @return the machine type
+     * @see MachineTypes
+     */
+    public short getMachine() {
+        return coffHeader.getMachine();
+    }
+
+    /**
+     * @return true if the file is PE32+
+     */
+    public boolean isPE32Plus() {
+        return standardHeader.isPE32Plus();
+    }
+
+    /**
+     * @return the subsystem
+     * @see WindowsSubsystems
+     */
+    public short getSubsystem() {
+        return optionalHeader.getSubsystem();
+    }
+
+    /**
+     * @return true if the file is a DLL
+     * @see Characteristics#IMAGE_FILE_DLL
+     */
+    public boolean isDll() {
+        return (coffHeader.getCharacteristics() & Characteristics.IMAGE_FILE_DLL) != 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PESummary that = (PESummary) o;
+        return coffHeader.equals(that.coffHeader) &&
+               standardHeader.equals(that.standardHeader) &&
+               optionalHeader.equals(that.optionalHeader) &&
+               dataDirectories.equals(that.dataDirectories);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(coffHeader, standardHeader, optionalHeader, dataDirectories);
+    }
+
+    @Override
+    public String toString() {
+        return U.structure("PESummary",
+                           U.field("coffHeader", coffHeader),
+                           U.field("standardHeader", standardHeader),
+                           U.field("optionalHeader", optionalHeader),
+                           U.field("dataDirectories", dataDirectories));
+    }
+}
@@ -0,0 +1,144 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An accessor serving the prefetched regions from memory, and reading others from the delegate.
+ * <p>
+ * Regions are prefetched by the async read of the delegate, so the async API can parse the structures without
+ * blocking on I/O.
+ * The regions are published as immutable snapshots, readers don't need any lock.
+ * <p>
+ * The total size of the regions of a file is limited by {@link #DEFAULT_BUDGET}, so many files can be in flight,
+ * the ranges beyond the budget are not prefetched, they're read by the blocking fallback on demand.
+ */
+final class PrefetchDataAccessorV2 implements DataAccessorV2 {
+    static final int DEFAULT_BUDGET = 1 << 20;
+    private final AsyncFileChannelDataAccessorV2 delegate;
+    private final AtomicLong reserved = new AtomicLong();
+    private final long budget;
+    private volatile Regions regions = new Regions(new long[0], new byte[0][]);
+    /**
+     * The end of file, if a prefetch has reached it.
+     */
+    private volatile long end = Long.MAX_VALUE;
+
+    PrefetchDataAccessorV2(@NotNull AsyncFileChannelDataAccessorV2 delegate) {
+        this(delegate, DEFAULT_BUDGET);
+    }
+
+    PrefetchDataAccessorV2(@NotNull AsyncFileChannelDataAccessorV2 delegate, long budget) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.budget = budget;
+    }
+
+    /**
+     * Reads the range into memory, the range is shorter if the end of file reached.
+     * <p>
+     * Nothing is read if the range exceeds the remaining budget.
+     *
+     * @return completes when the region is available, or at once if it's not prefetched
+     */
+    CompletableFuture<Void> prefetch(long position, int length) {
+        if (length <= 0 || regions.indexOf(position, length) >= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (reserved.addAndGet(length) > budget) {
+            reserved.addAndGet(-length);
+            return CompletableFuture.completedFuture(null);
+        }
+        var buffer = ByteBuffer.allocate(length);
+        return delegate.readFullyAsync(buffer, position).thenAccept(n -> {
+            if (n < length) end = Math.min(end, position + n);
+            if (n > 0) add(position, n == length ? buffer.array() : Arrays.copyOf(buffer.array(), n));
+        });
+    }
+
+    private synchronized void add(long begin, byte[] data) {
+        var old = regions;
+        var i = Arrays.binarySearch(old.begins, begin);
+        if (i >= 0 && old.regions[i].length >= data.length) return;
+        var at = i >= 0 ? i : -i - 1;
+        var n = old.begins.length + (i >= 0 ? 0 : 1);
+        var begins = new long[n];
+        var datas = new byte[n][];
+        System.arraycopy(old.begins, 0, begins, 0, at);
+        System.arraycopy(old.regions, 0, datas, 0, at);
+        begins[at] = begin;
+        datas[at] = data;
+        var rest = old.begins.length - at - (i >= 0 ? 1 : 0);
+        System.arraycopy(old.begins, old.begins.length - rest, begins, at + 1, rest);
+        System.arraycopy(old.regions, old.begins.length - rest, datas, at + 1, rest);
+        regions = new Regions(begins, datas);
+    }
+
+    /**
+     * @return the number of bytes reserved for the prefetched regions
+     */
+    long prefetched() {
+        return reserved.get();
+    }
+
+    @Override
+    public int read(@NotNull ByteBuffer buffer, long position) throws IOException {
+        var snapshot = regions;
+        var i = snapshot.indexOf(position, 1);
+        if (i < 0) {
+            if (position >= end && buffer.hasRemaining() && delegate.isOpen()) return -1;
+            return delegate.read(buffer, position);
+        }
+        if (!delegate.isOpen()) {
+            throw new IllegalStateException("The file was closed");
+        }
+        var region = snapshot.regions[i];
+        var offset = (int) (position - snapshot.begins[i]);
+        var bytesToCopy = Math.min(buffer.remaining(), region.length - offset);
+        buffer.put(region, offset, bytesToCopy);
+        return bytesToCopy;
+    }
+
+    @Override
+    public ByteBuffer view(long position, int length) {
+        var snapshot = regions;
+        var i = snapshot.indexOf(position, length);
+        if (i < 0) return null;
+        if (!delegate.isOpen()) {
+            throw new IllegalStateException("The file was closed");
+        }
+        var offset = (int) (position - snapshot.begins[i]);
+        return ByteBuffer.wrap(snapshot.regions[i], offset, length).slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public void close() throws Exception {
+        regions = new Regions(new long[0], new byte[0][]);
+        delegate.close();
+    }
+
+    private record Regions(long[] begins, byte[][] regions) {
+        /**
+         * @return the index of the region containing {@code length} bytes since {@code position}, or -1
+         */
+        int indexOf(long position, long length) {
+            var i = Arrays.binarySearch(begins, position);
+            if (i < 0) i = -i - 2;
+            // regions might overlap, a region before might cover the range, there are only a few regions
+            for (; i >= 0; i--) {
+                if (position + length <= begins[i] + regions[i].length) return i;
+            }
+            return -1;
+        }
+    }
+}
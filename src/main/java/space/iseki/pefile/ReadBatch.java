@@ -0,0 +1,333 @@
+package space.iseki.pefile;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Collects small reads and executes them as a few larger reads.
+ * <p>
+ * The pending ranges are sorted by the file offset, and ranges separated by at most {@code gap} bytes are merged into
+ * one read, the bytes in between are read and dropped.
+ * It's cheaper than another syscall or round trip when the gap is small.
+ * If the accessor can't share its memory, a merged read is read into a single buffer, or for a backend with its own
+ * vectored read, a single vectored read with a buffer for each range and each gap.
+ * <p>
+ * Ranges are identified by the handles returned by {@code add}, the data of a range is a part of a shared buffer,
+ * see {@link #buffer(int)} and {@link #offset(int)}, so no object is allocated for each range.
+ * <p>
+ * Not thread-safe, a batch is created, filled and executed by a single thread.
+ * <p>
+ * A hot path can {@link #borrow(WrappedDataAccessor)} the batch of the thread instead of creating one, it copies the
+ * ranges into a buffer owned by the batch even if the accessor could share its memory, so filling and executing it
+ * allocates nothing once the buffer is large enough.
+ */
+final class ReadBatch {
+    static final int DEFAULT_GAP = 256;
+    private static final int MAX_SPAN = 1 << 20;
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final int MAX_OWNED_SIZE = 64 * 1024;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    private static final ThreadLocal<ReadBatch> LOCAL = ThreadLocal.withInitial(ReadBatch::new);
+    private WrappedDataAccessor accessor;
+    private final int gap;
+    // only for the batch of a thread, the merged reads are copied into owned[0, ownedEnd)
+    private final boolean local;
+    private boolean borrowed;
+    private ByteBuffer owned;
+    private ByteBuffer ownedView;
+    private int ownedEnd;
+    private int size;
+    private long[] positions;
+    private int[] lengths;
+    private Section[] sections;
+    private int[] rvas;
+    private ByteBuffer[] buffers;
+    private int[] offsets;
+    private int[] available;
+    private int[] order;
+
+    ReadBatch(WrappedDataAccessor accessor) {
+        this(accessor, DEFAULT_GAP, DEFAULT_CAPACITY);
+    }
+
+    ReadBatch(WrappedDataAccessor accessor, int gap) {
+        this(accessor, gap, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the expected number of ranges, the batch grows if more are added
+     */
+    ReadBatch(WrappedDataAccessor accessor, int gap, int capacity) {
+        this(accessor, gap, capacity, false);
+    }
+
+    private ReadBatch() {
+        this(null, DEFAULT_GAP, DEFAULT_CAPACITY, true);
+    }
+
+    private ReadBatch(WrappedDataAccessor accessor, int gap, int capacity, boolean local) {
+        if (gap < 0) throw new IllegalArgumentException("gap must be non-negative: " + gap);
+        this.accessor = accessor;
+        this.gap = gap;
+        this.local = local;
+        capacity = Math.max(1, capacity);
+        this.positions = new long[capacity];
+        this.lengths = new int[capacity];
+        this.sections = new Section[capacity];
+        this.rvas = new int[capacity];
+        this.buffers = new ByteBuffer[capacity];
+        this.offsets = new int[capacity];
+        this.available = new int[capacity];
+        this.order = new int[capacity];
+    }
+
+    /**
+     * Borrows the batch of the current thread, with the default gap.
+     * <p>
+     * The batch must be {@link #release() released} before it's borrowed again, the data of its ranges must not
+     * escape, it's overwritten by the next borrow.
+     * If the batch of the thread is already borrowed, a new batch is returned.
+     */
+    static ReadBatch borrow(WrappedDataAccessor accessor) {
+        var batch = LOCAL.get();
+        if (batch.borrowed) return new ReadBatch(accessor);
+        batch.borrowed = true;
+        batch.accessor = accessor;
+        return batch;
+    }
+
+    /**
+     * Return a borrowed batch, it's cleared.
+     */
+    void release() {
+        clear();
+        if (!local) return;
+        accessor = null;
+        if (owned != null && owned.capacity() > MAX_OWNED_SIZE) owned = ownedView = null;
+        borrowed = false;
+    }
+
+    /**
+     * Add a range of the file, the data is available after {@link #execute()}.
+     *
+     * @return the handle of the range
+     */
+    int add(long position, int length) {
+        return add(position, length, null, 0);
+    }
+
+    /**
+     * Add a range of the section by RVA.
+     * <p>
+     * The range is read as {@link Section#view(int, int)} does if it isn't inside the raw data.
+     *
+     * @return the handle of the range
+     */
+    int add(Section section, int rva, int length) {
+        var position = section.rawOffset(rva, length);
+        return add(position, length, position < 0 ? section : null, rva);
+    }
+
+    private int add(long position, int length, Section section, int rva) {
+        if (size == positions.length) {
+            var n = size * 2;
+            positions = Arrays.copyOf(positions, n);
+            lengths = Arrays.copyOf(lengths, n);
+            sections = Arrays.copyOf(sections, n);
+            rvas = Arrays.copyOf(rvas, n);
+            buffers = Arrays.copyOf(buffers, n);
+            offsets = Arrays.copyOf(offsets, n);
+            available = Arrays.copyOf(available, n);
+            order = Arrays.copyOf(order, n);
+        }
+        positions[size] = position;
+        lengths[size] = length;
+        sections[size] = section;
+        rvas[size] = rva;
+        buffers[size] = null;
+        return size++;
+    }
+
+    /**
+     * Drop all ranges, the batch can be filled again.
+     */
+    void clear() {
+        Arrays.fill(sections, 0, size, null);
+        Arrays.fill(buffers, 0, size, null);
+        size = 0;
+        ownedEnd = 0;
+    }
+
+    /**
+     * Read all pending ranges.
+     *
+     * @return the number of merged reads issued to the accessor
+     */
+    int execute() throws IOException {
+        var n = 0;
+        for (int i = 0; i < size; i++) {
+            if (buffers[i] != null) continue;
+            if (sections[i] != null) {
+                set(i, sections[i].view(rvas[i], lengths[i]), 0);
+                continue;
+            }
+            // insertion sort, the ranges are usually added almost in order
+            var j = n++;
+            while (j > 0 && positions[order[j - 1]] > positions[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+        var reads = 0;
+        for (int i = 0; i < n; ) {
+            var begin = positions[order[i]];
+            var end = begin + lengths[order[i]];
+            var j = i + 1;
+            while (j < n) {
+                var next = order[j];
+                var nextEnd = Math.max(end, positions[next] + lengths[next]);
+                if (positions[next] - end > gap || nextEnd - begin > MAX_SPAN) break;
+                end = nextEnd;
+                j++;
+            }
+            var base = 0;
+            ByteBuffer data;
+            if (local) {
+                data = readOwned(begin, (int) (end - begin));
+                base = ownedEnd - (int) (end - begin);
+            } else {
+                data = accessor.viewAtMostIfShared(begin, (int) (end - begin));
+                if (data == null) data = readMerged(i, j, begin, (int) (end - begin));
+            }
+            reads++;
+            for (; i < j; i++) {
+                set(order[i], data, base + (int) (positions[order[i]] - begin));
+            }
+        }
+        return reads;
+    }
+
+    /**
+     * Reads the merged ranges {@code order[from, to)} by a vectored read, the buffers partition {@code [begin,
+     * begin + length)}.
+     */
+    private ByteBuffer readMerged(int from, int to, long begin, int length) throws IOException {
+        var size = accessor.size();
+        if (size >= 0) length = (int) Math.max(0, Math.min(length, size - begin));
+        var buf = ByteBuffer.allocate(length);
+        if (to - from == 1 || !accessor.hasVectoredRead()) {
+            // nothing to gain from splitting
+            accessor.readAtMost(begin, buf);
+            return buf.flip().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        }
+        var parts = new ByteBuffer[(to - from) * 2];
+        var count = 0;
+        var cursor = 0;
+        for (int i = from; i < to && cursor < length; i++) {
+            var rangeBegin = (int) (positions[order[i]] - begin);
+            var rangeEnd = Math.min(rangeBegin + lengths[order[i]], length);
+            if (rangeBegin > cursor) {
+                parts[count++] = buf.slice(cursor, rangeBegin - cursor);
+                cursor = rangeBegin;
+            }
+            if (rangeEnd > cursor) {
+                parts[count++] = buf.slice(cursor, rangeEnd - cursor);
+                cursor = rangeEnd;
+            }
+        }
+        var n = count == 0 ? 0 : Math.max(accessor.readAtMost(begin, Arrays.copyOf(parts, count)), 0);
+        return buf.limit((int) n).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads a merged range into the owned buffer after the previous ranges, the buffer is replaced if it's full,
+     * the ranges read before keep the replaced one.
+     *
+     * @return the read-only view of the owned buffer, limited to the end of the range, which begins at
+     * {@code ownedEnd - length} after the call
+     */
+    private ByteBuffer readOwned(long begin, int length) throws IOException {
+        if (owned == null || owned.capacity() - ownedEnd < length) {
+            var capacity = Math.max(length, owned == null ? 512 : owned.capacity() * 2);
+            owned = ByteBuffer.allocate(capacity);
+            ownedView = owned.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+            ownedEnd = 0;
+        }
+        owned.limit(ownedEnd + length).position(ownedEnd);
+        var n = Math.max(accessor.readAtMost(begin, owned), 0);
+        // the view only grows until the batch is cleared, the limit is still valid for the ranges read before
+        ownedView.limit(ownedEnd + n);
+        ownedEnd += length;
+        return ownedView;
+    }
+
+    private void set(int handle, ByteBuffer data, int offset) {
+        var n = Math.max(0, Math.min(lengths[handle], data.remaining() - offset));
+        buffers[handle] = n == 0 ? EMPTY : data;
+        offsets[handle] = n == 0 ? 0 : offset;
+        available[handle] = n;
+    }
+
+    private void checkExecuted(int handle) {
+        if (buffers[handle] == null) throw new IllegalStateException("The batch is not executed");
+    }
+
+    /**
+     * Returns the read-only, little-endian buffer containing the range, use absolute gets only.
+     * <p>
+     * The buffer might be shared with other ranges, the range begins at {@link #offset(int)}.
+     */
+    ByteBuffer buffer(int handle) {
+        checkExecuted(handle);
+        return buffers[handle];
+    }
+
+    /**
+     * @return the offset of the range in {@link #buffer(int)}
+     */
+    int offset(int handle) {
+        checkExecuted(handle);
+        return offsets[handle];
+    }
+
+    /**
+     * @return the number of bytes of the range, less than the requested if the end of file reached
+     */
+    int available(int handle) {
+        checkExecuted(handle);
+        return available[handle];
+    }
+
+    /**
+     * Returns a read-only, little-endian view of the range, it might be shorter if the end of file reached.
+     */
+    ByteBuffer data(int handle) {
+        checkExecuted(handle);
+        return buffers[handle].slice(offsets[handle], available[handle]).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Same as {@link #data(int)}, but requires the full range.
+     *
+     * @throws EOFException if the end of file reached
+     */
+    ByteBuffer dataFully(int handle) throws EOFException {
+        checkFully(handle);
+        return data(handle);
+    }
+
+    /**
+     * @throws EOFException if the range is not fully available
+     */
+    void checkFully(int handle) throws EOFException {
+        checkExecuted(handle);
+        if (available[handle] != lengths[handle]) {
+            throw new EOFException("Expected " + lengths[handle] + " bytes, but only read " + available[handle] +
+                                   " bytes");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package space.iseki.pefile;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Per-thread scratch buffer for the transient bytes of the parsing, e.g. a name before it becomes a {@link String}.
+ * <p>
+ * It keeps the hot paths, like iterating import symbols and resource nodes, from allocating an array for each call.
+ * <p>
+ * The content is only valid until the next borrow by the same thread, so only the leaf code may borrow it,
+ * and the borrowed buffer must not escape.
+ */
+final class Scratch {
+    private static final int INITIAL_SIZE = 512;
+    private static final int MAX_POOLED_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+
+    private Scratch() {
+    }
+
+    /**
+     * Returns a cleared, little-endian heap buffer with at least {@code minSize} bytes capacity.
+     */
+    static ByteBuffer buffer(int minSize) {
+        var buffer = BUFFER.get();
+        if (buffer.capacity() < minSize) {
+            buffer = ByteBuffer.allocate(Math.max(minSize, buffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() <= MAX_POOLED_SIZE) BUFFER.set(buffer);
+        }
+        return buffer.clear();
+    }
+
+    /**
+     * Returns an array with at least {@code minSize} bytes, the content is unspecified.
+     */
+    static byte[] bytes(int minSize) {
+        return buffer(minSize).array();
+    }
+
+}
@@ -3,16 +3,18 @@ package space.iseki.pefile;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 public final class Section {
     private static final Pattern REPLACE = Pattern.compile("^SectionTableItem");
-    private static final byte[] EMPTY = new byte[0];
     private final int pointerToRawData;
     private final int sizeOfRawData;
     private final int virtualAddress;
@@ -90,8 +92,155 @@ public final class Section {
         accessor.readFully(readBegin, buf, U.sub(U.add(off, beginAt), rva), readLen);
     }
 
+    /**
+     * Returns a read-only view of {@code len} bytes since {@code rva}.
+     * <p>
+     * If the range is inside the raw data, the view borrows the underlying mapping when possible.
+     * Otherwise, the bytes are copied as {@link #copyBytes(byte[], int, int, int)} does, the bytes out of the raw data
+     * are zero.
+     */
+    ByteBuffer view(int rva, int len) throws IOException {
+        var pos = rawOffset(rva, len);
+        if (pos >= 0) {
+            return accessor.view(pos, len);
+        }
+        var buf = new byte[len];
+        copyBytes(buf, rva, 0, len);
+        return ByteBuffer.wrap(buf).asReadOnlyBuffer();
+    }
+
+    WrappedDataAccessor accessor() {
+        return accessor;
+    }
+
+    /**
+     * @return the end RVA of the section as the tables in it are read, the larger of the virtual size and the size of
+     * the raw data, unsigned
+     */
+    long dataEnd() {
+        return Integer.toUnsignedLong(virtualAddress) +
+               Math.max(Integer.toUnsignedLong(virtualSize), Integer.toUnsignedLong(sizeOfRawData));
+    }
+
+    /**
+     * Returns the file offset of {@code rva}, or -1 if {@code len} bytes since {@code rva} is not inside the raw data.
+     */
+    long rawOffset(int rva, int len) {
+        if (U.ge(rva, virtualAddress) && U.le(U.add(U.sub(rva, virtualAddress), len), sizeOfRawData)) {
+            return Integer.toUnsignedLong(pointerToRawData) + Integer.toUnsignedLong(U.sub(rva, virtualAddress));
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a read-only channel over the raw data of the section.
+     * <p>
+     * The position 0 of the channel is the {@link #getPointerToRawData()}, and the size is
+     * {@link #getSizeOfRawData()}, a truncated file makes the reads return EOF early.
+     * The bytes are read from the underlying file on demand, so it can be used with
+     * {@link java.nio.channels.FileChannel#transferFrom} or {@link java.nio.channels.Channels#newInputStream}
+     * without buffering the whole section.
+     * <p>
+     * Closing the channel doesn't close the PEFile, the channel becomes unreadable once the PEFile is closed.
+     *
+     * @return the channel
+     */
+    public @NotNull SeekableByteChannel openChannel() {
+        return accessor.channel(Integer.toUnsignedLong(pointerToRawData), Integer.toUnsignedLong(sizeOfRawData));
+    }
+
+    /**
+     * Returns a read-only channel over the raw data of the section, since {@code sinceRva}.
+     * <p>
+     * The position 0 of the channel is the {@code sinceRva}, unlike {@link #inputStream(int)},
+     * the channel ends at the end of the raw data, the virtual tail is not included.
+     *
+     * @param sinceRva the starting Relative Virtual Address (RVA) within the section to read from (inclusive)
+     * @return the channel
+     * @throws IndexOutOfBoundsException if {@code sinceRva} is not in {@code [virtualAddress, virtualAddress +
+     *                                   sizeOfRawData]}
+     * @see #openChannel()
+     */
+    public @NotNull SeekableByteChannel openChannel(int sinceRva) {
+        if (U.lt(sinceRva, virtualAddress) || U.gt(U.sub(sinceRva, virtualAddress), sizeOfRawData)) {
+            var rawEnd = Integer.toUnsignedLong(virtualAddress) + Integer.toUnsignedLong(sizeOfRawData);
+            throw new IndexOutOfBoundsException("sinceRva[%s] out of raw data [%s, %s]".formatted(
+                    Integer.toUnsignedString(sinceRva), Integer.toUnsignedString(virtualAddress), rawEnd));
+        }
+        var skip = Integer.toUnsignedLong(U.sub(sinceRva, virtualAddress));
+        return accessor.channel(Integer.toUnsignedLong(pointerToRawData) + skip,
+                                Integer.toUnsignedLong(sizeOfRawData) - skip);
+    }
+
+    /**
+     * Counts the byte values of the raw data of the section, in one pass.
+     * <p>
+     * The raw data of a truncated file is counted up to the end of the file.
+     *
+     * @return the counts indexed by the unsigned byte value, the length is 256
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public long @NotNull [] byteHistogram() {
+        try {
+            return ByteStatistics.histogram(accessor, Integer.toUnsignedLong(pointerToRawData),
+                                            Integer.toUnsignedLong(sizeOfRawData));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the Shannon entropy of the raw data of the section, in bits per byte.
+     * <p>
+     * Packed or encrypted data is close to 8, while code and plain data are usually far lower.
+     *
+     * @return the entropy in {@code [0, 8]}, or 0 if the raw data is empty
+     * @throws UncheckedIOException if an I/O error occurs
+     * @see #byteHistogram()
+     */
+    public double entropy() {
+        return ByteStatistics.entropy(byteHistogram());
+    }
+
+    /**
+     * Returns the entropy of each sliding window over the raw data of the section, in one pass.
+     * <p>
+     * The {@code i}-th entry is the entropy of {@code [i * step, i * step + window)}, the incomplete windows at the end
+     * are dropped, but the raw data shorter than a window has one entry for all of its bytes.
+     *
+     * @param window the size of the windows
+     * @param step   the distance between the windows, {@code window} must be a multiple of it
+     * @return the entropies in bits per byte
+     * @throws UncheckedIOException     if an I/O error occurs
+     * @throws IllegalArgumentException if {@code window} or {@code step} is not positive, or {@code window} is not a
+     *                                  multiple of {@code step}
+     */
+    public double @NotNull [] entropyProfile(int window, int step) {
+        ByteStatistics.checkWindow(window, step);
+        try {
+            return ByteStatistics.entropyProfile(accessor, Integer.toUnsignedLong(pointerToRawData),
+                                                 Integer.toUnsignedLong(sizeOfRawData), window, step);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Extracts the printable ASCII and UTF-16LE strings of the raw data of the section, with the
+     * {@linkplain StringExtractor#DEFAULT default options}.
+     *
+     * @param consumer receives the strings in the order they end
+     * @throws UncheckedIOException if an I/O error occurs
+     * @see StringExtractor#extract(Section, Consumer)
+     */
+    public void extractStrings(@NotNull Consumer<? super StringExtractor.@NotNull ExtractedString> consumer) {
+        StringExtractor.DEFAULT.extract(this, consumer);
+    }
+
     /**
      * Returns an {@link InputStream} that reads bytes from the specified section.
+     * <p>
+     * The stream ends at the end of the virtual size, the bytes beyond the raw data are zero.
      *
      * @param sinceRva the starting Relative Virtual Address (RVA) within the section to read from (inclusive)
      * @return an {@link InputStream} that reads bytes from the specified section
@@ -106,57 +255,30 @@ public final class Section {
             int pos = sinceRva;
 
             @Override
-            public int read() {
-                throw new UnsupportedOperationException("use InputStream#read(byte[], int, int) instead");
+            public int read() throws IOException {
+                var b = new byte[1];
+                return read(b, 0, 1) < 1 ? -1 : Byte.toUnsignedInt(b[0]);
             }
 
             @Override
             public int read(byte[] b, int off, int len) throws IOException {
                 Objects.checkFromIndexSize(off, len, b.length);
+                if (len == 0) return 0;
                 if (U.ge(pos, U.add(virtualAddress, virtualSize))) return -1;
                 var totalRead = U.min(U.sub(U.add(virtualSize, virtualAddress), pos), len);
                 if (totalRead < 1) return -1;
                 if (!accessor.isOpen()) {
                     throw new IOException("The underlying file might already be closed");
                 }
+                // the bytes beyond the raw data are zero
+                Arrays.fill(b, off, off + totalRead, (byte) 0);
                 copyBytes(b, pos, off, totalRead);
                 pos += totalRead;
-                return pos;
+                return totalRead;
             }
         };
         return new BufferedInputStream(input);
     }
-
-    byte @NotNull [] readNullEndShortString(int beginAtRva) throws IOException {
-        var beginAt = U.add(U.sub(U.max(virtualAddress, beginAtRva), virtualAddress), pointerToRawData);
-        var endBefore = U.add(pointerToRawData, sizeOfRawData);
-        var buf = new byte[256];
-        ByteArrayOutputStream out = null;
-        while (U.lt(beginAt, endBefore)) {
-            if (out != null && out.size() > 16384) {
-                throw new PEFileException("Too long string");
-            }
-            var n = accessor.readAtMost(beginAt, buf);
-            if (n < 1) {
-                return EMPTY;
-            }
-            for (int i = 0; i < n; i++) {
-                if (buf[i] == 0) {
-                    if (out != null) {
-                        out.write(buf, 0, i);
-                        return out.toByteArray();
-                    }
-                    return Arrays.copyOf(buf, i);
-                }
-            }
-            if (out == null) {
-                out = new ByteArrayOutputStream();
-            }
-            out.write(buf, 0, n);
-            beginAt = U.add(beginAt, n);
-        }
-        return EMPTY;
-    }
 }
 
 
@@ -173,7 +295,7 @@ record SectionTableItem(@Field String name,
 
     public static final int LENGTH = 40;
 
-    static SectionTableItem parse(byte[] buf, int off) {
+    static SectionTableItem parse(ByteBuffer buf, int off) {
         return new SectionTableItem(U.getNullString(buf, off, 8),
                                     I.u32(buf, off + 8),
                                     I.u32(buf, off + 12),
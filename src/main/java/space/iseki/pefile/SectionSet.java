@@ -1,40 +1,138 @@
 package space.iseki.pefile;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Objects;
 
 final class SectionSet {
+    private static final int STRING_WINDOW = 256;
+    private static final int MAX_STRING_LENGTH = 16384;
     final Section[] sections;
+    private final Index virtualIndex;
+    /**
+     * The ranges of the sections as they're read, see {@link Section#dataEnd()}.
+     */
+    private final Index dataIndex;
+    private final Index rawIndex;
 
     SectionSet(Section[] sections) {
         this.sections = sections;
+        var n = sections.length;
+        var virtualBegins = new long[n];
+        var virtualEnds = new long[n];
+        var dataEnds = new long[n];
+        var rawBegins = new long[n];
+        var rawEnds = new long[n];
+        for (int i = 0; i < n; i++) {
+            var s = sections[i];
+            virtualBegins[i] = Integer.toUnsignedLong(s.getVirtualAddress());
+            virtualEnds[i] = virtualBegins[i] + Integer.toUnsignedLong(s.getVirtualSize());
+            dataEnds[i] = s.dataEnd();
+            rawBegins[i] = Integer.toUnsignedLong(s.getPointerToRawData());
+            rawEnds[i] = rawBegins[i] + Integer.toUnsignedLong(s.getSizeOfRawData());
+        }
+        this.virtualIndex = new Index(virtualBegins, virtualEnds);
+        this.dataIndex = new Index(virtualBegins, dataEnds);
+        this.rawIndex = new Index(rawBegins, rawEnds);
     }
 
     public Section find(int rva) {
-        for (Section section : sections) {
-            if (U.gt(U.add(section.getVirtualAddress(), section.getVirtualSize()), rva) &&
-                U.le(section.getVirtualAddress(), rva)) {
-                return section;
-            }
-        }
-        return null;
+        var i = virtualIndex.find(Integer.toUnsignedLong(rva));
+        return i < 0 ? null : sections[i];
+    }
+
+    /**
+     * Same as {@link #find(int)}, but the range of a section extends to the end of the raw data, as the reads do.
+     */
+    Section findData(int rva) {
+        var i = dataIndex.find(Integer.toUnsignedLong(rva));
+        return i < 0 ? null : sections[i];
+    }
+
+    /**
+     * Returns the first section whose raw data contains the file offset, or null if not found.
+     */
+    Section findByFileOffset(long offset) {
+        var i = rawIndex.find(offset);
+        return i < 0 ? null : sections[i];
     }
 
     public void readBytes(byte[] buf, int rva) throws IOException {
-        for (var s : sections) s.copyBytes(buf, rva, 0, buf.length);
+        readBytes(buf, rva, 0, buf.length);
     }
 
+    /**
+     * Reads {@code len} bytes since {@code rva}, the range might span sections.
+     * <p>
+     * Only the sections overlapping the range are read, up to the end of the raw data even if it's beyond the virtual
+     * size, the bytes not backed by the file are zero, e.g. the virtual tail of a section, or the gap between sections.
+     */
     public void readBytes(byte[] buf, int rva, int off, int len) throws IOException {
-        for (var s : sections) s.copyBytes(buf, rva, off, len);
+        Objects.checkFromIndexSize(off, len, buf.length);
+        Arrays.fill(buf, off, off + len, (byte) 0);
+        if (dataIndex.overlapped) {
+            // keep the table order, the later one wins
+            for (var s : sections) s.copyBytes(buf, rva, off, len);
+            return;
+        }
+        var begin = Integer.toUnsignedLong(rva);
+        var end = begin + len;
+        var order = dataIndex.order;
+        for (int p = dataIndex.firstEndAfter(begin); p < order.length; p++) {
+            var i = order[p];
+            if (dataIndex.begins[i] >= end) break;
+            sections[i].copyBytes(buf, rva, off, len);
+        }
     }
 
+    /**
+     * Reads a NUL-terminated ISO-8859-1 string since {@code beginRva}, the string might span sections.
+     * <p>
+     * Only the sections containing the string are read, up to the end of the raw data even if it's beyond the virtual
+     * size, the virtual tail of a section terminates the string, as it's zero when loaded.
+     *
+     * @return the string, or null if it's empty or not terminated in the sections
+     * @throws PEFileException if the string is too long
+     */
     public String readNullShortString(int beginRva) throws IOException {
-        for (var s : sections) {
-            var str = s.readNullEndShortString(beginRva);
-            if (str.length > 0) return new String(str, StandardCharsets.ISO_8859_1);
+        var rva = Integer.toUnsignedLong(beginRva);
+        var buffer = Scratch.buffer(STRING_WINDOW);
+        var section = (Section) null;
+        while (true) {
+            if (buffer.position() > MAX_STRING_LENGTH) {
+                throw new PEFileException("Too long string");
+            }
+            if (section == null || rva >= section.dataEnd()) {
+                section = rva > 0xffffffffL ? null : findData((int) rva);
+                if (section == null) return null;
+            }
+            var rawEnd = Integer.toUnsignedLong(section.getVirtualAddress()) +
+                         Integer.toUnsignedLong(section.getSizeOfRawData());
+            if (rva >= rawEnd) {
+                // the virtual tail is zero
+                return decode(buffer, buffer.position());
+            }
+            if (buffer.remaining() < STRING_WINDOW) {
+                buffer = Scratch.buffer(buffer.capacity() * 2).put(buffer.flip());
+            }
+            var begin = buffer.position();
+            var window = (int) Math.min(STRING_WINDOW, rawEnd - rva);
+            var n = section.accessor().readAtMost(section.rawOffset((int) rva, window),
+                                                  buffer.limit(begin + window));
+            if (n < 1) return null;
+            var buf = buffer.array();
+            for (int i = begin; i < begin + n; i++) {
+                if (buf[i] == 0) return decode(buffer, i);
+            }
+            buffer.limit(buffer.capacity());
+            rva += n;
         }
-        return null;
+    }
+
+    private static String decode(ByteBuffer buffer, int len) {
+        return len == 0 ? null : new String(buffer.array(), 0, len, StandardCharsets.ISO_8859_1);
     }
 
     @Override
@@ -42,4 +140,104 @@ final class SectionSet {
         return "SectionSet" + Arrays.toString(sections);
     }
 
+    /**
+     * Interval index over the sections, finds the first section in the table order that contains a key.
+     * <p>
+     * The intervals are sorted by the begin, so a lookup is a binary search,
+     * and the last hit is checked first because the lookups are usually clustered in a section.
+     * Overlapped intervals are unusual but legal, in that case the index falls back to the linear scan,
+     * to keep the table order.
+     */
+    private static final class Index {
+        final long[] begins;
+        final long[] ends;
+        /**
+         * The section indexes, sorted by the begin, empty intervals are excluded.
+         */
+        final int[] order;
+        final boolean overlapped;
+        /**
+         * The position in {@link #order} of the last hit, racy but benign since it's only a hint.
+         */
+        private int last;
+
+        Index(long[] begins, long[] ends) {
+            this.begins = begins;
+            this.ends = ends;
+            var n = 0;
+            var order = new int[begins.length];
+            for (int i = 0; i < begins.length; i++) {
+                if (ends[i] == begins[i]) continue;
+                // insertion sort, the section table is usually sorted already
+                var j = n++;
+                while (j > 0 && begins[order[j - 1]] > begins[i]) {
+                    order[j] = order[j - 1];
+                    j--;
+                }
+                order[j] = i;
+            }
+            this.order = Arrays.copyOf(order, n);
+            var overlapped = false;
+            var maxEnd = 0L;
+            for (int i : this.order) {
+                if (begins[i] < maxEnd) {
+                    overlapped = true;
+                    break;
+                }
+                maxEnd = Math.max(maxEnd, ends[i]);
+            }
+            this.overlapped = overlapped;
+        }
+
+        /**
+         * @return the section index, or -1 if not found
+         */
+        int find(long key) {
+            if (overlapped) {
+                for (int i = 0; i < begins.length; i++) {
+                    if (begins[i] <= key && key < ends[i]) return i;
+                }
+                return -1;
+            }
+            var order = this.order;
+            var last = this.last;
+            if (last < order.length && contains(order[last], key)) return order[last];
+            var lo = 0;
+            var hi = order.length - 1;
+            while (lo <= hi) {
+                var mid = (lo + hi) >>> 1;
+                var i = order[mid];
+                if (key < begins[i]) {
+                    hi = mid - 1;
+                } else if (key >= ends[i]) {
+                    lo = mid + 1;
+                } else {
+                    this.last = mid;
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return the first position in {@link #order} whose interval ends after {@code key}, only if not overlapped
+         */
+        int firstEndAfter(long key) {
+            var lo = 0;
+            var hi = order.length;
+            while (lo < hi) {
+                var mid = (lo + hi) >>> 1;
+                if (ends[order[mid]] > key) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+
+        private boolean contains(int i, long key) {
+            return begins[i] <= key && key < ends[i];
+        }
+    }
 }
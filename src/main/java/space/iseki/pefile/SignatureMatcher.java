@@ -0,0 +1,507 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A compiled set of byte signatures, matched in one pass over a section or the whole file.
+ * <p>
+ * A signature might contain wildcards, e.g. {@code 4D 5A ?? ?? 50 4?}.
+ * The longest run of exact bytes of each signature is its anchor, the anchors are matched by an Aho-Corasick
+ * automaton, and each anchor hit is verified against the whole signature.
+ * <p>
+ * The data is read in chunks, the chunks are views of the mapping if the file is memory-mapped,
+ * the consecutive chunks overlap by the longest signature, so the hits across the chunk boundaries are not lost.
+ * <p>
+ * The matcher is immutable and thread-safe, compile it once and reuse it across threads and files.
+ */
+public final class SignatureMatcher {
+    /**
+     * The max length of a signature.
+     */
+    public static final int MAX_SIGNATURE_LENGTH = 4096;
+    static final int CHUNK = 1 << 20;
+    private static final Comparator<Match> ORDER = Comparator.comparingLong(Match::getFileOffset)
+                                                             .thenComparingInt(Match::getPatternId);
+    private final int[] ids;
+    private final byte[][] patterns;
+    private final byte[][] masks;
+    /**
+     * The offset of the last anchor byte in each pattern.
+     */
+    private final int[] anchorEnds;
+    private final int maxLength;
+    /**
+     * The transitions of the root, dense.
+     */
+    private final int[] rootNext;
+    /**
+     * The transitions of the other states, sorted by the signed byte value.
+     */
+    private final byte[][] keys;
+    private final int[][] next;
+    private final int[] fail;
+    /**
+     * The patterns whose anchor ends at each state, including the ones through the failure links.
+     */
+    private final int[][] outputs;
+
+    private SignatureMatcher(Builder builder) {
+        var n = builder.ids.size();
+        this.ids = new int[n];
+        this.patterns = builder.patterns.toArray(new byte[0][]);
+        this.masks = builder.masks.toArray(new byte[0][]);
+        this.anchorEnds = new int[n];
+        var maxLength = 1;
+        var trie = new Trie();
+        for (int i = 0; i < n; i++) {
+            ids[i] = builder.ids.get(i);
+            maxLength = Math.max(maxLength, patterns[i].length);
+            // the longest run of exact bytes
+            var mask = masks[i];
+            int bestBegin = 0, bestLength = 0;
+            for (int j = 0; j < mask.length; ) {
+                if (mask[j] != (byte) 0xff) {
+                    j++;
+                    continue;
+                }
+                var k = j;
+                while (k < mask.length && mask[k] == (byte) 0xff) k++;
+                if (k - j > bestLength) {
+                    bestBegin = j;
+                    bestLength = k - j;
+                }
+                j = k;
+            }
+            anchorEnds[i] = bestBegin + bestLength - 1;
+            trie.add(patterns[i], bestBegin, bestLength, i);
+        }
+        this.maxLength = maxLength;
+        var states = trie.size();
+        this.rootNext = new int[256];
+        this.keys = new byte[states][];
+        this.next = new int[states][];
+        this.fail = new int[states];
+        this.outputs = new int[states][];
+        trie.compile(this);
+    }
+
+    /**
+     * @return a new builder
+     */
+    public static @NotNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the number of signatures
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Matches the signatures against the raw data of the section.
+     * <p>
+     * The virtual tail of the section is not matched.
+     *
+     * @param section the section, the PEFile of it must be open
+     * @return the hits, sorted by the file offset then the pattern id
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public @Unmodifiable @NotNull List<@NotNull Match> scan(@NotNull Section section) {
+        var pointer = Integer.toUnsignedLong(section.getPointerToRawData());
+        var rvaDelta = Integer.toUnsignedLong(section.getVirtualAddress()) - pointer;
+        var result = new ArrayList<Match>();
+        try {
+            scan(section.accessor(), pointer, Integer.toUnsignedLong(section.getSizeOfRawData()), CHUNK,
+                 (index, offset) -> result.add(new Match(ids[index], offset, offset + rvaDelta)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        result.sort(ORDER);
+        return List.copyOf(result);
+    }
+
+    /**
+     * Matches the signatures against the whole file, including the headers and the overlay.
+     *
+     * @param peFile the PEFile, must be open
+     * @return the hits, sorted by the file offset then the pattern id,
+     * the RVA of a hit is -1 if the offset is not mapped
+     * @throws UncheckedIOException if an I/O error occurs
+     * @see PEFile#fileOffsetToRva(long)
+     */
+    public @Unmodifiable @NotNull List<@NotNull Match> scan(@NotNull PEFile peFile) {
+        var result = new ArrayList<Match>();
+        try {
+            scan(peFile.accessor(), 0, -1, CHUNK,
+                 (index, offset) -> result.add(new Match(ids[index], offset, peFile.fileOffsetToRva(offset))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        result.sort(ORDER);
+        return List.copyOf(result);
+    }
+
+    /**
+     * Matches the signatures against at most {@code length} bytes since {@code position}.
+     *
+     * @param length the number of bytes, or -1 for all bytes to the end of data
+     */
+    void scan(WrappedDataAccessor accessor, long position, long length, int chunkSize, HitConsumer consumer)
+            throws IOException {
+        var overlap = maxLength - 1;
+        var end = length < 0 ? Long.MAX_VALUE : position + length;
+        ByteBuffer buffer = null;
+        for (var pos = position; pos < end; pos += chunkSize) {
+            var n = (int) Math.min((long) chunkSize + overlap, end - pos);
+            var view = accessor.viewAtMostIfShared(pos, n);
+            if (view == null) {
+                if (buffer == null) buffer = ByteBuffer.allocate(n);
+                buffer.clear().limit(n);
+                var read = accessor.readAtMost(pos, buffer);
+                view = buffer.flip();
+                if (read < 1) break;
+            }
+            scanChunk(view, pos, Math.min(chunkSize, view.remaining()), consumer);
+            if (view.remaining() < n) break;
+        }
+    }
+
+    /**
+     * Reports the hits beginning in {@code [0, owned)} of the view, the bytes after are the overlap of the next chunk.
+     */
+    private void scanChunk(ByteBuffer view, long viewOffset, int owned, HitConsumer consumer) {
+        var begin = view.position();
+        var length = view.remaining();
+        var state = 0;
+        for (int i = 0; i < length; i++) {
+            var b = view.get(begin + i) & 0xff;
+            while (true) {
+                var to = state == 0 ? rootNext[b] : transition(state, b);
+                if (to >= 0) {
+                    state = to;
+                    break;
+                }
+                state = fail[state];
+            }
+            for (var p : outputs[state]) {
+                var start = i - anchorEnds[p];
+                if (start < 0 || start >= owned || start + patterns[p].length > length) continue;
+                if (verify(p, view, begin + start)) consumer.accept(p, viewOffset + start);
+            }
+        }
+    }
+
+    private int transition(int state, int b) {
+        // the keys are sorted as signed bytes, same as Arrays.binarySearch
+        var key = (byte) b;
+        var k = keys[state];
+        var lo = 0;
+        var hi = k.length - 1;
+        while (lo <= hi) {
+            var mid = (lo + hi) >>> 1;
+            var v = k[mid];
+            if (v < key) {
+                lo = mid + 1;
+            } else if (v > key) {
+                hi = mid - 1;
+            } else {
+                return next[state][mid];
+            }
+        }
+        return -1;
+    }
+
+    private boolean verify(int p, ByteBuffer view, int at) {
+        var pattern = patterns[p];
+        var mask = masks[p];
+        for (int j = 0; j < pattern.length; j++) {
+            if (((view.get(at + j) ^ pattern[j]) & mask[j]) != 0) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "SignatureMatcher{size=" + ids.length + ", states=" + fail.length + "}";
+    }
+
+    @FunctionalInterface
+    interface HitConsumer {
+        /**
+         * @param pattern the index of the pattern
+         * @param offset  the file offset of the hit
+         */
+        void accept(int pattern, long offset);
+    }
+
+    /**
+     * The trie of the anchors, compiled into the automaton.
+     * <p>
+     * The children of each state are kept sorted by the signed byte value, they become the tables of the matcher as is.
+     */
+    private static final class Trie {
+        private static final byte[] NO_KEYS = new byte[0];
+        private static final int[] NO_STATES = new int[0];
+        private final List<byte[]> keys = new ArrayList<>();
+        private final List<int[]> next = new ArrayList<>();
+        private final List<int[]> patterns = new ArrayList<>();
+
+        Trie() {
+            newState();
+        }
+
+        private int newState() {
+            keys.add(NO_KEYS);
+            next.add(NO_STATES);
+            patterns.add(NO_STATES);
+            return keys.size() - 1;
+        }
+
+        int size() {
+            return keys.size();
+        }
+
+        void add(byte[] pattern, int begin, int length, int index) {
+            var state = 0;
+            for (int i = begin; i < begin + length; i++) {
+                var k = keys.get(state);
+                var pos = Arrays.binarySearch(k, pattern[i]);
+                if (pos >= 0) {
+                    state = next.get(state)[pos];
+                    continue;
+                }
+                var to = newState();
+                pos = -pos - 1;
+                var t = next.get(state);
+                var nk = new byte[k.length + 1];
+                var nt = new int[t.length + 1];
+                System.arraycopy(k, 0, nk, 0, pos);
+                System.arraycopy(t, 0, nt, 0, pos);
+                nk[pos] = pattern[i];
+                nt[pos] = to;
+                System.arraycopy(k, pos, nk, pos + 1, k.length - pos);
+                System.arraycopy(t, pos, nt, pos + 1, t.length - pos);
+                keys.set(state, nk);
+                next.set(state, nt);
+                state = to;
+            }
+            var p = patterns.get(state);
+            p = Arrays.copyOf(p, p.length + 1);
+            p[p.length - 1] = index;
+            patterns.set(state, p);
+        }
+
+        /**
+         * Builds the failure links and the outputs in BFS order, then fills the tables of the matcher.
+         */
+        void compile(SignatureMatcher m) {
+            var queue = new ArrayDeque<Integer>();
+            var rootKeys = keys.get(0);
+            var rootNext = next.get(0);
+            for (int i = 0; i < rootKeys.length; i++) {
+                var to = rootNext[i];
+                m.rootNext[rootKeys[i] & 0xff] = to;
+                m.fail[to] = 0;
+                queue.add(to);
+            }
+            m.keys[0] = NO_KEYS;
+            m.next[0] = NO_STATES;
+            m.outputs[0] = patterns.get(0);
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                var own = patterns.get(state);
+                var inherited = m.outputs[m.fail[state]];
+                var out = Arrays.copyOf(own, own.length + inherited.length);
+                System.arraycopy(inherited, 0, out, own.length, inherited.length);
+                m.outputs[state] = out;
+                var k = keys.get(state);
+                var t = next.get(state);
+                m.keys[state] = k;
+                m.next[state] = t;
+                for (int i = 0; i < k.length; i++) {
+                    // the failure link is the longest proper suffix in the trie
+                    var b = k[i] & 0xff;
+                    var f = m.fail[state];
+                    while (true) {
+                        var ft = f == 0 ? m.rootNext[b] : m.transition(f, b);
+                        if (ft >= 0) {
+                            m.fail[t[i]] = ft;
+                            break;
+                        }
+                        f = m.fail[f];
+                    }
+                    queue.add(t[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * The builder of {@link SignatureMatcher}, not thread-safe.
+     */
+    public static final class Builder {
+        private final List<Integer> ids = new ArrayList<>();
+        private final List<byte[]> patterns = new ArrayList<>();
+        private final List<byte[]> masks = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds an exact byte signature.
+         *
+         * @param id      the id reported by the hits, not necessarily unique
+         * @param pattern the bytes
+         * @return this builder
+         * @throws IllegalArgumentException if the pattern is empty or longer than {@link #MAX_SIGNATURE_LENGTH}
+         */
+        public @NotNull Builder add(int id, byte @NotNull [] pattern) {
+            var mask = new byte[pattern.length];
+            Arrays.fill(mask, (byte) 0xff);
+            return add(id, pattern, mask);
+        }
+
+        /**
+         * Adds a masked byte signature, a byte of data matches if {@code (data & mask) == (pattern & mask)}.
+         *
+         * @param id      the id reported by the hits, not necessarily unique
+         * @param pattern the bytes
+         * @param mask    the masks of the bytes, {@code 0xff} is exact, {@code 0x00} is a wildcard
+         * @return this builder
+         * @throws IllegalArgumentException if the lengths differ, the pattern is empty or longer than
+         *                                  {@link #MAX_SIGNATURE_LENGTH}, or there's no exact byte
+         */
+        public @NotNull Builder add(int id, byte @NotNull [] pattern, byte @NotNull [] mask) {
+            if (pattern.length != mask.length) {
+                throw new IllegalArgumentException("pattern and mask must have the same length");
+            }
+            if (pattern.length == 0 || pattern.length > MAX_SIGNATURE_LENGTH) {
+                throw new IllegalArgumentException("invalid signature length: " + pattern.length);
+            }
+            var exact = false;
+            for (var b : mask) exact |= b == (byte) 0xff;
+            if (!exact) {
+                throw new IllegalArgumentException("signature must contain at least one exact byte");
+            }
+            ids.add(id);
+            patterns.add(pattern.clone());
+            masks.add(mask.clone());
+            return this;
+        }
+
+        /**
+         * Adds a signature in hex, the bytes are separated by whitespaces, e.g. {@code 4D 5A ?? ?? 50 4?}.
+         * <p>
+         * A {@code ?} matches any nibble.
+         *
+         * @param id        the id reported by the hits, not necessarily unique
+         * @param signature the signature
+         * @return this builder
+         * @throws IllegalArgumentException if the signature is malformed
+         * @see #add(int, byte[], byte[])
+         */
+        public @NotNull Builder add(int id, @NotNull String signature) {
+            var tokens = signature.trim().split("\\s+");
+            var pattern = new byte[tokens.length];
+            var mask = new byte[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                var token = tokens[i];
+                if (token.length() != 2) {
+                    throw new IllegalArgumentException("malformed signature: " + signature);
+                }
+                var hi = nibble(token.charAt(0), signature);
+                var lo = nibble(token.charAt(1), signature);
+                pattern[i] = (byte) ((Math.max(hi, 0) << 4) | Math.max(lo, 0));
+                mask[i] = (byte) ((hi < 0 ? 0 : 0xf0) | (lo < 0 ? 0 : 0x0f));
+            }
+            return add(id, pattern, mask);
+        }
+
+        /**
+         * @return the value, or -1 for {@code ?}
+         */
+        private static int nibble(char c, String signature) {
+            if (c == '?') return -1;
+            var v = Character.digit(c, 16);
+            if (v < 0) {
+                throw new IllegalArgumentException("malformed signature: " + signature);
+            }
+            return v;
+        }
+
+        /**
+         * @return the compiled matcher, the builder can still be used
+         */
+        public @NotNull SignatureMatcher build() {
+            return new SignatureMatcher(this);
+        }
+    }
+
+    /**
+     * A hit of a signature.
+     */
+    public static final class Match {
+        private final int patternId;
+        private final long fileOffset;
+        private final long rva;
+
+        Match(int patternId, long fileOffset, long rva) {
+            this.patternId = patternId;
+            this.fileOffset = fileOffset;
+            this.rva = rva;
+        }
+
+        /**
+         * @return the id of the signature
+         */
+        public int getPatternId() {
+            return patternId;
+        }
+
+        /**
+         * @return the file offset of the first byte
+         */
+        public long getFileOffset() {
+            return fileOffset;
+        }
+
+        /**
+         * @return the RVA of the first byte, as an unsigned value, or -1 if the offset is not mapped
+         */
+        public long getRva() {
+            return rva;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Match match = (Match) o;
+            return patternId == match.patternId && fileOffset == match.fileOffset && rva == match.rva;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(patternId, fileOffset, rva);
+        }
+
+        @Override
+        public String toString() {
+            return "Match{patternId=" + patternId + ", fileOffset=" + U.hex(fileOffset) + ", rva=" +
+                   (rva < 0 ? "-1" : U.hex(rva)) + "}";
+        }
+    }
+}
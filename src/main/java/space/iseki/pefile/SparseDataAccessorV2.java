@@ -0,0 +1,106 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An accessor over some separated regions of a file, used by the streaming open.
+ * <p>
+ * Regions are added in ascending order before the accessor is shared, it's read-only after that.
+ * A range larger than a region might be added as adjacent regions, the reads continue across them.
+ * Reading outside the regions throws {@link UnbufferedDataException},
+ * except reading at the end of a region, which is treated as the end of data.
+ */
+final class SparseDataAccessorV2 implements DataAccessorV2 {
+    private long[] begins = new long[0];
+    private byte[][] regions = new byte[0][];
+    private volatile boolean open = true;
+
+    void add(long begin, byte @NotNull [] data) {
+        var n = begins.length;
+        if (n > 0 && begin < begins[n - 1] + regions[n - 1].length) {
+            throw new IllegalArgumentException("regions must be added in ascending order");
+        }
+        begins = Arrays.copyOf(begins, n + 1);
+        regions = Arrays.copyOf(regions, n + 1);
+        begins[n] = begin;
+        regions[n] = data;
+    }
+
+    boolean contains(long begin, long length) {
+        var i = indexOf(begin);
+        if (i < 0) return false;
+        var end = begins[i] + regions[i].length;
+        // a large range is buffered as adjacent regions
+        while (end < begin + length && i + 1 < begins.length && begins[i + 1] == end) {
+            end += regions[++i].length;
+        }
+        return begin + length <= end;
+    }
+
+    private int indexOf(long position) {
+        var i = Arrays.binarySearch(begins, position);
+        if (i < 0) i = -i - 2;
+        if (i < 0 || position >= begins[i] + regions[i].length) return -1;
+        return i;
+    }
+
+    private int locate(long position) {
+        if (!open) {
+            throw new IllegalStateException("The file was closed");
+        }
+        var i = indexOf(position);
+        if (i < 0) {
+            var j = Arrays.binarySearch(begins, position);
+            if (j < 0 && -j - 2 >= 0 && begins[-j - 2] + regions[-j - 2].length == position) {
+                return -1;
+            }
+            throw new UnbufferedDataException(position);
+        }
+        return i;
+    }
+
+    @Override
+    public int read(@NotNull ByteBuffer buffer, long position) {
+        var i = locate(position);
+        if (i < 0) return -1;
+        var offset = (int) (position - begins[i]);
+        var bytesToCopy = Math.min(buffer.remaining(), regions[i].length - offset);
+        buffer.put(regions[i], offset, bytesToCopy);
+        return bytesToCopy;
+    }
+
+    @Override
+    public ByteBuffer view(long position, int length) {
+        var i = locate(position);
+        if (i < 0) return ByteBuffer.allocate(0);
+        var offset = (int) (position - begins[i]);
+        var bytesToView = (int) Math.min(Integer.toUnsignedLong(length), regions[i].length - offset);
+        if (bytesToView < length && i + 1 < begins.length && begins[i + 1] == begins[i] + regions[i].length) {
+            // continues in the adjacent region, let the caller copy it
+            return null;
+        }
+        return ByteBuffer.wrap(regions[i], offset, bytesToView).slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
+
+/**
+ * Thrown when the data required was not buffered by the streaming open.
+ */
+final class UnbufferedDataException extends PEFileException {
+    UnbufferedDataException(long position) {
+        super("The data at file offset " + U.hex(position) + " was not buffered by the streaming open");
+    }
+}
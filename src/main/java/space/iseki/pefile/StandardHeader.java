@@ -1,5 +1,7 @@
 package space.iseki.pefile;
 
+import java.nio.ByteBuffer;
+
 public final class StandardHeader {
     @Field
     private final boolean isPE32Plus;
@@ -40,15 +42,15 @@ public final class StandardHeader {
         this.baseOfData = baseOfData;
     }
 
-    static StandardHeader parse(byte[] buf, int off) {
+    static StandardHeader parse(ByteBuffer buf, int off) {
         var magic = I.u16(buf, off);
         var isPlus = magic == 0x20b;
         if (magic != 0x10b && !isPlus) {
             throw new PEFileException("Invalid magic: " + U.hex(magic));
         }
         return new StandardHeader(isPlus,
-                                  buf[off + 2],
-                                  buf[off + 3],
+                                  buf.get(off + 2),
+                                  buf.get(off + 3),
                                   I.u32(buf, off + 4),
                                   I.u32(buf, off + 8),
                                   I.u32(buf, off + 12),
@@ -0,0 +1,279 @@
+package space.iseki.pefile;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opens a PE file from an {@link InputStream} by a single forward pass.
+ * <p>
+ * The headers and the sections required by the import, export and resource directories are buffered,
+ * everything else is skipped.
+ * The sections are visited in the file order, after a section is buffered,
+ * the buffered data is scanned again to find out which sections the structures point into.
+ */
+final class StreamingLoader {
+    /**
+     * The step of growing the header buffer, so a bogus header size doesn't allocate before the bytes arrive.
+     */
+    private static final int HEADER_CHUNK = 4096;
+    /**
+     * The maximum size of a buffered region, a larger range is buffered as adjacent regions.
+     */
+    private static final int CAPTURE_CHUNK = 64 << 20;
+    private final InputStream input;
+    private final long limit;
+    private final SparseDataAccessorV2 sparse = new SparseDataAccessorV2();
+    private final WrappedDataAccessor accessor = new WrappedDataAccessor(sparse);
+    private final Set<String> unreachable = new LinkedHashSet<>();
+    private final Set<Section> oversized = new LinkedHashSet<>();
+    private final Set<String> capturedDirectories = new LinkedHashSet<>();
+    private long position;
+    private long buffered;
+
+    private StreamingLoader(InputStream input, long limit) {
+        this.input = input;
+        this.limit = limit;
+    }
+
+    static PEFile load(InputStream input, long limit) throws IOException {
+        return new StreamingLoader(input, limit).load();
+    }
+
+    private static long u(int i) {
+        return Integer.toUnsignedLong(i);
+    }
+
+    private static String describe(String structure, Section section, String reason) {
+        return structure + " in section " + section.getName() + " (file offset " + U.hex(u(section.getPointerToRawData())) +
+               "): " + reason;
+    }
+
+    private static void need(Map<Section, Set<String>> needs, SectionSet sectionSet, int rva, String structure) {
+        if (rva == 0) return;
+        var section = sectionSet.find(rva);
+        if (section != null) {
+            needs.computeIfAbsent(section, i -> new LinkedHashSet<>()).add(structure);
+        }
+    }
+
+    private PEFile load() throws IOException {
+        var headers = captureHeaders();
+        var sections = headers.sections(accessor);
+        var sectionSet = new SectionSet(sections);
+        var order = Arrays.stream(sections)
+                          .filter(i -> i.getSizeOfRawData() != 0)
+                          .sorted(Comparator.comparingLong(i -> u(i.getPointerToRawData())))
+                          .toList();
+        // only the captured data can reveal new structures, the skipped sections don't need another scan
+        var needs = discover(headers, sectionSet);
+        for (var section : order) {
+            if (u(section.getPointerToRawData()) < position) continue;
+            if (!needs.containsKey(section)) continue;
+            boolean more;
+            if (u(section.getSizeOfRawData()) <= limit - buffered) {
+                more = capture(u(section.getPointerToRawData()), u(section.getSizeOfRawData()));
+            } else {
+                oversized.add(section);
+                more = captureDirectories(headers, section);
+            }
+            needs = discover(headers, sectionSet);
+            if (!more) break;
+        }
+        for (var e : needs.entrySet()) {
+            var section = e.getKey();
+            if (sparse.contains(u(section.getPointerToRawData()), u(section.getSizeOfRawData()))) continue;
+            var reason = oversized.contains(section) ?
+                    "the section exceeds the buffer limit, only the directories are buffered" :
+                    "the section is located before the data already passed";
+            for (var structure : e.getValue()) {
+                if (capturedDirectories.contains(structure)) continue;
+                unreachable.add(describe(structure, section, reason));
+            }
+        }
+        return new PEFile(accessor,
+                          sections,
+                          headers.coffHeader(),
+                          headers.standardHeader(),
+                          headers.optionalHeader(),
+                          headers.dataDirectories(),
+                          List.copyOf(unreachable));
+    }
+
+    private PEHeaders captureHeaders() throws IOException {
+        var buf = readHeaders(new byte[0], 0x40);
+        var peBeginAt = I.u32L(buf, 0x3c);
+        buf = readHeaders(buf, U.add(peBeginAt, 24));
+        var sizeOfOptionalHeader = Short.toUnsignedInt(I.u16(buf, (int) peBeginAt + 20));
+        var numbersOfSections = Short.toUnsignedInt(I.u16(buf, (int) peBeginAt + 6));
+        if (numbersOfSections > PEHeaders.MAX_SECTIONS) {
+            throw new PEFileException("Invalid PE file, too many sections: " + numbersOfSections);
+        }
+        buf = readHeaders(buf, peBeginAt + 24 + sizeOfOptionalHeader + (long) SectionTableItem.LENGTH * numbersOfSections);
+        sparse.add(0, buf);
+        buffered = buf.length;
+        return PEHeaders.read(accessor);
+    }
+
+    private byte[] readHeaders(byte[] buf, long end) throws IOException {
+        if (end > limit) {
+            throw new PEFileException("Invalid PE file, the headers exceed the buffer limit: " + end);
+        }
+        if (end > OpenOptions.MAX_HEAP_SIZE) {
+            throw new PEFileException("Invalid PE file, the headers are too large: " + end);
+        }
+        if (end <= buf.length) return buf;
+        // grow as the bytes arrive, the size comes from the untrusted headers
+        var length = buf.length;
+        while (length < end) {
+            if (length == buf.length) {
+                buf = Arrays.copyOf(buf, (int) Math.min(end, Math.max(length * 2L, length + HEADER_CHUNK)));
+            }
+            var n = input.read(buf, length, buf.length - length);
+            if (n < 0) {
+                throw new PEFileException("Invalid PE file, unexpected EOF during read headers");
+            }
+            length += n;
+            position += n;
+        }
+        return buf;
+    }
+
+    private boolean captureDirectories(PEHeaders headers, Section section) throws IOException {
+        var dirs = headers.dataDirectories();
+        var ranges = new ArrayList<long[]>();
+        var items = new DataDirectories.Item[]{dirs.getImportTable(), dirs.getExportTable(), dirs.getResourceTable()};
+        var names = new String[]{"import directory", "export directory", "resource directory"};
+        for (int i = 0; i < items.length; i++) {
+            var item = items[i];
+            if (item == null || item.getRva() == 0 || !U.ge(item.getRva(), section.getVirtualAddress())) continue;
+            var offset = u(U.sub(item.getRva(), section.getVirtualAddress()));
+            if (offset >= u(section.getSizeOfRawData())) continue;
+            var begin = u(section.getPointerToRawData()) + offset;
+            var end = Math.min(begin + u(item.getSize()), u(section.getPointerToRawData()) + u(section.getSizeOfRawData()));
+            ranges.add(new long[]{begin, end, i});
+        }
+        ranges.sort(Comparator.comparingLong(i -> i[0]));
+        for (var range : ranges) {
+            var begin = Math.max(range[0], position);
+            if (begin < range[1] && range[1] - begin <= limit - buffered) {
+                if (!capture(begin, range[1] - begin)) return false;
+            }
+            if (sparse.contains(range[0], range[1] - range[0])) {
+                capturedDirectories.add(names[(int) range[2]]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the stream ended
+     */
+    private boolean capture(long begin, long length) throws IOException {
+        var skip = begin - position;
+        var skipped = input.skip(skip);
+        while (skipped < skip) {
+            var n = input.skip(skip - skipped);
+            if (n <= 0) {
+                if (input.read() < 0) break;
+                n = 1;
+            }
+            skipped += n;
+        }
+        position += skipped;
+        if (position != begin) {
+            unreachable.add("the stream ended at file offset " + U.hex(position));
+            return false;
+        }
+        for (var remaining = length; remaining > 0; ) {
+            var chunk = (int) Math.min(remaining, CAPTURE_CHUNK);
+            var data = input.readNBytes(chunk);
+            if (data.length > 0) {
+                sparse.add(position, data);
+            }
+            position += data.length;
+            buffered += data.length;
+            remaining -= data.length;
+            if (data.length < chunk) {
+                unreachable.add("the stream ended at file offset " + U.hex(position));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Scans the buffered data, returns the sections required by the structures found, with their descriptions.
+     * <p>
+     * A read reaching the end of a buffered region fails with {@link EOFException}, one reaching the unbuffered data
+     * with {@link UnbufferedDataException}, both mean the structure is not buffered yet.
+     */
+    private static Map<Section, Set<String>> discover(PEHeaders headers, SectionSet sectionSet) throws IOException {
+        var needs = new LinkedHashMap<Section, Set<String>>();
+        var dirs = headers.dataDirectories();
+        var importTable = dirs.getImportTable();
+        var exportTable = dirs.getExportTable();
+        var resourceTable = dirs.getResourceTable();
+        if (resourceTable != null) need(needs, sectionSet, resourceTable.getRva(), "resource directory");
+        if (exportTable != null && exportTable.getRva() != 0) {
+            need(needs, sectionSet, exportTable.getRva(), "export directory");
+            try {
+                var buf = new byte[ExportTable.ExportDirectoryTable.LENGTH];
+                sectionSet.readBytes(buf, exportTable.getRva());
+                var edt = ExportTable.ExportDirectoryTable.parse(buf, 0);
+                need(needs, sectionSet, edt.nameRva(), "export DLL name");
+                need(needs, sectionSet, edt.exportAddressTableRva(), "export address table");
+                need(needs, sectionSet, edt.namePointerRva(), "export name pointer table");
+                need(needs, sectionSet, edt.ordinalTableRva(), "export ordinal table");
+            } catch (PEFileException | EOFException ignored) {
+            }
+        }
+        if (importTable != null && importTable.getRva() != 0) {
+            need(needs, sectionSet, importTable.getRva(), "import directory");
+            try {
+                var buf = new byte[ImportDirectoryTable.LENGTH];
+                for (var rva = importTable.getRva(); ; rva = U.add(rva, ImportDirectoryTable.LENGTH)) {
+                    Arrays.fill(buf, (byte) 0);
+                    sectionSet.readBytes(buf, rva);
+                    var idt = ImportDirectoryTable.parse(buf, 0);
+                    if (idt.importLookupTableRva() == 0) break;
+                    need(needs, sectionSet, idt.nameRva(), "import DLL names");
+                    need(needs, sectionSet, idt.importLookupTableRva(), "import lookup tables");
+                    try {
+                        discoverSymbols(needs, sectionSet, idt, headers.standardHeader().isPE32Plus());
+                    } catch (PEFileException | EOFException ignored) {
+                        // the lookup table is not buffered yet, the later descriptors might be
+                    }
+                }
+            } catch (PEFileException | EOFException ignored) {
+            }
+        }
+        return needs;
+    }
+
+    private static void discoverSymbols(Map<Section, Set<String>> needs,
+                                        SectionSet sectionSet,
+                                        ImportDirectoryTable idt,
+                                        boolean plus) throws IOException {
+        var buf = new byte[8];
+        var width = plus ? 8 : 4;
+        for (var rva = idt.importLookupTableRva(); ; rva = U.add(rva, width)) {
+            Arrays.fill(buf, (byte) 0);
+            sectionSet.readBytes(buf, rva, 0, width);
+            var v = plus ? I.u64(buf, 0) : I.u32L(buf, 0);
+            if (v == 0) return;
+            var isOrdinal = plus ? v < 0 : (v & 0x80000000L) != 0;
+            if (!isOrdinal) {
+                need(needs, sectionSet, (int) v & 0x7fffffff, "import symbol names");
+            }
+        }
+    }
+}
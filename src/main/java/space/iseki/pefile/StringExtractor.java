@@ -0,0 +1,332 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Extracts the printable strings, like the {@code strings} command, in ASCII and UTF-16LE.
+ * <p>
+ * The data is streamed once in chunks, the chunks are views of the mapping if the file is memory-mapped.
+ * The strings are reported to a callback as soon as they end, so the memory is bounded by the chunk and
+ * {@link Builder#maxLength(int)}, no matter how large the file is.
+ * <p>
+ * A character is printable if it's in {@code [0x20, 0x7e]} or a tab.
+ * A UTF-16LE character is a printable character followed by a zero byte, at either alignment.
+ * <p>
+ * The extractor is immutable and thread-safe.
+ */
+public final class StringExtractor {
+    /**
+     * The extractor with the default options.
+     */
+    public static final @NotNull StringExtractor DEFAULT = builder().build();
+    static final int CHUNK = 1 << 20;
+    private final int minLength;
+    private final int maxLength;
+    private final boolean ascii;
+    private final boolean utf16le;
+
+    private StringExtractor(Builder builder) {
+        this.minLength = builder.minLength;
+        this.maxLength = builder.maxLength;
+        this.ascii = builder.ascii;
+        this.utf16le = builder.utf16le;
+    }
+
+    /**
+     * @return a builder with the default options
+     */
+    public static @NotNull Builder builder() {
+        return new Builder();
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public boolean isAscii() {
+        return ascii;
+    }
+
+    public boolean isUtf16le() {
+        return utf16le;
+    }
+
+    /**
+     * Extracts the strings from the raw data of the section.
+     *
+     * @param section  the section, the PEFile of it must be open
+     * @param consumer receives the strings in the order they end
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public void extract(@NotNull Section section, @NotNull Consumer<? super @NotNull ExtractedString> consumer) {
+        Objects.requireNonNull(consumer);
+        var pointer = Integer.toUnsignedLong(section.getPointerToRawData());
+        var rvaDelta = Integer.toUnsignedLong(section.getVirtualAddress()) - pointer;
+        try {
+            extract(section.accessor(), pointer, Integer.toUnsignedLong(section.getSizeOfRawData()), CHUNK,
+                    (encoding, text, offset) -> consumer.accept(new ExtractedString(text,
+                                                                                    encoding,
+                                                                                    offset,
+                                                                                    offset + rvaDelta,
+                                                                                    section)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Extracts the strings from the whole file, including the headers and the overlay.
+     * <p>
+     * A string is attributed to the section containing its first byte.
+     *
+     * @param peFile   the PEFile, must be open
+     * @param consumer receives the strings in the order they end
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public void extract(@NotNull PEFile peFile, @NotNull Consumer<? super @NotNull ExtractedString> consumer) {
+        Objects.requireNonNull(consumer);
+        try {
+            extract(peFile.accessor(), 0, -1, CHUNK, (encoding, text, offset) -> {
+                var section = peFile.sectionSet.findByFileOffset(offset);
+                consumer.accept(new ExtractedString(text, encoding, offset, peFile.fileOffsetToRva(offset), section));
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Extracts the strings from at most {@code length} bytes since {@code position}.
+     *
+     * @param length the number of bytes, or -1 for all bytes to the end of data
+     */
+    void extract(WrappedDataAccessor accessor, long position, long length, int chunkSize, Sink sink)
+            throws IOException {
+        var asciiRun = ascii ? new Run(Encoding.ASCII, sink) : null;
+        // indexed by the alignment of the low bytes
+        var utf16Runs = utf16le
+                ? new Run[]{new Run(Encoding.UTF_16LE, sink), new Run(Encoding.UTF_16LE, sink)}
+                : null;
+        var base = new long[]{position};
+        accessor.scan(position, length, chunkSize, chunk -> {
+            var begin = chunk.position();
+            var n = chunk.remaining();
+            var offset = base[0];
+            for (int i = 0; i < n; i++) {
+                var b = chunk.get(begin + i);
+                var pos = offset + i;
+                var printable = (b >= 0x20 && b <= 0x7e) || b == '\t';
+                if (asciiRun != null) {
+                    if (printable) {
+                        asciiRun.append(b, pos);
+                    } else {
+                        asciiRun.end();
+                    }
+                }
+                if (utf16Runs != null) {
+                    var parity = (int) (pos & 1);
+                    // the high byte of the run aligned to the other parity
+                    var high = utf16Runs[parity ^ 1];
+                    if (high.lowPending) {
+                        if (high.lowPrintable && b == 0) {
+                            high.append(high.low, pos - 1);
+                        } else {
+                            high.end();
+                        }
+                        high.lowPending = false;
+                    }
+                    var low = utf16Runs[parity];
+                    low.low = b;
+                    low.lowPrintable = printable;
+                    low.lowPending = true;
+                }
+            }
+            base[0] = offset + n;
+        });
+        if (asciiRun != null) asciiRun.end();
+        if (utf16Runs != null) {
+            utf16Runs[0].end();
+            utf16Runs[1].end();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StringExtractor{minLength=" + minLength + ", maxLength=" + maxLength + ", ascii=" + ascii +
+               ", utf16le=" + utf16le + "}";
+    }
+
+    @FunctionalInterface
+    interface Sink {
+        void accept(Encoding encoding, String text, long offset);
+    }
+
+    /**
+     * The characters of the current string, at most {@link #maxLength}, a longer string is reported in parts.
+     */
+    private final class Run {
+        private final Encoding encoding;
+        private final Sink sink;
+        private final byte[] chars = new byte[maxLength];
+        private int length;
+        private long start;
+        // the pending low byte, UTF-16LE only
+        byte low;
+        boolean lowPrintable;
+        boolean lowPending;
+
+        Run(Encoding encoding, Sink sink) {
+            this.encoding = encoding;
+            this.sink = sink;
+        }
+
+        void append(byte c, long pos) {
+            if (length == 0) start = pos;
+            chars[length++] = c;
+            if (length == maxLength) end();
+        }
+
+        void end() {
+            if (length >= minLength) {
+                sink.accept(encoding, new String(chars, 0, length, StandardCharsets.ISO_8859_1), start);
+            }
+            length = 0;
+        }
+    }
+
+    public enum Encoding {
+        ASCII,
+        UTF_16LE,
+    }
+
+    /**
+     * The builder of {@link StringExtractor}, not thread-safe.
+     */
+    public static final class Builder {
+        private int minLength = 4;
+        private int maxLength = 4096;
+        private boolean ascii = true;
+        private boolean utf16le = true;
+
+        private Builder() {
+        }
+
+        /**
+         * The shorter strings are dropped, the default is 4.
+         *
+         * @throws IllegalArgumentException if {@code minLength} is less than 1
+         */
+        public @NotNull Builder minLength(int minLength) {
+            if (minLength < 1) {
+                throw new IllegalArgumentException("minLength must be positive: " + minLength);
+            }
+            this.minLength = minLength;
+            return this;
+        }
+
+        /**
+         * The longer strings are reported in parts of {@code maxLength} characters, the default is 4096.
+         *
+         * @throws IllegalArgumentException if {@code maxLength} is less than 1
+         */
+        public @NotNull Builder maxLength(int maxLength) {
+            if (maxLength < 1) {
+                throw new IllegalArgumentException("maxLength must be positive: " + maxLength);
+            }
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        /**
+         * Whether to extract the ASCII strings, the default is true.
+         */
+        public @NotNull Builder ascii(boolean ascii) {
+            this.ascii = ascii;
+            return this;
+        }
+
+        /**
+         * Whether to extract the UTF-16LE strings, the default is true.
+         */
+        public @NotNull Builder utf16le(boolean utf16le) {
+            this.utf16le = utf16le;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if {@code minLength} is greater than {@code maxLength}
+         */
+        public @NotNull StringExtractor build() {
+            if (minLength > maxLength) {
+                throw new IllegalArgumentException("minLength must not be greater than maxLength");
+            }
+            return new StringExtractor(this);
+        }
+    }
+
+    /**
+     * A string found by {@link StringExtractor}.
+     */
+    public static final class ExtractedString {
+        private final String text;
+        private final Encoding encoding;
+        private final long fileOffset;
+        private final long rva;
+        private final Section section;
+
+        ExtractedString(String text, Encoding encoding, long fileOffset, long rva, Section section) {
+            this.text = text;
+            this.encoding = encoding;
+            this.fileOffset = fileOffset;
+            this.rva = rva;
+            this.section = section;
+        }
+
+        public @NotNull String getText() {
+            return text;
+        }
+
+        public @NotNull Encoding getEncoding() {
+            return encoding;
+        }
+
+        /**
+         * @return the file offset of the first byte
+         */
+        public long getFileOffset() {
+            return fileOffset;
+        }
+
+        /**
+         * @return the RVA of the first byte, as an unsigned value, or -1 if the offset is not mapped
+         */
+        public long getRva() {
+            return rva;
+        }
+
+        /**
+         * @return the section containing the first byte, or null if it's in the headers or the overlay
+         */
+        public @Nullable Section getSection() {
+            return section;
+        }
+
+        @Override
+        public String toString() {
+            return "ExtractedString{text=\"" + text + "\", encoding=" + encoding + ", fileOffset=" +
+                   U.hex(fileOffset) + ", rva=" + (rva < 0 ? "-1" : U.hex(rva)) + ", section=" +
+                   (section == null ? "null" : section.getName()) + "}";
+        }
+    }
+}
@@ -2,6 +2,7 @@ package space.iseki.pefile;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
@@ -16,6 +17,12 @@ final class I {
                                                     .withInvokeExactBehavior();
     public static final VarHandle LA = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN)
                                                     .withInvokeExactBehavior();
+    public static final VarHandle BIA = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN)
+                                                     .withInvokeExactBehavior();
+    public static final VarHandle BSA = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN)
+                                                     .withInvokeExactBehavior();
+    public static final VarHandle BLA = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN)
+                                                     .withInvokeExactBehavior();
 
     public static short u16(byte[] buf, int off) {
         return (short) SA.get(buf, off);
@@ -33,6 +40,22 @@ final class I {
         return (long) LA.get(buf, off);
     }
 
+    public static short u16(ByteBuffer buf, int off) {
+        return (short) BSA.get(buf, off);
+    }
+
+    public static int u32(ByteBuffer buf, int off) {
+        return (int) BIA.get(buf, off);
+    }
+
+    public static long u32L(ByteBuffer buf, int off) {
+        return Integer.toUnsignedLong(u32(buf, off));
+    }
+
+    public static long u64(ByteBuffer buf, int off) {
+        return (long) BLA.get(buf, off);
+    }
+
 }
 
 
@@ -47,10 +70,22 @@ final class U {
         return new String(buf, off, len, StandardCharsets.ISO_8859_1);
     }
 
+    public static String getNullString(ByteBuffer buf, int off, int len) {
+        var bytes = new byte[len];
+        buf.get(off, bytes);
+        return getNullString(bytes, 0, len);
+    }
+
     public static String hex(byte[] bytes, int off, int len) {
         return "0x" + HexFormat.of().formatHex(bytes, off, len);
     }
 
+    public static String hex(ByteBuffer buf, int off, int len) {
+        var bytes = new byte[len];
+        buf.get(off, bytes);
+        return hex(bytes, 0, len);
+    }
+
     public static String hex(int i) {
         return "0x" + Integer.toHexString(i);
     }
@@ -2,32 +2,66 @@ package space.iseki.pefile;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Just for historical reason, provide some simple methods
  */
 final class WrappedDataAccessor implements AutoCloseable {
+    private static final long SIZE_UNRESOLVED = -2;
     private final DataAccessorV2 dataAccessor;
+    private volatile long size = SIZE_UNRESOLVED;
 
     WrappedDataAccessor(DataAccessorV2 dataAccessor) {
         this.dataAccessor = dataAccessor;
     }
 
     public static WrappedDataAccessor of(Path path) throws IOException {
+        return of(path, OpenOptions.DEFAULT);
+    }
+
+    public static WrappedDataAccessor of(Path path, BlockCache cache) throws IOException {
+        var options = OpenOptions.builder()
+                                 .accessStrategy(OpenOptions.AccessStrategy.POSITIONAL)
+                                 .blockCache(cache)
+                                 .build();
+        return of(path, options);
+    }
+
+    public static WrappedDataAccessor of(Path path, OpenOptions options) throws IOException {
         var ch = FileChannel.open(path, StandardOpenOption.READ);
+        DataAccessorV2 mmap = null;
         try {
-            return Optional.ofNullable(MmapHelper.accessorOf(ch))
-                           .or(() -> Optional.of(new SeekableByteChannelDataAccessorV2(ch)))
-                           .map(WrappedDataAccessor::new)
-                           .get();
+            var strategy = options.resolve(ch.size());
+            if (strategy == OpenOptions.AccessStrategy.HEAP) {
+                var data = readAll(ch);
+                ch.close();
+                return new WrappedDataAccessor(new ByteBufferDataAccessorV2(ByteBuffer.wrap(data)));
+            }
+            if (strategy == OpenOptions.AccessStrategy.MMAP) {
+                mmap = MmapHelper.accessorOf(ch);
+                if (mmap != null) {
+                    // the mapping is still valid after the channel is closed
+                    ch.close();
+                    return new WrappedDataAccessor(mmap);
+                }
+            }
+            DataAccessorV2 positional = new FileChannelDataAccessorV2(ch);
+            if (options.getBlockCache() != null) {
+                positional = new CachingDataAccessorV2(positional, options.getBlockCache());
+            }
+            return new WrappedDataAccessor(positional);
         } catch (Throwable th) {
             try {
                 ch.close();
+                if (mmap != null) mmap.close();
             } catch (Throwable t) {
                 th.addSuppressed(t);
             }
@@ -35,7 +69,18 @@ final class WrappedDataAccessor implements AutoCloseable {
         }
     }
 
+    private static byte[] readAll(FileChannel ch) throws IOException {
+        var buffer = ByteBuffer.allocate((int) ch.size());
+        while (buffer.hasRemaining()) {
+            if (ch.read(buffer, buffer.position()) < 0) break;
+        }
+        return buffer.position() == buffer.capacity() ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
     public static WrappedDataAccessor of(SeekableByteChannel channel) throws IOException {
+        if (channel instanceof FileChannel) {
+            return new WrappedDataAccessor(new FileChannelDataAccessorV2((FileChannel) channel));
+        }
         return new WrappedDataAccessor(new SeekableByteChannelDataAccessorV2(channel));
     }
 
@@ -51,14 +96,196 @@ final class WrappedDataAccessor implements AutoCloseable {
     }
 
     public int readAtMost(long pos, byte[] buf, int off, int len) throws IOException {
-        var buffer = java.nio.ByteBuffer.wrap(buf, off, len);
-        return dataAccessor.read(buffer, pos);
+        return readAtMost(pos, ByteBuffer.wrap(buf, off, len));
+    }
+
+    /**
+     * Reads into the remaining of {@code buffer}, until it's full or the end of data reached.
+     *
+     * @return the number of bytes read, or -1 if {@code pos} is at the end of data
+     */
+    public int readAtMost(long pos, ByteBuffer buffer) throws IOException {
+        var size = size();
+        if (size >= 0 && buffer.remaining() > size - pos) {
+            // stop at the end, rather than asking the accessor for the bytes beyond it
+            if (pos >= size) return buffer.hasRemaining() ? -1 : 0;
+            var limit = buffer.limit();
+            buffer.limit(buffer.position() + (int) (size - pos));
+            try {
+                return readAtMost0(pos, buffer);
+            } finally {
+                buffer.limit(limit);
+            }
+        }
+        return readAtMost0(pos, buffer);
+    }
+
+    private int readAtMost0(long pos, ByteBuffer buffer) throws IOException {
+        var total = 0;
+        while (buffer.hasRemaining()) {
+            var n = dataAccessor.read(buffer, pos + total);
+            if (n < 0) return total == 0 ? n : total;
+            if (n == 0) break;
+            total += n;
+        }
+        return total;
     }
 
     public int readAtMost(long pos, byte[] buf) throws IOException {
         return readAtMost(pos, buf, 0, buf.length);
     }
 
+    /**
+     * Reads into the buffers in order, until they're full or the end of data reached.
+     * <p>
+     * Each call of the accessor is a single vectored read, so a backend with a per-request cost serves the whole
+     * range at once.
+     *
+     * @return the number of bytes read, or -1 if {@code pos} is at the end of data
+     */
+    public long readAtMost(long pos, ByteBuffer[] buffers) throws IOException {
+        var total = 0L;
+        var first = 0;
+        while (true) {
+            while (first < buffers.length && !buffers[first].hasRemaining()) first++;
+            if (first == buffers.length) return total;
+            var rest = first == 0 ? buffers : Arrays.copyOfRange(buffers, first, buffers.length);
+            var n = dataAccessor.read(rest, pos + total);
+            if (n < 0) return total == 0 ? -1 : total;
+            if (n == 0) return total;
+            total += n;
+        }
+    }
+
+    /**
+     * @return whether the accessor serves {@link #readAtMost(long, ByteBuffer[])} by its own vectored read, rather
+     * than a read for each buffer
+     */
+    boolean hasVectoredRead() {
+        return dataAccessor instanceof CustomDataAccessorV2;
+    }
+
+    /**
+     * Returns the size of the data, it's resolved once.
+     *
+     * @return the size, or -1 if the accessor doesn't know it
+     */
+    public long size() throws IOException {
+        var size = this.size;
+        if (size == SIZE_UNRESOLVED) {
+            size = Math.max(dataAccessor.size(), -1);
+            this.size = size;
+        }
+        return size;
+    }
+
+    /**
+     * Returns a read-only, little-endian view of exactly {@code len} bytes since {@code pos}.
+     * <p>
+     * The view borrows the underlying mapping if possible, otherwise the bytes are copied into a heap buffer.
+     *
+     * @throws EOFException if there are not enough bytes
+     */
+    public ByteBuffer view(long pos, int len) throws IOException {
+        var view = viewAtMost(pos, len);
+        if (view.remaining() != len) {
+            throw new EOFException("Expected " + len + " bytes, but only read " + view.remaining() + " bytes");
+        }
+        return view;
+    }
+
+    /**
+     * Same as {@link #view(long, int)}, but the view might be shorter if the end of data reached.
+     */
+    public ByteBuffer viewAtMost(long pos, int len) throws IOException {
+        var view = dataAccessor.view(pos, len);
+        if (view == null) {
+            var buf = new byte[len];
+            var n = Math.max(readAtMost(pos, buf), 0);
+            view = ByteBuffer.wrap(buf, 0, n).slice().asReadOnlyBuffer();
+        }
+        return view.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Same as {@link #viewAtMost(long, int)}, but returns null instead of copying if the accessor can't provide a
+     * view.
+     */
+    public ByteBuffer viewAtMostIfShared(long pos, int len) throws IOException {
+        var view = dataAccessor.view(pos, len);
+        return view == null ? null : view.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads at most {@code len} bytes since {@code pos} chunk by chunk, it stops at the end of data.
+     * <p>
+     * The chunks are shared views if possible, otherwise they're read into a buffer reused across the chunks,
+     * so a chunk is only valid during the call of {@code consumer}.
+     *
+     * @param len the number of bytes, or -1 for all bytes to the end of data
+     * @return the number of bytes scanned
+     */
+    public long scan(long pos, long len, int chunkSize, ChunkConsumer consumer) throws IOException {
+        ByteBuffer buffer = null;
+        var size = size();
+        var remaining = len < 0 ? (size < 0 ? Long.MAX_VALUE : Math.max(0, size - pos)) : len;
+        var total = 0L;
+        while (remaining > 0) {
+            var n = (int) Math.min(chunkSize, remaining);
+            var chunk = viewAtMostIfShared(pos + total, n);
+            if (chunk == null) {
+                if (buffer == null) buffer = ByteBuffer.allocate(n).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.clear().limit(n);
+                if (readAtMost(pos + total, buffer) < 1) break;
+                chunk = buffer.flip();
+            }
+            var read = chunk.remaining();
+            if (read == 0) break;
+            consumer.accept(chunk);
+            total += read;
+            remaining -= read;
+            if (read < n) break;
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    interface ChunkConsumer {
+        void accept(ByteBuffer chunk) throws IOException;
+    }
+
+    /**
+     * Reads the range into memory in background if the accessor supports it, so that later reads don't block.
+     *
+     * @return completes when the range is available, or immediately if the accessor doesn't support prefetching
+     */
+    public CompletableFuture<Void> prefetch(long pos, int len) {
+        if (dataAccessor instanceof PrefetchDataAccessorV2) {
+            return ((PrefetchDataAccessorV2) dataAccessor).prefetch(pos, len);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * @return the number of bytes held by the prefetched regions, or 0 if the accessor doesn't support prefetching
+     */
+    long prefetchedBytes() {
+        if (dataAccessor instanceof PrefetchDataAccessorV2) {
+            return ((PrefetchDataAccessorV2) dataAccessor).prefetched();
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a read-only channel over {@code size} bytes since {@code offset}, the position of the channel is
+     * relative to {@code offset}.
+     * <p>
+     * Closing the channel doesn't close this accessor.
+     */
+    public SeekableByteChannel channel(long offset, long size) {
+        return new DataAccessorReadableChannel(dataAccessor, offset, size);
+    }
+
     public boolean isOpen() {
         return dataAccessor.isOpen();
     }
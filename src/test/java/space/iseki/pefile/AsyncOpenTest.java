@@ -0,0 +1,102 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+public class AsyncOpenTest {
+
+    private static Path write(byte[] data) throws Exception {
+        var file = Files.createTempFile("pefile", ".exe");
+        Files.write(file, data);
+        return file;
+    }
+
+    @Test
+    public void testOpenAsync() throws Exception {
+        var file = write(TestImages.sample());
+        try (var pe = PEFile.openAsync(file).get()) {
+            InMemoryOpenTest.assertSample(pe);
+
+            var entries = pe.getImportTable().materializeAsync().get();
+            var imports = new ArrayList<String>();
+            for (var entry : entries) {
+                for (var symbol : entry.symbols()) {
+                    imports.add(entry.getName() + "!" + symbol.getName());
+                }
+            }
+            Assertions.assertEquals(List.of("KERNEL32.dll!ExitProcess",
+                                            "KERNEL32.dll!GetProcAddress",
+                                            "WS2_32.dll!3",
+                                            "WS2_32.dll!23"), imports);
+
+            //noinspection DataFlowIssue
+            var types = pe.listChildrenAsync(pe.getResourceRoot()).get();
+            Assertions.assertEquals(1, types.size());
+            Assertions.assertEquals("<ID:3>", types.get(0).getResourceName());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testPrefetchOnlyNeededRanges() throws Exception {
+        var imports = new LinkedHashMap<String, List<Object>>();
+        imports.put("KERNEL32.dll", List.of("ExitProcess", "GetProcAddress"));
+        var idata = Arrays.copyOf(TestImages.imports(0x2000, imports), 8 << 20);
+        var b = new TestImages.Builder();
+        b.section(".idata", 0x2000, idata.length, idata, SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 20 * 2);
+        var file = write(b.build());
+        try (var pe = PEFile.openAsync(file).get()) {
+            var entries = pe.getImportTable().materializeAsync().get();
+            var symbols = new ArrayList<String>();
+            for (var entry : entries) {
+                for (var symbol : entry.symbols()) {
+                    symbols.add(entry.getName() + "!" + symbol.getName());
+                }
+            }
+            Assertions.assertEquals(List.of("KERNEL32.dll!ExitProcess", "KERNEL32.dll!GetProcAddress"), symbols);
+            // the section is 8 MiB, only the headers, the tables and the names are prefetched
+            var prefetched = pe.accessor().prefetchedBytes();
+            Assertions.assertTrue(prefetched < 16 << 10, "prefetched " + prefetched);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testInvalidFile() throws Exception {
+        var file = write(new byte[64]);
+        try {
+            var e = Assertions.assertThrows(ExecutionException.class, () -> PEFile.openAsync(file).get());
+            Assertions.assertInstanceOf(PEFileException.class, e.getCause());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testMissingFile() {
+        var e = Assertions.assertThrows(ExecutionException.class,
+                                        () -> PEFile.openAsync(Path.of("no-such-file.exe")).get());
+        Assertions.assertInstanceOf(UncheckedIOException.class, e.getCause());
+    }
+
+    @Test
+    public void testBlockingFile() throws Exception {
+        try (var pe = PEFile.open(TestImages.sample())) {
+            var future = pe.getImportTable().materializeAsync();
+            Assertions.assertTrue(future.isDone());
+            Assertions.assertEquals(2, future.get().size());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BlockCacheTest {
+
+    @Test
+    public void testShared() throws Exception {
+        var cache = new BlockCache(512, 64);
+        var image = TestImages.sample();
+        var first = new DataAccessorTest.RangeReadStore(image);
+        try (var pe = PEFile.open(first, cache)) {
+            InMemoryOpenTest.assertSample(pe);
+        }
+        // the blocks of a closed file are dropped
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertTrue(cache.getHitCount() > 0);
+        // each block is fetched once, the store serves 512 bytes per request
+        Assertions.assertEquals(cache.getMissCount(), first.requests.get());
+
+        var second = new DataAccessorTest.RangeReadStore(image);
+        try (var pe = PEFile.open(second, cache)) {
+            InMemoryOpenTest.assertSample(pe);
+            Assertions.assertTrue(cache.size() > 0);
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        var cache = new BlockCache(16, 2);
+        var store = new DataAccessorTest.RangeReadStore(TestImages.sample());
+        try (var pe = PEFile.open(store, cache)) {
+            InMemoryOpenTest.assertSample(pe);
+            Assertions.assertEquals(2, cache.size());
+        }
+        Assertions.assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    @Test
+    public void testPath() throws Exception {
+        var file = Files.createTempFile("pefile", ".exe");
+        try {
+            Files.write(file, TestImages.sample());
+            var cache = new BlockCache(4096, 16, BlockCache.Eviction.FIFO);
+            try (var pe = PEFile.open(file, cache)) {
+                InMemoryOpenTest.assertSample(pe);
+            }
+            Assertions.assertTrue(cache.getHitCount() > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        var cache = new BlockCache(512, 64);
+        var image = TestImages.sample();
+        try (var first = PEFile.open(new DataAccessorTest.RangeReadStore(image), cache)) {
+            InMemoryOpenTest.assertSample(first);
+            var blocks = cache.size();
+            try (var second = PEFile.open(new DataAccessorTest.RangeReadStore(image), cache)) {
+                InMemoryOpenTest.assertSample(second);
+                Assertions.assertTrue(cache.size() > blocks);
+            }
+            // only the blocks of the closed file are dropped
+            Assertions.assertEquals(blocks, cache.size());
+        }
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testPutAfterInvalidate() {
+        var cache = new BlockCache(16, 4);
+        var source = cache.newSource();
+        cache.put(source, 0, new byte[16]);
+        cache.invalidate(source);
+        // a read racing the close
+        cache.put(source, 1, new byte[16]);
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertNull(cache.get(source, 1));
+    }
+
+    @Test
+    public void testViewPropagatesIOException() {
+        var failing = new DataAccessor() {
+            @Override
+            public int read(@NotNull ByteBuffer dst, long position) throws IOException {
+                throw new IOException("broken");
+            }
+
+            @Override
+            public long size() {
+                return 1024;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        var accessor = new CachingDataAccessorV2(new CustomDataAccessorV2(failing), new BlockCache(512, 4));
+        Assertions.assertThrows(IOException.class, () -> accessor.view(0, 16));
+    }
+
+    @Test
+    public void testShortRead() throws Exception {
+        var image = TestImages.sample();
+        var calls = new AtomicInteger();
+        // an empty read, then short reads of at most 100 bytes, then the end of the content
+        var store = new DataAccessor() {
+            @Override
+            public int read(@NotNull ByteBuffer dst, long position) {
+                if (position >= 1000) return -1;
+                if (calls.getAndIncrement() == 0) return 0;
+                var n = (int) Math.min(Math.min(dst.remaining(), 100), 1000 - position);
+                dst.put(image, (int) position, n);
+                return n;
+            }
+
+            @Override
+            public long size() {
+                return image.length;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        var cache = new BlockCache(512, 4);
+        var accessor = new CachingDataAccessorV2(new CustomDataAccessorV2(store), cache);
+        var buffer = ByteBuffer.allocate(512);
+        Assertions.assertEquals(512, accessor.read(buffer, 0));
+        Assertions.assertArrayEquals(Arrays.copyOf(image, 512), buffer.array());
+        // the block ends before the end of the file, it isn't cached
+        Assertions.assertEquals(488, accessor.read(ByteBuffer.allocate(512), 512));
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLastBlock() throws Exception {
+        var image = Arrays.copyOf(TestImages.sample(), 700);
+        var store = new DataAccessorTest.RangeReadStore(image);
+        var cache = new BlockCache(512, 4);
+        var accessor = new CachingDataAccessorV2(new CustomDataAccessorV2(store), cache);
+        Assertions.assertEquals(188, accessor.read(ByteBuffer.allocate(512), 512));
+        Assertions.assertEquals(188, accessor.read(ByteBuffer.allocate(512), 512));
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testSegments() {
+        var cache = new BlockCache(16, 1000, BlockCache.Eviction.FIFO);
+        var first = cache.newSource();
+        var second = cache.newSource();
+        for (int i = 0; i < 1000; i++) {
+            cache.put(first, i, new byte[16]);
+        }
+        // each segment evicts on its own
+        Assertions.assertEquals(1000, cache.size() + cache.getEvictionCount());
+        Assertions.assertNotNull(cache.get(first, 999));
+        for (int i = 0; i < 100; i++) {
+            cache.put(second, i, new byte[16]);
+        }
+        Assertions.assertEquals(1100, cache.size() + cache.getEvictionCount());
+        Assertions.assertTrue(cache.size() <= 1000);
+        var kept = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.get(second, i) != null) kept++;
+        }
+        cache.invalidate(first);
+        Assertions.assertEquals(kept, cache.size());
+        Assertions.assertNotNull(cache.get(second, 99));
+        cache.clear();
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertNull(cache.get(second, 99));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BlockCache(0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BlockCache(1, 0));
+    }
+}
@@ -0,0 +1,80 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+public class BoundImportTest {
+    /**
+     * The bound import directory is in the unused tail of the headers, as the linker places it.
+     */
+    private static final int DIRECTORY = 0x1c0;
+
+    /**
+     * {@code KERNEL32.dll} bound to {@code 0x5000}, forwarding to {@code NTDLL.DLL} bound to {@code 0x6000}.
+     */
+    private static byte[] image() {
+        var imports = ByteBuffer.wrap(TestImages.imports(0x2000, Map.of("KERNEL32.dll", List.of("Sleep", 7))))
+                                .order(ByteOrder.LITTLE_ENDIAN);
+        // bound by the new-style binding
+        imports.putInt(4, -1);
+        imports.putLong(0x48, TestImages.IMAGE_BASE + 0x80001000L);
+        imports.putLong(0x50, TestImages.IMAGE_BASE + 0x80002000L);
+        var b = new TestImages.Builder();
+        b.section(".idata", 0x2000, 0x400, imports.array(), SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 40);
+        b.directory(11, DIRECTORY, 0x40);
+        var buf = ByteBuffer.wrap(b.build()).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(DIRECTORY, 0x5000).putShort(DIRECTORY + 4, (short) 0x20).putShort(DIRECTORY + 6, (short) 1);
+        buf.putInt(DIRECTORY + 8, 0x6000).putShort(DIRECTORY + 12, (short) 0x2d);
+        buf.put(DIRECTORY + 0x20, "KERNEL32.dll".getBytes(StandardCharsets.US_ASCII));
+        buf.put(DIRECTORY + 0x2d, "NTDLL.DLL".getBytes(StandardCharsets.US_ASCII));
+        return buf.array();
+    }
+
+    @Test
+    public void testBoundImports() throws Exception {
+        try (var pe = PEFile.open(image())) {
+            var expected = List.of(new BoundImport(0x5000, "KERNEL32.dll", List.of(new BoundImport(0x6000,
+                                                                                                  "NTDLL.DLL",
+                                                                                                  List.of()))));
+            Assertions.assertEquals(expected, pe.getBoundImports());
+            Assertions.assertEquals(-1, pe.getImportTable().iterator().next().getTimeDateStamp());
+        }
+    }
+
+    @Test
+    public void testBoundAddresses() throws Exception {
+        try (var pe = PEFile.open(image())) {
+            var snapshot = pe.getImportTable().snapshot();
+            Assertions.assertEquals(0x2048, snapshot.getIatRva(0));
+            Assertions.assertEquals(TestImages.IMAGE_BASE + 0x80001000L, snapshot.getBoundAddress(0));
+            Assertions.assertEquals(TestImages.IMAGE_BASE + 0x80002000L, snapshot.getBoundAddress(1));
+            // the ILT is intact, the symbols are read from it rather than the bound IAT
+            Assertions.assertEquals("Sleep", snapshot.getSymbolName(0));
+            Assertions.assertEquals(7, snapshot.getOrdinal(1));
+        }
+    }
+
+    @Test
+    public void testUnterminated() throws Exception {
+        var data = image();
+        var b = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        for (int off = DIRECTORY + 8; off < 0x200; off++) b.put(off, (byte) 1);
+        try (var pe = PEFile.open(data)) {
+            Assertions.assertThrows(PEFileException.class, pe::getBoundImports);
+        }
+    }
+
+    @Test
+    public void testNoBoundImports() throws Exception {
+        try (var pe = PEFile.open(TestImages.sample())) {
+            Assertions.assertEquals(List.of(), pe.getBoundImports());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package space.iseki.pefile;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DataAccessorTest {
+
+    /**
+     * Stands in for a range-read object storage, every read is a range request.
+     */
+    static final class RangeReadStore implements DataAccessor {
+        final byte[] object;
+        final AtomicInteger requests = new AtomicInteger();
+        volatile boolean open = true;
+
+        RangeReadStore(byte[] object) {
+            this.object = object;
+        }
+
+        @Override
+        public int read(@NotNull ByteBuffer dst, long position) throws IOException {
+            if (!open) throw new IOException("closed");
+            requests.incrementAndGet();
+            if (position >= object.length) return -1;
+            // serve at most 512 bytes per request, the caller should ask for the rest
+            var n = (int) Math.min(Math.min(dst.remaining(), 512), object.length - position);
+            dst.put(object, (int) position, n);
+            return n;
+        }
+
+        @Override
+        public long size() {
+            return object.length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+    /**
+     * Serves a vectored read as a single request, and records the requests beyond the end.
+     */
+    static final class VectoredStore implements DataAccessor {
+        final byte[] object;
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger vectoredRequests = new AtomicInteger();
+        final AtomicInteger requestsBeyondEnd = new AtomicInteger();
+        final AtomicInteger sizeRequests = new AtomicInteger();
+
+        VectoredStore(byte[] object) {
+            this.object = object;
+        }
+
+        @Override
+        public int read(@NotNull ByteBuffer dst, long position) {
+            requests.incrementAndGet();
+            if (position >= object.length) {
+                requestsBeyondEnd.incrementAndGet();
+                return -1;
+            }
+            var n = (int) Math.min(dst.remaining(), object.length - position);
+            dst.put(object, (int) position, n);
+            return n;
+        }
+
+        @Override
+        public long read(@NotNull ByteBuffer @NotNull [] dsts, long position) {
+            vectoredRequests.incrementAndGet();
+            if (position >= object.length) {
+                requestsBeyondEnd.incrementAndGet();
+                return -1;
+            }
+            var total = 0L;
+            for (var dst : dsts) {
+                var n = (int) Math.min(dst.remaining(), object.length - position - total);
+                dst.put(object, (int) (position + total), n);
+                total += n;
+            }
+            return total;
+        }
+
+        @Override
+        public long size() {
+            sizeRequests.incrementAndGet();
+            return object.length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testOpen() throws Exception {
+        var store = new RangeReadStore(TestImages.sample());
+        try (var pe = PEFile.open(store)) {
+            InMemoryOpenTest.assertSample(pe);
+        }
+        Assertions.assertTrue(store.requests.get() > 0);
+        Assertions.assertFalse(store.isOpen());
+    }
+
+    @Test
+    public void testClosedOnFailure() {
+        var store = new RangeReadStore(new byte[64]);
+        Assertions.assertThrows(PEFileException.class, () -> PEFile.open(store));
+        Assertions.assertFalse(store.isOpen());
+    }
+
+    @Test
+    public void testVectoredRead() throws IOException {
+        var store = new RangeReadStore(TestImages.sample());
+        var a = ByteBuffer.allocate(600);
+        var b = ByteBuffer.allocate(100);
+        Assertions.assertEquals(700, store.read(new ByteBuffer[]{a, b}, 0));
+        Assertions.assertFalse(a.hasRemaining());
+        Assertions.assertFalse(b.hasRemaining());
+        Assertions.assertEquals('M', a.get(0));
+        var tail = ByteBuffer.allocate(16);
+        Assertions.assertEquals(-1, store.read(new ByteBuffer[]{tail}, store.size()));
+    }
+
+    @Test
+    public void testVectoredReadThroughOpen() throws Exception {
+        var store = new VectoredStore(TestImages.sample());
+        try (var pe = PEFile.open(store)) {
+            InMemoryOpenTest.assertSample(pe);
+            // the import descriptors and the resource children are batched
+            Assertions.assertTrue(store.vectoredRequests.get() > 0);
+            Assertions.assertEquals(1, store.sizeRequests.get());
+        }
+    }
+
+    @Test
+    public void testSizeStopsReads() throws Exception {
+        var image = TestImages.sample();
+        var store = new VectoredStore(image);
+        try (var pe = PEFile.open(store)) {
+            Assertions.assertEquals(1, pe.hashFile(Set.of("SHA-256")).size());
+            pe.overlayHistogram();
+            var buf = pe.view(image.length - 8, 8);
+            Assertions.assertEquals(8, buf.remaining());
+            Assertions.assertEquals(0, store.requestsBeyondEnd.get());
+        }
+    }
+}
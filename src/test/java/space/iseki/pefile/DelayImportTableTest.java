@@ -0,0 +1,117 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DelayImportTableTest {
+    private static final int BASE = 0x4000;
+
+    /**
+     * {@code USER32.dll} with an RVA-based descriptor, {@code ADVAPI32.dll} with a legacy VA-based one.
+     */
+    private static byte[] image() {
+        return image(0x400);
+    }
+
+    private static byte[] image(int virtualSize) {
+        var buf = ByteBuffer.allocate(0x400).order(ByteOrder.LITTLE_ENDIAN);
+        var va = (int) TestImages.IMAGE_BASE;
+        descriptor(buf, 0, 1, BASE + 0x80, BASE + 0x100, BASE + 0x140, 0);
+        descriptor(buf, 32, 0, va + BASE + 0x90, va + BASE + 0x120, va + BASE + 0x160, va);
+        buf.put(0x80, "USER32.dll".getBytes(StandardCharsets.US_ASCII));
+        buf.put(0x90, "ADVAPI32.dll".getBytes(StandardCharsets.US_ASCII));
+        buf.putLong(0x100, BASE + 0x200);
+        buf.putLong(0x108, Long.MIN_VALUE | 5);
+        buf.putLong(0x120, va + BASE + 0x220);
+        buf.putShort(0x200, (short) 1).put(0x202, "MessageBoxA".getBytes(StandardCharsets.US_ASCII));
+        buf.putShort(0x220, (short) 2).put(0x222, "RegOpenKeyExW".getBytes(StandardCharsets.US_ASCII));
+        var b = new TestImages.Builder();
+        b.section(".didat", BASE, virtualSize, buf.array(), SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(13, BASE, 32 * 3);
+        return b.build();
+    }
+
+    private static void descriptor(ByteBuffer buf, int off, int attributes, int name, int nameTable, int iat,
+                                   int moduleHandleBase) {
+        buf.putInt(off, attributes);
+        buf.putInt(off + 4, name);
+        buf.putInt(off + 8, moduleHandleBase + BASE + 0x180);
+        buf.putInt(off + 12, iat);
+        buf.putInt(off + 16, nameTable);
+    }
+
+    @Test
+    public void testIterator() throws Exception {
+        try (var pe = PEFile.open(image())) {
+            var result = new ArrayList<String>();
+            for (var entry : pe.getDelayImportTable()) {
+                for (var symbol : entry.symbols()) {
+                    result.add(entry.getName() + "!" + symbol.getName());
+                }
+            }
+            Assertions.assertEquals(List.of("USER32.dll!MessageBoxA", "USER32.dll!5", "ADVAPI32.dll!RegOpenKeyExW"),
+                                    result);
+            var it = pe.getDelayImportTable().iterator();
+            var user32 = it.next();
+            Assertions.assertTrue(user32.isRvaBased());
+            Assertions.assertEquals(BASE + 0x140, user32.getImportAddressTableRva());
+            var advapi32 = it.next();
+            Assertions.assertFalse(advapi32.isRvaBased());
+            Assertions.assertEquals(BASE + 0x120, advapi32.getImportNameTableRva());
+            Assertions.assertEquals(BASE + 0x160, advapi32.getImportAddressTableRva());
+            Assertions.assertEquals(BASE + 0x180, advapi32.getModuleHandleRva());
+            Assertions.assertEquals(0, advapi32.getBoundImportAddressTableRva());
+            Assertions.assertFalse(it.hasNext());
+        }
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        try (var pe = PEFile.open(image())) {
+            var snapshot = pe.getDelayImportTable().snapshot();
+            Assertions.assertSame(snapshot, pe.getDelayImportTable().snapshot());
+            Assertions.assertEquals(2, snapshot.size());
+            Assertions.assertEquals("USER32.dll", snapshot.getDllName(0));
+            Assertions.assertEquals("ADVAPI32.dll", snapshot.getDllName(1));
+            Assertions.assertEquals(3, snapshot.symbolCount());
+            Assertions.assertEquals("MessageBoxA", snapshot.getSymbolName(0));
+            Assertions.assertEquals(1, snapshot.getHint(0));
+            Assertions.assertEquals(5, snapshot.getOrdinal(1));
+            Assertions.assertEquals("RegOpenKeyExW", snapshot.getSymbolName(2));
+            Assertions.assertEquals(2, snapshot.getHint(2));
+            Assertions.assertEquals(BASE + 0x160, snapshot.getImportAddressTableRva(1));
+            // the regular import table is independent
+            Assertions.assertEquals(0, pe.getImportTable().snapshot().size());
+        }
+    }
+
+    @Test
+    public void testBeyondVirtualSize() throws Exception {
+        // the descriptors run past the virtual size 0x20, the raw data is 0x400 bytes
+        try (var pe = PEFile.open(image(0x20))) {
+            var result = new ArrayList<String>();
+            for (var entry : pe.getDelayImportTable()) {
+                for (var symbol : entry.symbols()) {
+                    result.add(entry.getName() + "!" + symbol.getName());
+                }
+            }
+            Assertions.assertEquals(List.of("USER32.dll!MessageBoxA", "USER32.dll!5", "ADVAPI32.dll!RegOpenKeyExW"),
+                                    result);
+            Assertions.assertEquals(3, pe.getDelayImportTable().snapshot().symbolCount());
+        }
+    }
+
+    @Test
+    public void testNoDelayImports() throws Exception {
+        try (var pe = PEFile.open(TestImages.sample())) {
+            Assertions.assertFalse(pe.getDelayImportTable().iterator().hasNext());
+            Assertions.assertEquals(0, pe.getDelayImportTable().snapshot().size());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class EntropyTest {
+
+    private static byte[] image(byte[] overlay) {
+        var uniform = new byte[0x400];
+        for (int i = 0; i < uniform.length; i++) uniform[i] = (byte) i;
+        var half = new byte[0x400];
+        // the first half is zero, the second half is uniform
+        for (int i = 0x200; i < half.length; i++) half[i] = (byte) i;
+        var b = new TestImages.Builder();
+        b.section(".a", 0x1000, 0x400, uniform, SectionFlags.CNT_INITIALIZED_DATA);
+        b.section(".b", 0x2000, 0x400, half, SectionFlags.CNT_INITIALIZED_DATA);
+        b.section(".c", 0x3000, 0x400, new byte[0x200], SectionFlags.CNT_INITIALIZED_DATA);
+        var image = b.build();
+        var result = Arrays.copyOf(image, image.length + overlay.length);
+        System.arraycopy(overlay, 0, result, image.length, overlay.length);
+        return result;
+    }
+
+    @Test
+    public void testSections() throws Exception {
+        try (var pe = PEFile.open(image(new byte[0]))) {
+            var a = pe.getSections().get(0);
+            var histogram = a.byteHistogram();
+            Assertions.assertEquals(256, histogram.length);
+            for (var c : histogram) Assertions.assertEquals(4, c);
+            Assertions.assertEquals(8.0, a.entropy(), 1e-9);
+            Assertions.assertEquals(0.0, pe.getSections().get(2).entropy(), 1e-9);
+            var profile = pe.getSections().get(1).entropyProfile(0x200, 0x100);
+            // the middle window has 257 zeros and 255 other values once
+            var middle = new long[256];
+            Arrays.fill(middle, 1);
+            middle[0] = 257;
+            Assertions.assertArrayEquals(new double[]{0, ByteStatistics.entropy(middle), 8}, profile, 1e-9);
+            Assertions.assertArrayEquals(new double[]{a.entropy()}, a.entropyProfile(0x800, 0x800), 1e-9);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> a.entropyProfile(0x300, 0x200));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> a.entropyProfile(0, 0));
+        }
+    }
+
+    @Test
+    public void testOverlay() throws Exception {
+        var overlay = new byte[]{1, 1, 2, 2};
+        var image = image(overlay);
+        try (var pe = PEFile.open(image)) {
+            Assertions.assertEquals(image.length - overlay.length, pe.getOverlayOffset());
+            var histogram = pe.overlayHistogram();
+            Assertions.assertEquals(2, histogram[1]);
+            Assertions.assertEquals(2, histogram[2]);
+            Assertions.assertEquals(1.0, pe.overlayEntropy(), 1e-9);
+        }
+        try (var pe = PEFile.open(image(new byte[0]))) {
+            Assertions.assertEquals(0.0, pe.overlayEntropy());
+        }
+    }
+
+    @Test
+    public void testCounter() {
+        var data = new byte[1027];
+        new SplittableRandom(7).nextBytes(data);
+        var expected = new long[256];
+        for (var b : data) expected[b & 0xff]++;
+        var direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+        for (var buffer : new ByteBuffer[]{ByteBuffer.wrap(data), direct, ByteBuffer.wrap(data).asReadOnlyBuffer()}) {
+            var counter = new ByteCounter();
+            counter.update(buffer.position(1));
+            counter.update(buffer.position(0).limit(1));
+            Assertions.assertArrayEquals(expected, counter.counts());
+            Assertions.assertEquals(0, buffer.position());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class HashTest {
+    private static final Set<String> ALGORITHMS = new LinkedHashSet<>(List.of("MD5", "SHA-1", "SHA-256"));
+
+    private static byte[] digest(String algorithm, byte[] data, int off, int len) throws Exception {
+        var md = MessageDigest.getInstance(algorithm);
+        md.update(data, off, len);
+        return md.digest();
+    }
+
+    @Test
+    public void testHash() throws Exception {
+        var image = TestImages.sample();
+        var file = Files.createTempFile("pefile-hash", ".exe");
+        try {
+            Files.write(file, image);
+            var pool = new ForkJoinPool(2);
+            try (var heap = PEFile.open(image);
+                 var positional = PEFile.open(file, OpenOptions.builder()
+                                                               .accessStrategy(OpenOptions.AccessStrategy.POSITIONAL)
+                                                               .build())) {
+                for (var pe : List.of(heap, positional)) {
+                    var fileHashes = pe.hashFile(ALGORITHMS);
+                    Assertions.assertEquals(List.copyOf(ALGORITHMS), List.copyOf(fileHashes.keySet()));
+                    for (var algorithm : ALGORITHMS) {
+                        Assertions.assertArrayEquals(digest(algorithm, image, 0, image.length),
+                                                     fileHashes.get(algorithm));
+                    }
+                    var serial = pe.hashSections(ALGORITHMS);
+                    var parallel = pe.hashSections(ALGORITHMS, pool);
+                    Assertions.assertEquals(pe.getSections().size(), serial.size());
+                    for (int i = 0; i < pe.getSections().size(); i++) {
+                        var section = pe.getSections().get(i);
+                        for (var algorithm : ALGORITHMS) {
+                            var expected = digest(algorithm,
+                                                  image,
+                                                  section.getPointerToRawData(),
+                                                  section.getSizeOfRawData());
+                            Assertions.assertArrayEquals(expected, serial.get(i).get(algorithm));
+                            Assertions.assertArrayEquals(expected, parallel.get(i).get(algorithm));
+                        }
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testTruncated() throws Exception {
+        var image = TestImages.sample();
+        var truncated = Arrays.copyOf(image, image.length - 0x100);
+        try (var pe = PEFile.open(truncated)) {
+            var index = pe.getSections().size() - 1;
+            var last = pe.getSections().get(index);
+            var expected = digest("SHA-256", truncated, last.getPointerToRawData(), last.getSizeOfRawData() - 0x100);
+            Assertions.assertArrayEquals(expected, pe.hashSections(Set.of("SHA-256")).get(index).get("SHA-256"));
+        }
+    }
+
+    @Test
+    public void testIdenticalSectionHeaders() throws Exception {
+        var b = new TestImages.Builder();
+        b.section(".data", 0x1000, 0x10, new byte[]{1, 2, 3}, SectionFlags.CNT_INITIALIZED_DATA);
+        b.section(".data", 0x1000, 0x10, new byte[]{4, 5, 6}, SectionFlags.CNT_INITIALIZED_DATA);
+        var image = b.build();
+        // duplicate the first header, as the malformed samples do
+        var sectionTable = TestImages.PE_BEGIN + 24 + 240;
+        System.arraycopy(image, sectionTable, image, sectionTable + 40, 40);
+        try (var pe = PEFile.open(image)) {
+            Assertions.assertEquals(pe.getSections().get(0).toString(), pe.getSections().get(1).toString());
+            var hashes = pe.hashSections(Set.of("SHA-256"));
+            Assertions.assertEquals(2, hashes.size());
+            var first = pe.getSections().get(0);
+            var expected = digest("SHA-256", image, first.getPointerToRawData(), first.getSizeOfRawData());
+            Assertions.assertArrayEquals(expected, hashes.get(0).get("SHA-256"));
+            Assertions.assertArrayEquals(expected, hashes.get(1).get("SHA-256"));
+        }
+    }
+
+    @Test
+    public void testInvalidAlgorithm() throws Exception {
+        try (var pe = PEFile.open(TestImages.sample())) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> pe.hashFile(Set.of("NO-SUCH-DIGEST")));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> pe.hashSections(Set.of()));
+        }
+    }
+}
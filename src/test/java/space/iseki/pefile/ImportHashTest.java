@@ -0,0 +1,64 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ImportHashTest {
+
+    private static PEFile image(Map<String, List<Object>> dlls) {
+        var data = TestImages.imports(0x2000, dlls);
+        var b = new TestImages.Builder();
+        b.section(".idata", 0x2000, data.length, data, SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 20 * (dlls.size() + 1));
+        return PEFile.open(b.build());
+    }
+
+    @Test
+    public void testSample() throws Exception {
+        try (var pe = PEFile.open(TestImages.sample())) {
+            // kernel32.exitprocess,kernel32.getprocaddress,ws2_32.closesocket,ws2_32.socket
+            Assertions.assertEquals("56ddb6c3ec5c72946c0935b13a64806c", pe.getImportTable().imphash());
+            Assertions.assertEquals(-1904716644409348242L, pe.getImportTable().fingerprint());
+        }
+    }
+
+    @Test
+    public void testNormalization() throws Exception {
+        var dlls = new LinkedHashMap<String, List<Object>>();
+        dlls.put("CUSTOM.OCX", List.of(7, "MyFunc"));
+        dlls.put("OLEAUT32.dll", List.of(2));
+        dlls.put("driver.sys", List.of(65535));
+        try (var pe = image(dlls)) {
+            // custom.ord7,custom.myfunc,oleaut32.sysallocstring,driver.ord65535
+            Assertions.assertEquals("049e0e24364b83ee6610e702d65c7c42", pe.getImportTable().imphash());
+        }
+    }
+
+    @Test
+    public void testFingerprintIgnoresOrder() throws Exception {
+        var a = new LinkedHashMap<String, List<Object>>();
+        a.put("KERNEL32.dll", List.of("ExitProcess", "GetProcAddress"));
+        a.put("WS2_32.dll", List.of(3, 23));
+        var b = new LinkedHashMap<String, List<Object>>();
+        b.put("ws2_32.DLL", List.of("socket", 3, "closesocket"));
+        b.put("kernel32.dll", List.of("GetProcAddress", "exitprocess"));
+        try (var pa = image(a); var pb = image(b)) {
+            Assertions.assertEquals(pa.getImportTable().fingerprint(), pb.getImportTable().fingerprint());
+            Assertions.assertNotEquals(pa.getImportTable().imphash(), pb.getImportTable().imphash());
+        }
+    }
+
+    @Test
+    public void testNoImports() throws Exception {
+        var b = new TestImages.Builder();
+        b.section(".text", 0x1000, 0x10, new byte[]{(byte) 0xc3}, SectionFlags.CNT_CODE);
+        try (var pe = PEFile.open(b.build())) {
+            Assertions.assertEquals("", pe.getImportTable().imphash());
+            Assertions.assertEquals(0, pe.getImportTable().fingerprint());
+        }
+    }
+}
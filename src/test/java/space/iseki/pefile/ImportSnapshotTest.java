@@ -0,0 +1,156 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class ImportSnapshotTest {
+
+    private static List<String> iterate(PEFile pe) {
+        var result = new ArrayList<String>();
+        for (var entry : pe.getImportTable()) {
+            for (var symbol : entry.symbols()) {
+                result.add(entry.getName() + "!" + symbol.getName() + "#" + symbol.getOrdinal());
+            }
+        }
+        return result;
+    }
+
+    private static List<String> snapshot(ImportSnapshot snapshot) {
+        var result = new ArrayList<String>();
+        for (int d = 0; d < snapshot.size(); d++) {
+            for (int i = snapshot.symbolBegin(d); i < snapshot.symbolEnd(d); i++) {
+                var symbol = snapshot.getSymbol(i);
+                result.add(snapshot.getDllName(d) + "!" + symbol.getName() + "#" + symbol.getOrdinal());
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testSample() throws Exception {
+        try (var pe = PEFile.open(TestImages.sample())) {
+            var snapshot = pe.getImportTable().snapshot();
+            Assertions.assertSame(snapshot, pe.getImportTable().snapshot());
+            Assertions.assertEquals(2, snapshot.size());
+            Assertions.assertEquals(4, snapshot.symbolCount());
+            Assertions.assertEquals("KERNEL32.dll", snapshot.getDllName(0));
+            Assertions.assertEquals("WS2_32.dll", snapshot.getDllName(1));
+            Assertions.assertEquals(2, snapshot.symbolBegin(1));
+            Assertions.assertEquals(4, snapshot.symbolEnd(1));
+            Assertions.assertFalse(snapshot.isOrdinal(1));
+            Assertions.assertEquals("GetProcAddress", snapshot.getSymbolName(1));
+            Assertions.assertEquals(0, snapshot.getOrdinal(1));
+            Assertions.assertTrue(snapshot.isOrdinal(3));
+            Assertions.assertEquals(23, snapshot.getOrdinal(3));
+            Assertions.assertNull(snapshot.getSymbolName(3));
+            Assertions.assertEquals(iterate(pe), snapshot(snapshot));
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> snapshot.getDllName(2));
+        }
+    }
+
+    @Test
+    public void testIatSlots() throws Exception {
+        try (var pe = PEFile.open(TestImages.sample())) {
+            var snapshot = pe.getImportTable().snapshot();
+            var entry = pe.getImportTable().iterator().next();
+            Assertions.assertEquals(0x2070, entry.getImportAddressTableRva());
+            var slots = new ArrayList<Integer>();
+            for (var symbol : entry.symbols()) slots.add(symbol.getIatRva());
+            Assertions.assertEquals(List.of(0x2070, 0x2078), slots);
+            Assertions.assertEquals(0x2070, snapshot.getIatRva(0));
+            Assertions.assertEquals(0x2078, snapshot.getIatRva(1));
+            // WS2_32.dll follows the null slot terminating the KERNEL32.dll one
+            Assertions.assertEquals(0x2088, snapshot.getIatRva(2));
+            Assertions.assertEquals(0x2088, snapshot.getSymbol(2).getIatRva());
+            Assertions.assertEquals(3, snapshot.findByIatRva(0x2090));
+            Assertions.assertEquals(0, snapshot.findByIatRva(0x2070));
+            Assertions.assertEquals(-1, snapshot.findByIatRva(0x2080));
+            Assertions.assertEquals(-1, snapshot.findByIatRva(0));
+            Assertions.assertEquals(0, snapshot.getBoundAddress(0));
+        }
+    }
+
+    @Test
+    public void testLargeTable() throws Exception {
+        var dlls = new LinkedHashMap<String, List<Object>>();
+        for (int d = 0; d < 40; d++) {
+            var symbols = new ArrayList<Object>();
+            for (int i = 0; i < d * 5; i++) {
+                symbols.add(i % 3 == 0 ? (Object) (i + 1) : "Function_" + d + "_" + i);
+            }
+            dlls.put("LIBRARY" + d + ".dll", symbols);
+        }
+        var data = TestImages.imports(0x2000, dlls);
+        var b = new TestImages.Builder();
+        b.section(".idata", 0x2000, data.length, data, SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 20);
+        try (var pe = PEFile.open(b.build())) {
+            var snapshot = pe.getImportTable().snapshot();
+            Assertions.assertEquals(40, snapshot.size());
+            Assertions.assertEquals(iterate(pe), snapshot(snapshot));
+            Assertions.assertEquals(0x2000, snapshot.getImportLookupTableRva(0) & ~0xfff);
+        }
+    }
+
+    @Test
+    public void testBeyondVirtualSize() throws Exception {
+        var dlls = new LinkedHashMap<String, List<Object>>();
+        dlls.put("KERNEL32.dll", List.of("ExitProcess", "GetProcAddress"));
+        // the lookup table and the names are after the virtual size 0x40, the raw data is 0x400 bytes
+        var b = new TestImages.Builder();
+        b.section(".idata", 0x2000, 0x40, TestImages.imports(0x2000, dlls), SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 20 * 2);
+        try (var pe = PEFile.open(b.build())) {
+            var snapshot = pe.getImportTable().snapshot();
+            Assertions.assertEquals(List.of("KERNEL32.dll!ExitProcess#0", "KERNEL32.dll!GetProcAddress#0"),
+                                    snapshot(snapshot));
+            Assertions.assertEquals(iterate(pe), snapshot(snapshot));
+        }
+    }
+
+    @Test
+    public void testUnavailableName() throws Exception {
+        var dlls = new LinkedHashMap<String, List<Object>>();
+        dlls.put("KERNEL32.dll", List.of("ExitProcess"));
+        var data = TestImages.imports(0x2000, dlls);
+        // the hint/name entry of the lookup table at 0x30 is out of the sections
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putLong(0x30, 0x9000);
+        var b = new TestImages.Builder();
+        b.section(".idata", 0x2000, data.length, data, SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 20 * 2);
+        try (var pe = PEFile.open(b.build())) {
+            var snapshot = pe.getImportTable().snapshot();
+            Assertions.assertNull(snapshot.getSymbolName(0));
+            Assertions.assertEquals("", snapshot.getSymbol(0).getName());
+            var symbol = pe.getImportTable().iterator().next().symbols().iterator().next();
+            Assertions.assertEquals("", symbol.getName());
+            Assertions.assertEquals(snapshot.getSymbol(0), symbol);
+            Assertions.assertEquals(snapshot.getSymbol(0).hashCode(), symbol.hashCode());
+        }
+    }
+
+    @Test
+    public void testSymbolEquality() {
+        // the slot is not compared
+        Assertions.assertEquals(new ImportSymbol("ExitProcess", 0, 0x2070), new ImportSymbol("ExitProcess", 0, 0x3070));
+        Assertions.assertEquals(new ImportSymbol("ExitProcess", 0, 0x2070).hashCode(),
+                                new ImportSymbol("ExitProcess", 0, 0x3070).hashCode());
+        Assertions.assertNotEquals(new ImportSymbol("", 3, 0x2070), new ImportSymbol("", 23, 0x2070));
+    }
+
+    @Test
+    public void testNoImports() throws Exception {
+        var b = new TestImages.Builder();
+        b.section(".text", 0x1000, 0x10, new byte[]{(byte) 0xc3}, SectionFlags.CNT_CODE);
+        try (var pe = PEFile.open(b.build())) {
+            Assertions.assertEquals(0, pe.getImportTable().snapshot().size());
+            Assertions.assertEquals(0, pe.getImportTable().snapshot().symbolCount());
+        }
+    }
+}
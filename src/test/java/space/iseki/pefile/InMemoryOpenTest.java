@@ -0,0 +1,81 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class InMemoryOpenTest {
+
+    static void assertSample(PEFile pe) {
+        Assertions.assertEquals(MachineTypes.AMD64, pe.getCoffHeader().getMachine());
+        Assertions.assertTrue(pe.getStandardHeader().isPE32Plus());
+        Assertions.assertEquals(3, pe.getSections().size());
+        var imports = new ArrayList<String>();
+        for (var entry : pe.getImportTable()) {
+            for (var symbol : entry.symbols()) {
+                imports.add(entry.getName() + "!" + symbol.getName());
+            }
+        }
+        Assertions.assertEquals(List.of("KERNEL32.dll!ExitProcess",
+                                        "KERNEL32.dll!GetProcAddress",
+                                        "WS2_32.dll!3",
+                                        "WS2_32.dll!23"), imports);
+        var leaves = new ArrayList<String>();
+        //noinspection DataFlowIssue
+        for (var entry : new ResourceWalker(pe.getResourceRoot())) {
+            if (entry.getNode().isDataEntry()) {
+                leaves.add(entry.getPath().get(2).getResourceName() + ":" + entry.getNode().getSize());
+            }
+        }
+        Assertions.assertEquals(List.of("ICON:5"), leaves);
+    }
+
+    @Test
+    public void testByteArray() throws Exception {
+        try (var pe = PEFile.open(TestImages.sample())) {
+            assertSample(pe);
+        }
+    }
+
+    @Test
+    public void testDirectBufferWithOffset() throws Exception {
+        var image = TestImages.sample();
+        var buffer = ByteBuffer.allocateDirect(image.length + 16);
+        buffer.position(16);
+        buffer.put(image);
+        buffer.position(16);
+        try (var pe = PEFile.open(buffer)) {
+            assertSample(pe);
+            Assertions.assertEquals('M', pe.view(0, 2).get(0));
+        }
+        Assertions.assertEquals(16, buffer.position());
+    }
+
+    @Test
+    public void testClosed() throws Exception {
+        var pe = PEFile.open(TestImages.sample());
+        pe.close();
+        Assertions.assertThrows(IllegalStateException.class, () -> pe.view(0, 2));
+    }
+
+    @Test
+    public void testLookupTablePastVirtualSize() throws Exception {
+        var imports = new LinkedHashMap<String, List<Object>>();
+        imports.put("KERNEL32.dll", List.of(1, 2));
+        // the lookup table at 0x30 runs past the virtual size, the raw data is 0x400 bytes
+        var b = new TestImages.Builder();
+        b.section(".idata", 0x2000, 0x40, TestImages.imports(0x2000, imports), SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 20 * 2);
+        try (var pe = PEFile.open(b.build())) {
+            var ordinals = new ArrayList<Integer>();
+            for (var entry : pe.getImportTable()) {
+                for (var symbol : entry.symbols()) ordinals.add(symbol.getOrdinal());
+            }
+            Assertions.assertEquals(List.of(1, 2), ordinals);
+        }
+    }
+}
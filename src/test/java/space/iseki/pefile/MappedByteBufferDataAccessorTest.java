@@ -0,0 +1,120 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+public class MappedByteBufferDataAccessorTest {
+    private static final int CHUNK = 64;
+
+    private interface Body {
+        void run(MappedByteBufferDataAccessorV2 accessor, byte[] data) throws Exception;
+    }
+
+    /**
+     * Maps 200 bytes in windows of 64 bytes, the last window is 8 bytes.
+     */
+    private static void withAccessor(Body body) throws Exception {
+        var data = new byte[200];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+        var file = Files.createTempFile("pefile-mapped", ".bin");
+        try {
+            Files.write(file, data);
+            try (var ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                var accessor = MappedByteBufferDataAccessorV2.map(ch, CHUNK);
+                body.run(accessor, data);
+                accessor.close();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void assertBytes(byte[] data, int from, ByteBuffer actual) {
+        for (int i = 0; actual.hasRemaining(); i++) {
+            Assertions.assertEquals(data[from + i], actual.get());
+        }
+    }
+
+    @Test
+    public void testReadAcrossWindows() throws Exception {
+        withAccessor((accessor, data) -> {
+            // 60..190 spans the windows 0 to 2
+            var buf = ByteBuffer.allocate(130);
+            Assertions.assertEquals(130, accessor.read(buf, 60));
+            Assertions.assertFalse(buf.hasRemaining());
+            assertBytes(data, 60, buf.flip());
+        });
+    }
+
+    @Test
+    public void testReadEof() throws Exception {
+        withAccessor((accessor, data) -> {
+            var buf = ByteBuffer.allocate(32);
+            Assertions.assertEquals(10, accessor.read(buf, 190));
+            Assertions.assertEquals(10, buf.position());
+            assertBytes(data, 190, buf.flip());
+            Assertions.assertEquals(-1, accessor.read(ByteBuffer.allocate(1), 200));
+            Assertions.assertEquals(-1, accessor.read(ByteBuffer.allocate(1), 1000));
+        });
+    }
+
+    @Test
+    public void testViewInsideWindow() throws Exception {
+        withAccessor((accessor, data) -> {
+            var view = accessor.view(64, 64);
+            Assertions.assertNotNull(view);
+            Assertions.assertEquals(64, view.remaining());
+            assertBytes(data, 64, view);
+            // the tail window
+            var tail = accessor.view(192, 100);
+            Assertions.assertNotNull(tail);
+            Assertions.assertEquals(8, tail.remaining());
+            assertBytes(data, 192, tail);
+            Assertions.assertEquals(0, accessor.view(200, 4).remaining());
+        });
+    }
+
+    @Test
+    public void testViewAcrossWindows() throws Exception {
+        withAccessor((accessor, data) -> {
+            Assertions.assertNull(accessor.view(60, 8));
+            // the wrapper falls back to a copy
+            var wrapped = new WrappedDataAccessor(accessor);
+            var view = wrapped.view(60, 8);
+            Assertions.assertEquals(8, view.remaining());
+            assertBytes(data, 60, view);
+            var truncated = wrapped.viewAtMost(120, 100);
+            Assertions.assertEquals(80, truncated.remaining());
+            assertBytes(data, 120, truncated);
+        });
+    }
+
+    @Test
+    public void testClosed() throws Exception {
+        withAccessor((accessor, data) -> {
+            accessor.close();
+            Assertions.assertFalse(accessor.isOpen());
+            Assertions.assertThrows(IllegalStateException.class, () -> accessor.read(ByteBuffer.allocate(1), 0));
+            Assertions.assertThrows(IllegalStateException.class, () -> accessor.view(0, 1));
+        });
+    }
+
+    @Test
+    public void testOpenWithSmallWindows() throws Exception {
+        var file = Files.createTempFile("pefile-mapped", ".exe");
+        try {
+            Files.write(file, TestImages.sample());
+            try (var ch = FileChannel.open(file, StandardOpenOption.READ);
+                 var pe = PEFile.open(new WrappedDataAccessor(MappedByteBufferDataAccessorV2.map(ch, CHUNK)))) {
+                InMemoryOpenTest.assertSample(pe);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
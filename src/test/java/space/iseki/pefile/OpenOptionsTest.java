@@ -0,0 +1,89 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class OpenOptionsTest {
+
+    private static Path write(byte[] data) throws Exception {
+        var file = Files.createTempFile("pefile", ".exe");
+        Files.write(file, data);
+        return file;
+    }
+
+    /**
+     * The resource directory points to an RVA outside any section.
+     */
+    private static byte[] brokenResources() {
+        var b = new TestImages.Builder();
+        b.section(".text", 0x1000, 0x10, new byte[]{(byte) 0xc3}, SectionFlags.CNT_CODE);
+        b.directory(2, 0x9000, 0x10);
+        return b.build();
+    }
+
+    @Test
+    public void testStrategies() throws Exception {
+        var file = write(TestImages.sample());
+        try {
+            for (var strategy : OpenOptions.AccessStrategy.values()) {
+                var options = OpenOptions.builder().accessStrategy(strategy).build();
+                try (var pe = PEFile.open(file, options)) {
+                    InMemoryOpenTest.assertSample(pe);
+                }
+            }
+            var cache = new BlockCache(512, 16);
+            var options = OpenOptions.builder().heapThreshold(-1).blockCache(cache).lazyResourceRoot(true).build();
+            try (var pe = PEFile.open(file, options)) {
+                InMemoryOpenTest.assertSample(pe);
+            }
+            Assertions.assertTrue(cache.getHitCount() > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testResolve() {
+        // AUTO maps the files only where the close unmaps them
+        var mmap = MmapHelper.isPreferred() ? OpenOptions.AccessStrategy.MMAP : OpenOptions.AccessStrategy.POSITIONAL;
+        var options = OpenOptions.builder().heapThreshold(1024).mmapThreshold(1 << 20).build();
+        Assertions.assertEquals(OpenOptions.AccessStrategy.HEAP, options.resolve(1024));
+        Assertions.assertEquals(OpenOptions.AccessStrategy.POSITIONAL, options.resolve(1025));
+        Assertions.assertEquals(mmap, options.resolve(1 << 20));
+        var cached = options.toBuilder().blockCache(new BlockCache(512, 1)).build();
+        Assertions.assertEquals(OpenOptions.AccessStrategy.POSITIONAL, cached.resolve(1 << 20));
+        var heap = OpenOptions.builder().accessStrategy(OpenOptions.AccessStrategy.HEAP).build();
+        Assertions.assertEquals(OpenOptions.AccessStrategy.POSITIONAL, heap.resolve(1L << 32));
+        Assertions.assertEquals(OpenOptions.AccessStrategy.HEAP, OpenOptions.DEFAULT.resolve(4096));
+        Assertions.assertEquals(mmap, OpenOptions.DEFAULT.resolve(1 << 20));
+        var noHeap = OpenOptions.builder().heapThreshold(-1).build();
+        Assertions.assertEquals(mmap, noHeap.resolve(0));
+        var explicit = OpenOptions.builder().accessStrategy(OpenOptions.AccessStrategy.MMAP).build();
+        Assertions.assertEquals(OpenOptions.AccessStrategy.MMAP, explicit.resolve(1 << 20));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OpenOptions.builder().heapThreshold(-2));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OpenOptions.builder().mmapThreshold(-1));
+    }
+
+    @Test
+    public void testValidation() throws Exception {
+        var file = write(brokenResources());
+        try {
+            Assertions.assertThrows(PEFileException.class, () -> PEFile.open(file, OpenOptions.DEFAULT));
+
+            var lazy = OpenOptions.builder().lazyResourceRoot(true).build();
+            try (var pe = PEFile.open(file, lazy)) {
+                Assertions.assertThrows(PEFileException.class, pe::getResourceRoot);
+            }
+
+            var lenient = OpenOptions.builder().validation(OpenOptions.Validation.LENIENT).build();
+            try (var pe = PEFile.open(file, lenient)) {
+                Assertions.assertNull(pe.getResourceRoot());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
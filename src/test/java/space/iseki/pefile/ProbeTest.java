@@ -0,0 +1,41 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+public class ProbeTest {
+
+    @Test
+    public void testProbe() throws Exception {
+        var image = TestImages.sample();
+        var summary = PEFile.probe(ByteBuffer.wrap(image));
+        Assertions.assertEquals(MachineTypes.AMD64, summary.getMachine());
+        Assertions.assertTrue(summary.isPE32Plus());
+        Assertions.assertFalse(summary.isDll());
+        try (var pe = PEFile.open(image)) {
+            Assertions.assertEquals(pe.getCoffHeader(), summary.getCoffHeader());
+            Assertions.assertEquals(pe.getStandardHeader(), summary.getStandardHeader());
+            Assertions.assertEquals(pe.getOptionalHeader(), summary.getOptionalHeader());
+            Assertions.assertEquals(pe.getDataDirectories(), summary.getDataDirectories());
+        }
+
+        var file = Files.createTempFile("pefile", ".exe");
+        try {
+            Files.write(file, image);
+            Assertions.assertEquals(summary, PEFile.probe(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        Assertions.assertThrows(PEFileException.class, () -> PEFile.probe(ByteBuffer.allocate(64)));
+        var image = TestImages.sample();
+        image[TestImages.PE_BEGIN] = 'X';
+        Assertions.assertThrows(PEFileException.class, () -> PEFile.probe(ByteBuffer.wrap(image)));
+    }
+}
@@ -0,0 +1,113 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class ReadBatchTest {
+
+    private static WrappedDataAccessor accessor(byte[] data) {
+        return new WrappedDataAccessor(new CustomDataAccessorV2(new DataAccessorTest.RangeReadStore(data)));
+    }
+
+    private static byte[] sequence(int size) {
+        var data = new byte[size];
+        for (int i = 0; i < size; i++) data[i] = (byte) i;
+        return data;
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        var batch = new ReadBatch(accessor(sequence(2048)), 16);
+        var c = batch.add(1000, 4);
+        var b = batch.add(20, 4);
+        var a = batch.add(0, 8);
+        var overlapped = batch.add(2, 4);
+        Assertions.assertEquals(2, batch.execute());
+        Assertions.assertEquals(0, batch.dataFully(a).get(0));
+        Assertions.assertEquals(2, batch.dataFully(overlapped).get(0));
+        Assertions.assertEquals(20, batch.dataFully(b).get(0));
+        Assertions.assertEquals((byte) 1000, batch.dataFully(c).get(0));
+        Assertions.assertEquals(0x03020100, batch.data(a).getInt(0));
+    }
+
+    @Test
+    public void testEndOfFile() throws Exception {
+        var batch = new ReadBatch(accessor(sequence(100)));
+        var tail = batch.add(96, 8);
+        var beyond = batch.add(200, 8);
+        batch.execute();
+        Assertions.assertEquals(4, batch.data(tail).remaining());
+        Assertions.assertEquals(0, batch.data(beyond).remaining());
+        Assertions.assertThrows(EOFException.class, () -> batch.dataFully(tail));
+        Assertions.assertEquals(96, batch.buffer(tail).get(batch.offset(tail)));
+    }
+
+    @Test
+    public void testBorrow() throws Exception {
+        var data = sequence(4096);
+        var batch = ReadBatch.borrow(accessor(data));
+        try {
+            // a nested borrow gets its own batch
+            var nested = ReadBatch.borrow(accessor(data));
+            Assertions.assertNotSame(batch, nested);
+            nested.release();
+            var a = batch.add(0, 8);
+            batch.execute();
+            // executed again, the new ranges are read after the previous ones, the owned buffer grows
+            var b = batch.add(3000, 600);
+            var c = batch.add(4090, 16);
+            Assertions.assertEquals(2, batch.execute());
+            Assertions.assertEquals(0x03020100, batch.dataFully(a).getInt(0));
+            Assertions.assertEquals((byte) 3000, batch.dataFully(b).get(0));
+            Assertions.assertEquals((byte) 3599, batch.buffer(b).get(batch.offset(b) + 599));
+            Assertions.assertEquals(6, batch.available(c));
+        } finally {
+            batch.release();
+        }
+        var again = ReadBatch.borrow(accessor(data));
+        try {
+            Assertions.assertSame(batch, again);
+            var d = again.add(100, 4);
+            again.execute();
+            Assertions.assertEquals((byte) 100, again.dataFully(d).get(0));
+        } finally {
+            again.release();
+        }
+    }
+
+    @Test
+    public void testBrokenResourceEntry() throws Exception {
+        var rsrc = ByteBuffer.allocate(0x80).order(ByteOrder.LITTLE_ENDIAN);
+        rsrc.putShort(12, (short) 1).putShort(14, (short) 2);
+        // the named entry points to a zero-length name
+        rsrc.putInt(0x10, 0x80000000 | 0x60).putInt(0x14, 0x30);
+        rsrc.putInt(0x18, 1).putInt(0x1c, 0x30);
+        rsrc.putInt(0x20, 2).putInt(0x24, 0x40);
+        rsrc.putInt(0x30, 0x3070).putInt(0x34, 4);
+        rsrc.putInt(0x40, 0x3074).putInt(0x44, 4);
+        var b = new TestImages.Builder();
+        b.section(".rsrc", 0x3000, 0x80, rsrc.array(), SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(2, 0x3000, 0x80);
+        try (var pe = PEFile.open(b.build())) {
+            var children = pe.listChildren(pe.getResourceRoot());
+            Assertions.assertEquals(3, children.size());
+            // the siblings of the broken entry are still readable
+            Assertions.assertEquals(1, children.get(1).getResourceID());
+            Assertions.assertEquals(2, children.get(2).getResourceID());
+            Assertions.assertThrows(PEFileException.class, () -> children.get(0));
+            Assertions.assertThrows(PEFileException.class, () -> children.get(0));
+            Assertions.assertEquals(1, children.get(1).getResourceID());
+        }
+    }
+
+    @Test
+    public void testNotExecuted() {
+        var batch = new ReadBatch(accessor(sequence(16)));
+        var range = batch.add(0, 4);
+        Assertions.assertThrows(IllegalStateException.class, () -> batch.data(range));
+    }
+}
@@ -0,0 +1,62 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
+
+public class SectionChannelTest {
+
+    @Test
+    public void testOpenChannel() throws Exception {
+        var image = TestImages.sample();
+        try (var pe = PEFile.open(image)) {
+            var text = pe.getSections().get(0);
+            var pointer = text.getPointerToRawData();
+            var expected = Arrays.copyOfRange(image, pointer, pointer + text.getSizeOfRawData());
+            try (var ch = text.openChannel()) {
+                Assertions.assertEquals(text.getSizeOfRawData(), ch.size());
+                var out = new ByteArrayOutputStream();
+                Channels.newInputStream(ch).transferTo(out);
+                Assertions.assertArrayEquals(expected, out.toByteArray());
+                Assertions.assertEquals(-1, ch.read(ByteBuffer.allocate(1)));
+                // a larger buffer is filled up to the end only, and its position is advanced
+                var buf = ByteBuffer.allocate(text.getSizeOfRawData() + 16);
+                Assertions.assertEquals(text.getSizeOfRawData(), ch.position(0).read(buf));
+                Assertions.assertEquals(text.getSizeOfRawData(), buf.position());
+                Assertions.assertEquals(-1, ch.position(ch.size() + 1).read(ByteBuffer.allocate(1)));
+            }
+            try (var ch = text.openChannel(0x1001)) {
+                Assertions.assertEquals(text.getSizeOfRawData() - 1, ch.size());
+                var buf = ByteBuffer.allocate(5);
+                ch.read(buf);
+                Assertions.assertEquals("Hello", new String(buf.array()));
+            }
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> text.openChannel(0xfff));
+            Assertions.assertThrows(IndexOutOfBoundsException.class,
+                                    () -> text.openChannel(0x1001 + text.getSizeOfRawData()));
+            var ch = text.openChannel();
+            ch.close();
+            Assertions.assertFalse(ch.isOpen());
+            Assertions.assertThrows(ClosedChannelException.class, () -> ch.read(ByteBuffer.allocate(1)));
+        }
+    }
+
+    @Test
+    public void testInputStream() throws Exception {
+        try (var pe = PEFile.open(TestImages.sample())) {
+            var text = pe.getSections().get(0);
+            try (var input = text.inputStream(0x1001)) {
+                Assertions.assertEquals('H', input.read());
+                var rest = input.readAllBytes();
+                // up to the virtual size
+                Assertions.assertEquals(text.getVirtualSize() - 2, rest.length);
+                Assertions.assertEquals("ello", new String(rest, 0, 4));
+            }
+        }
+    }
+}
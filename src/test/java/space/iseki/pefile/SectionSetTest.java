@@ -0,0 +1,135 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class SectionSetTest {
+
+    private static Section section(String name, int virtualAddress, int virtualSize, int pointer, int rawSize) {
+        return section(name, virtualAddress, virtualSize, pointer, rawSize, null);
+    }
+
+    private static Section section(String name,
+                                   int virtualAddress,
+                                   int virtualSize,
+                                   int pointer,
+                                   int rawSize,
+                                   WrappedDataAccessor accessor) {
+        var item = new SectionTableItem(name, virtualSize, virtualAddress, rawSize, pointer, 0, 0, (short) 0,
+                                        (short) 0, 0);
+        return new Section(item, accessor);
+    }
+
+    @Test
+    public void testFind() {
+        var a = section("a", 0x1000, 0x800, 0x400, 0x200);
+        var b = section("b", 0x3000, 0x1000, 0x600, 0x1000);
+        var c = section("c", 0x2000, 0x100, 0x1600, 0x200);
+        var empty = section("empty", 0x2800, 0, 0, 0);
+        var set = new SectionSet(new Section[]{a, b, c, empty});
+        Assertions.assertNull(set.find(0xfff));
+        Assertions.assertSame(a, set.find(0x1000));
+        Assertions.assertSame(a, set.find(0x17ff));
+        Assertions.assertNull(set.find(0x1800));
+        Assertions.assertSame(c, set.find(0x2000));
+        Assertions.assertNull(set.find(0x2800));
+        Assertions.assertSame(b, set.find(0x3fff));
+        Assertions.assertSame(b, set.find(0x3000));
+        Assertions.assertNull(set.find(0x4000));
+        Assertions.assertNull(set.find(-1));
+        Assertions.assertSame(c, set.findByFileOffset(0x1700));
+        Assertions.assertNull(set.findByFileOffset(0x1800));
+    }
+
+    @Test
+    public void testOverlapped() {
+        var outer = section("outer", 0x1000, 0x3000, 0x400, 0x200);
+        var inner = section("inner", 0x2000, 0x100, 0x600, 0x200);
+        var set = new SectionSet(new Section[]{inner, outer});
+        // the first one in the table wins
+        Assertions.assertSame(inner, set.find(0x2000));
+        Assertions.assertSame(outer, set.find(0x1000));
+        Assertions.assertSame(outer, set.find(0x3000));
+    }
+
+    @Test
+    public void testSpanningRead() throws Exception {
+        var file = new byte[0x40];
+        for (int i = 0; i < file.length; i++) file[i] = (byte) ('a' + i % 16);
+        file[0x2f] = 0;
+        var accessor = new WrappedDataAccessor(new CustomDataAccessorV2(new DataAccessorTest.RangeReadStore(file)));
+        // [0x100, 0x110) backed by [0x10, 0x18), then [0x110, 0x120) backed by [0x20, 0x30)
+        var a = section("a", 0x100, 0x10, 0x10, 0x8, accessor);
+        var b = section("b", 0x110, 0x10, 0x20, 0x10, accessor);
+        var set = new SectionSet(new Section[]{b, a});
+        var buf = new byte[0x14];
+        java.util.Arrays.fill(buf, (byte) -1);
+        set.readBytes(buf, 0x104, 0, buf.length);
+        Assertions.assertArrayEquals("efgh\0\0\0\0\0\0\0\0abcdefgh".getBytes(), buf);
+        // terminated by the virtual tail
+        Assertions.assertEquals("gh", set.readNullShortString(0x106));
+        Assertions.assertEquals("ijklmno", set.readNullShortString(0x118));
+        Assertions.assertNull(set.readNullShortString(0x108));
+        Assertions.assertNull(set.readNullShortString(0x200));
+    }
+
+    @Test
+    public void testRawTailBeyondVirtualSize() throws Exception {
+        var file = new byte[0x40];
+        for (int i = 0; i < file.length; i++) file[i] = (byte) ('a' + i % 16);
+        file[0x1c] = 0;
+        file[0x1f] = 0;
+        var accessor = new WrappedDataAccessor(new CustomDataAccessorV2(new DataAccessorTest.RangeReadStore(file)));
+        // the virtual size is 0x8, but the raw data [0x10, 0x20) is read up to its end
+        var a = section("a", 0x100, 0x8, 0x10, 0x10, accessor);
+        var set = new SectionSet(new Section[]{a});
+        var buf = new byte[0x14];
+        set.readBytes(buf, 0x104, 0, buf.length);
+        Assertions.assertArrayEquals("efghijkl\0no\0\0\0\0\0\0\0\0\0".getBytes(), buf);
+        Assertions.assertEquals("efghijkl", set.readNullShortString(0x104));
+        Assertions.assertEquals("no", set.readNullShortString(0x10d));
+        Assertions.assertNull(set.readNullShortString(0x110));
+        Assertions.assertNull(set.find(0x108));
+    }
+
+    @Test
+    public void testImportsBeyondVirtualSize() throws Exception {
+        var imports = new LinkedHashMap<String, List<Object>>();
+        imports.put("KERNEL32.dll", List.of("ExitProcess", "GetProcAddress"));
+        // the lookup table and the names are after the virtual size 0x40, the raw data is 0x400 bytes
+        var b = new TestImages.Builder();
+        b.section(".idata", 0x2000, 0x40, TestImages.imports(0x2000, imports), SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 20 * 2);
+        try (var pe = PEFile.open(b.build())) {
+            var result = new ArrayList<String>();
+            for (var entry : pe.getImportTable()) {
+                for (var symbol : entry.symbols()) result.add(entry.getName() + "!" + symbol.getName());
+            }
+            Assertions.assertEquals(List.of("KERNEL32.dll!ExitProcess", "KERNEL32.dll!GetProcAddress"), result);
+        }
+    }
+
+    @Test
+    public void testTranslate() throws Exception {
+        try (var pe = PEFile.open(TestImages.sample())) {
+            var text = pe.getSections().get(0);
+            var pointer = Integer.toUnsignedLong(text.getPointerToRawData());
+            Assertions.assertEquals(pointer + 4, pe.rvaToFileOffset(0x1004));
+            Assertions.assertEquals(0x1004, pe.fileOffsetToRva(pointer + 4));
+            // the headers
+            Assertions.assertEquals(0x3c, pe.rvaToFileOffset(0x3c));
+            Assertions.assertEquals(0x3c, pe.fileOffsetToRva(0x3c));
+            // not in any section
+            Assertions.assertEquals(-1, pe.rvaToFileOffset(0x8000));
+            Assertions.assertEquals(-1, pe.fileOffsetToRva(0x100000));
+            Assertions.assertEquals(-1, pe.fileOffsetToRva(-1));
+            Assertions.assertEquals(0x1004, pe.vaToRva(TestImages.IMAGE_BASE + 0x1004));
+            Assertions.assertEquals(-1, pe.vaToRva(TestImages.IMAGE_BASE - 1));
+            Assertions.assertEquals(-1, pe.vaToRva(TestImages.IMAGE_BASE + 0x100000000L));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class SignatureMatcherTest {
+
+    private static WrappedDataAccessor accessor(byte[] data) {
+        return new WrappedDataAccessor(new CustomDataAccessorV2(new DataAccessorTest.RangeReadStore(data)));
+    }
+
+    private static List<String> hits(SignatureMatcher matcher, byte[] data, int chunkSize) throws Exception {
+        var hits = new ArrayList<String>();
+        matcher.scan(accessor(data), 0, -1, chunkSize, (p, offset) -> hits.add(p + "@" + offset));
+        hits.sort(null);
+        return hits;
+    }
+
+    @Test
+    public void testOverlappedPatterns() throws Exception {
+        var matcher = SignatureMatcher.builder()
+                                      .add(0, "68 65")
+                                      .add(1, "73 68 65")
+                                      .add(2, "68 69 73")
+                                      .add(3, "68 65 72 73")
+                                      .build();
+        var data = "ushers his".getBytes();
+        Assertions.assertEquals(List.of("0@2", "1@1", "2@7", "3@2"), hits(matcher, data, 1024));
+    }
+
+    @Test
+    public void testWildcard() throws Exception {
+        var matcher = SignatureMatcher.builder()
+                                      .add(0, "4D 5A ?? ?? 50")
+                                      .add(1, "?? 5A 9? 00")
+                                      .add(2, new byte[]{0x50}, new byte[]{(byte) 0xff})
+                                      .build();
+        var data = new byte[]{0x4d, 0x5a, (byte) 0x90, 0x00, 0x50, 0x4d, 0x5a, 0x10, 0x00, 0x51};
+        Assertions.assertEquals(List.of("0@0", "1@0", "2@4"), hits(matcher, data, 1024));
+    }
+
+    @Test
+    public void testChunkBoundary() throws Exception {
+        var random = new SplittableRandom(3);
+        var data = new byte[5000];
+        random.nextBytes(data);
+        var signatures = new ArrayList<byte[]>();
+        var builder = SignatureMatcher.builder();
+        for (int i = 0; i < 50; i++) {
+            var at = random.nextInt(data.length - 40);
+            var length = random.nextInt(1, 40);
+            var pattern = new byte[length];
+            System.arraycopy(data, at, pattern, 0, length);
+            var mask = new byte[length];
+            for (int j = 0; j < length; j++) mask[j] = random.nextInt(4) == 0 ? 0 : (byte) 0xff;
+            mask[random.nextInt(length)] = (byte) 0xff;
+            signatures.add(pattern);
+            builder.add(i, pattern, mask);
+        }
+        var matcher = builder.build();
+        var expected = hits(matcher, data, data.length);
+        Assertions.assertTrue(expected.size() >= 50);
+        for (var chunk : new int[]{1, 7, 64, 1000}) {
+            Assertions.assertEquals(expected, hits(matcher, data, chunk), "chunk " + chunk);
+        }
+    }
+
+    @Test
+    public void testSection() throws Exception {
+        var matcher = SignatureMatcher.builder().add(7, "48 65 6C 6C 6F").add(8, "4D 5A").build();
+        try (var pe = PEFile.open(TestImages.sample())) {
+            var text = pe.getSections().get(0);
+            var hits = matcher.scan(text);
+            Assertions.assertEquals(1, hits.size());
+            Assertions.assertEquals(7, hits.get(0).getPatternId());
+            Assertions.assertEquals(0x1001, hits.get(0).getRva());
+            Assertions.assertEquals(text.getPointerToRawData() + 1, hits.get(0).getFileOffset());
+            var all = matcher.scan(pe);
+            Assertions.assertEquals(8, all.get(0).getPatternId());
+            Assertions.assertEquals(0, all.get(0).getFileOffset());
+            Assertions.assertTrue(all.contains(hits.get(0)));
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        var builder = SignatureMatcher.builder();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> builder.add(0, "?? ??"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> builder.add(0, "4"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> builder.add(0, "GG"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> builder.add(0, new byte[0]));
+        Assertions.assertEquals(0, builder.build().size());
+    }
+}
@@ -0,0 +1,100 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StreamingOpenTest {
+
+    @Test
+    public void testEnoughBuffer() throws Exception {
+        try (var pe = PEFile.open(new ByteArrayInputStream(TestImages.sample()), 1 << 20)) {
+            InMemoryOpenTest.assertSample(pe);
+            Assertions.assertTrue(pe.getUnreachableStructures().isEmpty());
+        }
+    }
+
+    @Test
+    public void testOversizedSection() throws Exception {
+        // headers(512) + the import directory(60) + .rsrc(512), the whole .idata(1024) doesn't fit
+        try (var pe = PEFile.open(new ByteArrayInputStream(TestImages.sample()), 1200)) {
+            Assertions.assertNotNull(pe.getResourceRoot());
+            Assertions.assertFalse(pe.getUnreachableStructures().isEmpty());
+            Assertions.assertTrue(pe.getUnreachableStructures().get(0).startsWith("import"));
+            Assertions.assertThrows(PEFileException.class, () -> {
+                for (var entry : pe.getImportTable()) {
+                    entry.symbols().iterator().next();
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testManySections() throws Exception {
+        var b = new TestImages.Builder();
+        for (int i = 0; i < 95; i++) {
+            b.section(".d" + i, 0x10000 + i * 0x1000, 0x10, new byte[]{(byte) i}, SectionFlags.CNT_INITIALIZED_DATA);
+        }
+        var imports = TestImages.imports(0x200000, Map.of("KERNEL32.dll", List.of("Sleep")));
+        b.section(".idata", 0x200000, imports.length, imports, SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x200000, 40);
+        try (var pe = PEFile.open(new ByteArrayInputStream(b.build()), 1 << 20)) {
+            Assertions.assertTrue(pe.getUnreachableStructures().isEmpty());
+            var entry = pe.getImportTable().iterator().next();
+            Assertions.assertEquals("KERNEL32.dll", entry.getName());
+            Assertions.assertEquals("Sleep", entry.symbols().iterator().next().getName());
+        }
+    }
+
+    @Test
+    public void testHeadersExceedLimit() {
+        var input = new ByteArrayInputStream(TestImages.sample());
+        Assertions.assertThrows(PEFileException.class, () -> PEFile.open(input, 256));
+    }
+
+    @Test
+    public void testLookupTableAfterDirectory() throws Exception {
+        var dlls = new LinkedHashMap<String, List<Object>>();
+        dlls.put("KERNEL32.dll", List.of("Sleep"));
+        dlls.put("USER32.dll", List.of("MessageBoxA"));
+        dlls.put("WS2_32.dll", List.of(3));
+        // the lookup tables begin right after the null descriptor, at the end of the buffered directory
+        var b = new TestImages.Builder();
+        b.section(".idata", 0x2000, 0x400, TestImages.imports(0x2000, dlls), SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 80);
+        try (var pe = PEFile.open(new ByteArrayInputStream(b.build()), 800)) {
+            var unreachable = pe.getUnreachableStructures();
+            Assertions.assertTrue(unreachable.stream().anyMatch(i -> i.startsWith("import lookup tables")),
+                                  unreachable.toString());
+        }
+    }
+
+    @Test
+    public void testBogusPeOffset() {
+        for (var peBeginAt : new int[]{0x7ffffff0, 0x40000000, -16}) {
+            var data = TestImages.sample();
+            ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(0x3c, peBeginAt);
+            var input = new ByteArrayInputStream(data);
+            Assertions.assertThrows(PEFileException.class, () -> PEFile.open(input, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void testAdjacentRegions() throws Exception {
+        var sparse = new SparseDataAccessorV2();
+        sparse.add(0x100, new byte[]{1, 2, 3, 4});
+        sparse.add(0x104, new byte[]{5, 6, 7, 8});
+        Assertions.assertTrue(sparse.contains(0x102, 6));
+        Assertions.assertFalse(sparse.contains(0x102, 7));
+        Assertions.assertNull(sparse.view(0x102, 4));
+        var wrapped = new WrappedDataAccessor(sparse);
+        var view = wrapped.view(0x102, 4);
+        Assertions.assertEquals(0x03040506, view.order(ByteOrder.BIG_ENDIAN).getInt(0));
+    }
+}
@@ -0,0 +1,90 @@
+package space.iseki.pefile;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class StringExtractorTest {
+
+    private static List<String> strings(StringExtractor extractor, byte[] data, int chunkSize) throws Exception {
+        var accessor = new WrappedDataAccessor(new CustomDataAccessorV2(new DataAccessorTest.RangeReadStore(data)));
+        var result = new ArrayList<String>();
+        extractor.extract(accessor, 0, -1, chunkSize, (encoding, text, offset) -> {
+            result.add(encoding + ":" + text + "@" + offset);
+        });
+        result.sort(null);
+        return result;
+    }
+
+    @Test
+    public void testAsciiAndUtf16() throws Exception {
+        var out = new ByteArrayOutputStream();
+        out.write(new byte[]{0, 1});
+        out.writeBytes("kernel32".getBytes(StandardCharsets.US_ASCII));
+        out.write(0);
+        out.write(0x7f);
+        out.writeBytes("Setup".getBytes(StandardCharsets.UTF_16LE));
+        out.writeBytes(new byte[]{0, 0, 'a', 'b', 'c', 0});
+        out.writeBytes(" odd".getBytes(StandardCharsets.UTF_16LE));
+        out.writeBytes(new byte[]{1, 'e', 'n', 'd', '!'});
+        var data = out.toByteArray();
+        var expected = List.of("ASCII:end!@37", "ASCII:kernel32@2", "UTF_16LE:Setup@12", "UTF_16LE:c odd@26");
+        for (var chunk : new int[]{1, 3, 1024}) {
+            Assertions.assertEquals(expected, strings(StringExtractor.DEFAULT, data, chunk), "chunk " + chunk);
+        }
+        var asciiOnly = StringExtractor.builder().utf16le(false).minLength(3).build();
+        Assertions.assertEquals(List.of("ASCII:abc@24", "ASCII:end!@37", "ASCII:kernel32@2"),
+                                strings(asciiOnly, data, 7));
+    }
+
+    @Test
+    public void testMaxLength() throws Exception {
+        var data = new byte[10];
+        Arrays.fill(data, (byte) 'x');
+        var extractor = StringExtractor.builder().minLength(2).maxLength(4).utf16le(false).build();
+        Assertions.assertEquals(List.of("ASCII:xx@8", "ASCII:xxxx@0", "ASCII:xxxx@4"), strings(extractor, data, 3));
+    }
+
+    @Test
+    public void testPEFile() throws Exception {
+        var image = TestImages.sample();
+        var overlay = "overlay-data".getBytes(StandardCharsets.US_ASCII);
+        var data = Arrays.copyOf(image, image.length + overlay.length);
+        System.arraycopy(overlay, 0, data, image.length, overlay.length);
+        try (var pe = PEFile.open(data)) {
+            var text = pe.getSections().get(0);
+            var inText = new ArrayList<StringExtractor.ExtractedString>();
+            text.extractStrings(inText::add);
+            Assertions.assertEquals(1, inText.size());
+            Assertions.assertEquals("Hello", inText.get(0).getText());
+            Assertions.assertEquals(0x1001, inText.get(0).getRva());
+            Assertions.assertEquals(text.getPointerToRawData() + 1, inText.get(0).getFileOffset());
+            Assertions.assertSame(text, inText.get(0).getSection());
+
+            var all = new ArrayList<StringExtractor.ExtractedString>();
+            pe.extractStrings(all::add);
+            var hello = all.stream().filter(it -> it.getText().equals("Hello")).findFirst().orElseThrow();
+            Assertions.assertEquals(0x1001, hello.getRva());
+            Assertions.assertEquals(text, hello.getSection());
+            Assertions.assertTrue(all.stream().anyMatch(it -> it.getText().equals("GetProcAddress")));
+            var last = all.get(all.size() - 1);
+            Assertions.assertEquals("overlay-data", last.getText());
+            Assertions.assertEquals(image.length, last.getFileOffset());
+            Assertions.assertEquals(-1, last.getRva());
+            Assertions.assertNull(last.getSection());
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StringExtractor.builder().minLength(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StringExtractor.builder().maxLength(0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                                () -> StringExtractor.builder().minLength(5).maxLength(4).build());
+    }
+}
@@ -0,0 +1,186 @@
+package space.iseki.pefile;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds small PE32+ images for the tests, so they don't depend on the files of the host system.
+ */
+final class TestImages {
+    static final int FILE_ALIGNMENT = 0x200;
+    static final int SECTION_ALIGNMENT = 0x1000;
+    static final int PE_BEGIN = 0x80;
+    static final long IMAGE_BASE = 0x140000000L;
+
+    private TestImages() {
+    }
+
+    /**
+     * An image with a code section, an import section and a resource section.
+     * <p>
+     * Imports: {@code KERNEL32.dll!ExitProcess}, {@code KERNEL32.dll!GetProcAddress},
+     * {@code WS2_32.dll#3} and {@code WS2_32.dll#23}.
+     * <p>
+     * Resources: {@code <ID:3>/ICON/<ID:1033>} points to the bytes {@code hello}.
+     */
+    static byte[] sample() {
+        var imports = new LinkedHashMap<String, List<Object>>();
+        imports.put("KERNEL32.dll", List.of("ExitProcess", "GetProcAddress"));
+        imports.put("WS2_32.dll", List.of(3, 23));
+        var b = new Builder();
+        b.section(".text", 0x1000, 0x10, new byte[]{(byte) 0xc3, 0x48, 0x65, 0x6c, 0x6c, 0x6f}, SectionFlags.CNT_CODE);
+        b.section(".idata", 0x2000, 0x400, imports(0x2000, imports), SectionFlags.CNT_INITIALIZED_DATA);
+        b.section(".rsrc", 0x3000, 0x200, resources(0x3000), SectionFlags.CNT_INITIALIZED_DATA);
+        b.directory(1, 0x2000, 20 * 3);
+        b.directory(12, 0x2070, 48);
+        b.directory(2, 0x3000, 0x78);
+        return b.build();
+    }
+
+    static byte[] imports(int baseRva, Map<String, List<Object>> dlls) {
+        var descriptorsEnd = 20 * (dlls.size() + 1);
+        var iltBegin = (descriptorsEnd + 15) & ~15;
+        var tableSize = 0;
+        var namesSize = 0;
+        for (var e : dlls.entrySet()) {
+            tableSize += 8 * (e.getValue().size() + 1);
+            namesSize += e.getKey().length() + 2;
+            for (var symbol : e.getValue()) {
+                if (symbol instanceof String) namesSize += ((String) symbol).length() + 4;
+            }
+        }
+        var iatBegin = iltBegin + tableSize;
+        var namesBegin = iatBegin + tableSize;
+        var buf = ByteBuffer.allocate(Math.max(0x400, namesBegin + namesSize)).order(ByteOrder.LITTLE_ENDIAN);
+        var ilt = iltBegin;
+        var iat = iatBegin;
+        var names = namesBegin;
+        var i = 0;
+        for (var e : dlls.entrySet()) {
+            var descriptor = 20 * i++;
+            buf.putInt(descriptor, baseRva + ilt);
+            buf.putInt(descriptor + 12, baseRva + names);
+            buf.putInt(descriptor + 16, baseRva + iat);
+            names = putString(buf, names, e.getKey());
+            for (var symbol : e.getValue()) {
+                long value;
+                if (symbol instanceof Integer) {
+                    value = Long.MIN_VALUE | (Integer) symbol;
+                } else {
+                    value = baseRva + names;
+                    buf.putShort(names, (short) 0);
+                    names = putString(buf, names + 2, (String) symbol);
+                }
+                buf.putLong(ilt, value);
+                buf.putLong(iat, value);
+                ilt += 8;
+                iat += 8;
+            }
+            ilt += 8;
+            iat += 8;
+        }
+        return buf.array();
+    }
+
+    private static int putString(ByteBuffer buf, int off, String s) {
+        var bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+        buf.put(off, bytes);
+        return (off + bytes.length + 2) & ~1;
+    }
+
+    static byte[] resources(int baseRva) {
+        var buf = ByteBuffer.allocate(0x80).order(ByteOrder.LITTLE_ENDIAN);
+        // root, one ID entry
+        buf.putShort(14, (short) 1);
+        buf.putInt(0x10, 3);
+        buf.putInt(0x14, 0x80000000 | 0x18);
+        // type directory, one named entry
+        buf.putShort(0x18 + 12, (short) 1);
+        buf.putInt(0x28, 0x80000000 | 0x60);
+        buf.putInt(0x2c, 0x80000000 | 0x30);
+        // name directory, one ID entry points to the data entry
+        buf.putShort(0x30 + 14, (short) 1);
+        buf.putInt(0x40, 1033);
+        buf.putInt(0x44, 0x48);
+        // data entry
+        buf.putInt(0x48, baseRva + 0x70);
+        buf.putInt(0x4c, 5);
+        // name
+        buf.putShort(0x60, (short) 4);
+        buf.put(0x62, "ICON".getBytes(StandardCharsets.UTF_16LE));
+        buf.put(0x70, "hello".getBytes(StandardCharsets.ISO_8859_1));
+        return buf.array();
+    }
+
+    static final class Builder {
+        private final List<Object[]> sections = new ArrayList<>();
+        private final int[][] directories = new int[16][];
+
+        Builder section(String name, int virtualAddress, int virtualSize, byte[] raw, int characteristics) {
+            sections.add(new Object[]{name, virtualAddress, virtualSize, raw, characteristics});
+            return this;
+        }
+
+        Builder directory(int index, int rva, int size) {
+            directories[index] = new int[]{rva, size};
+            return this;
+        }
+
+        byte[] build() {
+            var sectionTable = PE_BEGIN + 24 + 240;
+            var headersSize = align(sectionTable + 40 * sections.size(), FILE_ALIGNMENT);
+            var fileSize = headersSize;
+            for (var s : sections) fileSize += align(((byte[]) s[3]).length, FILE_ALIGNMENT);
+            var buf = ByteBuffer.allocate(fileSize).order(ByteOrder.LITTLE_ENDIAN);
+            buf.put(0, new byte[]{'M', 'Z'});
+            buf.putInt(0x3c, PE_BEGIN);
+            buf.putInt(PE_BEGIN, (int) PEFile.PE_SIGNATURE_LE);
+            var coff = PE_BEGIN + 4;
+            buf.putShort(coff, MachineTypes.AMD64);
+            buf.putShort(coff + 2, (short) sections.size());
+            buf.putShort(coff + 16, (short) 240);
+            buf.putShort(coff + 18, (short) (Characteristics.IMAGE_FILE_EXECUTABLE_IMAGE |
+                                             Characteristics.IMAGE_FILE_LARGE_ADDRESS_AWARE));
+            var opt = coff + 20;
+            buf.putShort(opt, (short) 0x20b);
+            buf.putLong(opt + 24, IMAGE_BASE);
+            buf.putInt(opt + 32, SECTION_ALIGNMENT);
+            buf.putInt(opt + 36, FILE_ALIGNMENT);
+            buf.putInt(opt + 60, headersSize);
+            buf.putShort(opt + 68, WindowsSubsystems.WINDOWS_CUI);
+            buf.putInt(opt + 108, 16);
+            for (int i = 0; i < 16; i++) {
+                if (directories[i] == null) continue;
+                buf.putInt(opt + 112 + i * 8, directories[i][0]);
+                buf.putInt(opt + 116 + i * 8, directories[i][1]);
+            }
+            var imageEnd = 0;
+            var raw = headersSize;
+            for (int i = 0; i < sections.size(); i++) {
+                var s = sections.get(i);
+                var item = sectionTable + 40 * i;
+                var data = (byte[]) s[3];
+                buf.put(item, ((String) s[0]).getBytes(StandardCharsets.ISO_8859_1));
+                buf.putInt(item + 8, (Integer) s[2]);
+                buf.putInt(item + 12, (Integer) s[1]);
+                buf.putInt(item + 16, align(data.length, FILE_ALIGNMENT));
+                buf.putInt(item + 20, raw);
+                buf.putInt(item + 36, (Integer) s[4]);
+                buf.put(raw, data);
+                raw += align(data.length, FILE_ALIGNMENT);
+                imageEnd = Math.max(imageEnd, (Integer) s[1] + (Integer) s[2]);
+            }
+            buf.putInt(opt + 56, align(imageEnd, SECTION_ALIGNMENT));
+            return buf.array();
+        }
+
+        private static int align(int v, int alignment) {
+            return (v + alignment - 1) / alignment * alignment;
+        }
+    }
+}